@@ -0,0 +1,36 @@
+#!/usr/bin/env bash
+# Runs web-tier.js against the application twice, once with Tomcat's platform thread pool and
+# once with virtual threads, and prints throughput and p99 latency per endpoint for each mode.
+# Needs a Java 21 runtime, k6, and a jar built with: ./mvnw -Pjava21 -DskipTests package
+# k6 reads CUSTOMER, CUSTOMER_PASSWORD, CASHIER, CASHIER_PASSWORD, PRODUCT_ID, VUS and DURATION
+# from the environment.
+set -euo pipefail
+
+JAR=${JAR:-$(ls target/smartcart-*.jar | head -n 1)}
+BASE_URL=${BASE_URL:-http://localhost:8080}
+OUT=${OUT:-target/load-tests}
+mkdir -p "$OUT"
+
+for mode in platform virtual; do
+    enabled=false
+    [ "$mode" = virtual ] && enabled=true
+
+    SPRING_THREADS_VIRTUAL_ENABLED=$enabled java -jar "$JAR" > "$OUT/app-$mode.log" 2>&1 &
+    app=$!
+    trap 'kill $app 2>/dev/null || true' EXIT
+    until curl -sf -o /dev/null "$BASE_URL/login"; do sleep 1; done
+
+    BASE_URL="$BASE_URL" k6 run --quiet --summary-export "$OUT/summary-$mode.json" load-tests/web-tier.js
+
+    kill $app
+    wait $app 2>/dev/null || true
+done
+
+for mode in platform virtual; do
+    echo "== $mode threads"
+    jq -r '.metrics | to_entries[]
+        | select(.key | startswith("http_req_duration{endpoint:"))
+        | "\(.key | sub("http_req_duration\\{endpoint:"; "") | sub("}"; ""))\tp99 \(.value["p(99)"] | floor) ms\tavg \(.value.avg | floor) ms"' \
+        "$OUT/summary-$mode.json"
+    jq -r '"requests/s\t\(.metrics.http_reqs.rate | floor)"' "$OUT/summary-$mode.json"
+done
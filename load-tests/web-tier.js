@@ -0,0 +1,70 @@
+// k6 load test for the web tier: /shopping, /api/payments and /place-order.
+// Run against a disposable database - every /place-order iteration creates a real order.
+//
+//   CUSTOMER=alice CUSTOMER_PASSWORD=... CASHIER=E001 CASHIER_PASSWORD=... PRODUCT_ID=1 \
+//       k6 run load-tests/web-tier.js
+//
+// compare-threading.sh runs it once with platform threads and once with virtual threads.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const VUS = Number(__ENV.VUS || 300);
+const DURATION = __ENV.DURATION || '2m';
+
+export const options = {
+    scenarios: {
+        shopping: { executor: 'constant-vus', exec: 'shopping', vus: VUS, duration: DURATION },
+        payments: { executor: 'constant-vus', exec: 'payments', vus: Math.max(1, Math.floor(VUS / 10)), duration: DURATION },
+        placeOrder: { executor: 'constant-vus', exec: 'placeOrder', vus: Math.max(1, Math.floor(VUS / 10)), duration: DURATION },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+    // k6 only reports per-endpoint latency for tagged sub-metrics that have a threshold
+    thresholds: {
+        'http_req_duration{endpoint:shopping}': ['p(99)>=0'],
+        'http_req_duration{endpoint:payments}': ['p(99)>=0'],
+        'http_req_duration{endpoint:place-order}': ['p(99)>=0'],
+    },
+};
+
+// Each VU keeps its own cookie jar, so logging in once per VU gives it its own session
+function login(path, form) {
+    const response = http.post(BASE_URL + path, form, { redirects: 0 });
+    check(response, { 'logged in': r => r.status === 302 && !String(r.headers.Location).includes('login') });
+}
+
+let customerSession = false;
+let cashierSession = false;
+
+export function shopping() {
+    const response = http.get(`${BASE_URL}/shopping`, { tags: { endpoint: 'shopping' } });
+    check(response, { 'shopping 200': r => r.status === 200 });
+}
+
+export function payments() {
+    if (!cashierSession) {
+        login('/employee/login', { empid: __ENV.CASHIER, password: __ENV.CASHIER_PASSWORD, type: 'CASHIER' });
+        cashierSession = true;
+    }
+    const response = http.get(`${BASE_URL}/api/payments`, { tags: { endpoint: 'payments' } });
+    check(response, { 'payments ok': r => r.status === 200 && r.json('success') === true });
+}
+
+export function placeOrder() {
+    if (!customerSession) {
+        login('/login', { username: __ENV.CUSTOMER, password: __ENV.CUSTOMER_PASSWORD });
+        customerSession = true;
+    }
+    const productId = Number(__ENV.PRODUCT_ID || 1);
+    http.post(`${BASE_URL}/cart/api/items`, { productId: String(productId), quantity: '1' });
+    http.put(`${BASE_URL}/cart/api/selection`, JSON.stringify([productId]),
+        { headers: { 'Content-Type': 'application/json' } });
+
+    const response = http.post(`${BASE_URL}/place-order`, {
+        payslipLocationPath: '',
+        bankName: 'Load Test Bank',
+        accountHolderName: 'Load Test',
+        accountNumber: '0000000000',
+    }, { tags: { endpoint: 'place-order' } });
+    check(response, { 'order placed': r => r.status === 200 && r.json('success') === true });
+}
@@ -0,0 +1,134 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.entity.Bill;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Bill HTML generation: the compiled template against the previous approach, which ran
+ * String.formatted over the whole markup and built a new DateTimeFormatter for each bill.
+ * Run with the gc profiler to compare allocation per bill (gc.alloc.rate.norm):
+ * mvn -Pjmh test-compile exec:exec -Djmh.include=BillHtmlBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BillHtmlBenchmark {
+
+    private static final Pattern FIELD = Pattern.compile("\\{\\{(\\w+)}}");
+    private static final Pattern ITEMS = Pattern.compile("\\{\\{#items}}\\n(.*?)\\{\\{/items}}\\n", Pattern.DOTALL);
+
+    @Param({"1", "20"})
+    public int lineCount;
+
+    private BillHtmlTemplate template;
+    private Bill bill;
+    private List<BillHtmlTemplate.Line> lines;
+
+    // The same markup as a format string, with fields in order of appearance, as before the template
+    private String documentFormat;
+    private List<String> documentFields;
+    private String rowFormat;
+
+    @Setup
+    public void setUp() throws IOException {
+        String source;
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("pdf/bill.html")) {
+            source = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        template = BillHtmlTemplate.compile(source);
+
+        Matcher items = ITEMS.matcher(source);
+        if (!items.find()) {
+            throw new IllegalStateException("pdf/bill.html has no items block");
+        }
+        rowFormat = toFormat(items.group(1), new ArrayList<>());
+        documentFields = new ArrayList<>();
+        documentFormat = toFormat(source.substring(0, items.start()), documentFields)
+            + "%s" + toFormat(source.substring(items.end()), documentFields);
+        documentFields.add(documentFields.size() - countFields(source.substring(items.end())), "items");
+
+        bill = new Bill(1234L, 1234L, "customer42", "", "", new BigDecimal("84.50"), new BigDecimal("84.50"),
+            "Commercial Bank", "1234567890");
+        bill.setId(987L);
+        bill.setCreatedAt(LocalDateTime.of(2025, 3, 5, 14, 7));
+        lines = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            lines.add(new BillHtmlTemplate.Line("Product " + i, 2, new BigDecimal("4.25"), new BigDecimal("8.50")));
+        }
+    }
+
+    @Benchmark
+    public byte[] compiledTemplate() {
+        return template.render(bill, lines);
+    }
+
+    @Benchmark
+    public byte[] formattedTextBlock() {
+        // Two fresh formatters per bill, as the old generateBillHtml did
+        String date = bill.getCreatedAt().format(DateTimeFormatter.ofPattern("MMM dd, yyyy 'at' hh:mm a"));
+        String footerDate = bill.getCreatedAt().format(DateTimeFormatter.ofPattern("MMM dd, yyyy 'at' hh:mm a"));
+
+        StringBuilder rows = new StringBuilder();
+        for (BillHtmlTemplate.Line line : lines) {
+            rows.append(rowFormat.formatted(line.name(), line.quantity(), "$" + line.unitPrice(), "$" + line.lineTotal()));
+        }
+
+        Object[] values = new Object[documentFields.size()];
+        int dates = 0;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = switch (documentFields.get(i)) {
+                case "billId" -> bill.getId();
+                case "paymentId" -> bill.getPaymentId();
+                case "customer" -> bill.getUsername();
+                case "date" -> dates++ == 0 ? date : footerDate;
+                case "bankName" -> bill.getBankName();
+                case "accountNumber" -> bill.getBankAccountNumber();
+                case "subtotal" -> "$" + bill.getSubtotal();
+                case "total" -> "$" + bill.getTotal();
+                case "items" -> rows;
+                default -> throw new IllegalStateException(documentFields.get(i));
+            };
+        }
+        return documentFormat.formatted(values).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String toFormat(String source, List<String> fields) {
+        Matcher field = FIELD.matcher(source.replace("%", "%%"));
+        StringBuilder format = new StringBuilder();
+        while (field.find()) {
+            fields.add(field.group(1));
+            field.appendReplacement(format, "%s");
+        }
+        field.appendTail(format);
+        return format.toString();
+    }
+
+    private static int countFields(String source) {
+        return (int) FIELD.matcher(source).results().count();
+    }
+}
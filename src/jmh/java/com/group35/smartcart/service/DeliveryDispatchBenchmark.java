@@ -0,0 +1,123 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.SmartcartApplication;
+import com.group35.smartcart.entity.DeliveryPerson;
+import com.group35.smartcart.entity.Order;
+import com.group35.smartcart.entity.OrderItem;
+import com.group35.smartcart.entity.Product;
+import com.group35.smartcart.repository.DeliverPersonRepository;
+import com.group35.smartcart.repository.DeliveryAssignmentRepository;
+import com.group35.smartcart.repository.OrderRepository;
+import com.group35.smartcart.repository.ProductRepository;
+import com.group35.smartcart.service.DeliveryDispatchService.DispatchResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One dispatch run over a backlog of approved one-line orders to 120 lorry riders, the target
+ * being 10,000 orders in under a second. Each run starts from the same backlog: the previous
+ * run's assignments are deleted before it. Runs the whole application on its own embedded H2
+ * database; set SPRING_DATASOURCE_URL (and the username and password) in the environment to
+ * run against SQL Server instead.
+ * mvn -Pjmh test-compile exec:exec -Djmh.include=DeliveryDispatchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DeliveryDispatchBenchmark {
+
+    private static final int RIDERS = 120;
+
+    @Param({"10000"})
+    public int orders;
+
+    private ConfigurableApplicationContext context;
+    private DeliveryDispatchService deliveryDispatchService;
+    private DeliveryAssignmentRepository deliveryAssignmentRepository;
+    private RiderLoadService riderLoadService;
+
+    @Setup(Level.Trial)
+    public void start() {
+        List<String> args = new ArrayList<>();
+        if (System.getenv("SPRING_DATASOURCE_URL") == null) {
+            args.add("--spring.datasource.url=jdbc:h2:mem:" + getClass().getSimpleName() + System.nanoTime()
+                + ";DB_CLOSE_DELAY=-1");
+            args.add("--spring.datasource.driver-class-name=org.h2.Driver");
+            args.add("--spring.datasource.username=sa");
+            args.add("--spring.datasource.password=");
+            args.add("--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect");
+            args.add("--spring.jpa.hibernate.ddl-auto=create-drop");
+            args.add("--spring.flyway.enabled=false");
+        }
+        context = new SpringApplicationBuilder(SmartcartApplication.class)
+            .web(WebApplicationType.NONE)
+            .run(args.toArray(String[]::new));
+        deliveryDispatchService = context.getBean(DeliveryDispatchService.class);
+        deliveryAssignmentRepository = context.getBean(DeliveryAssignmentRepository.class);
+        riderLoadService = context.getBean(RiderLoadService.class);
+
+        DeliverPersonRepository deliverPersonRepository = context.getBean(DeliverPersonRepository.class);
+        List<DeliveryPerson> riders = new ArrayList<>(RIDERS);
+        for (int i = 0; i < RIDERS; i++) {
+            riders.add(new DeliveryPerson("Benchmark rider " + i, "benchmark" + i + "@example.com", "0771234567",
+                DeliveryPerson.VehicleType.LORRY, "BM-" + i));
+        }
+        deliverPersonRepository.saveAll(riders);
+
+        Product product = new Product("Benchmark product", null, new BigDecimal("2.50"), null, "Benchmark");
+        product.setStockQuantity(1_000_000);
+        product = context.getBean(ProductRepository.class).save(product);
+        OrderRepository orderRepository = context.getBean(OrderRepository.class);
+        List<Order> backlog = new ArrayList<>(500);
+        for (int i = 0; i < orders; i++) {
+            Order order = new Order("benchmark" + i, String.valueOf(product.getId()), "1", product.getPrice(), null);
+            order.setOrderStatus("APPROVED");
+            order.addItem(new OrderItem(order, product, 1, product.getPrice()));
+            backlog.add(order);
+            if (backlog.size() == 500) {
+                orderRepository.saveAll(backlog);
+                backlog.clear();
+            }
+        }
+        orderRepository.saveAll(backlog);
+    }
+
+    // Put the backlog back: without assignments every approved order is waiting for dispatch again
+    @Setup(Level.Iteration)
+    public void undispatch() {
+        deliveryAssignmentRepository.deleteAllInBatch();
+        riderLoadService.rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public DispatchResult dispatch() {
+        return deliveryDispatchService.dispatchApprovedOrders(null);
+    }
+}
@@ -0,0 +1,154 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.SmartcartApplication;
+import com.group35.smartcart.entity.CustomerPayment;
+import com.group35.smartcart.entity.Order;
+import com.group35.smartcart.entity.Product;
+import com.group35.smartcart.repository.EmployeeRepository;
+import com.group35.smartcart.repository.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Insert throughput of the catalog seeding in DataInitializationService and of order placement,
+ * with the persistence settings before the batching change ("before": no JDBC batching, every
+ * statement pretty-printed to stdout, order items and cart items on IDENTITY ids) and the
+ * current ones ("after": batches of 50, no SQL printing, pooled sequence ids). Both run the
+ * whole application on its own embedded H2 database, whose schema follows the mapping in use.
+ * Set SPRING_DATASOURCE_URL (and the username and password) in the environment to run against
+ * SQL Server instead; its Flyway-managed schema has sequence ids only, so there "before" keeps
+ * the sequences and measures the batching and logging settings alone.
+ * mvn -Pjmh test-compile exec:exec -Djmh.include=PersistenceInsertBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistenceInsertBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Application {
+
+        @Param({"before", "after"})
+        public String settings;
+
+        ConfigurableApplicationContext context;
+
+        @Setup(Level.Trial)
+        public void start() {
+            List<String> args = new ArrayList<>();
+            boolean embedded = System.getenv("SPRING_DATASOURCE_URL") == null;
+            if (embedded) {
+                args.add("--spring.datasource.url=jdbc:h2:mem:" + getClass().getSimpleName() + System.nanoTime()
+                    + ";DB_CLOSE_DELAY=-1");
+                args.add("--spring.datasource.driver-class-name=org.h2.Driver");
+                args.add("--spring.datasource.username=sa");
+                args.add("--spring.datasource.password=");
+                args.add("--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect");
+                args.add("--spring.jpa.hibernate.ddl-auto=create-drop");
+                args.add("--spring.flyway.enabled=false");
+            }
+            if ("before".equals(settings)) {
+                args.add("--spring.jpa.properties.hibernate.jdbc.batch_size=1");
+                args.add("--spring.jpa.properties.hibernate.order_inserts=false");
+                args.add("--spring.jpa.properties.hibernate.order_updates=false");
+                args.add("--spring.jpa.show-sql=true");
+                args.add("--spring.jpa.properties.hibernate.format_sql=true");
+                if (embedded) {
+                    // One INSERT round trip per order item, as with the IDENTITY columns these tables had
+                    args.add("--spring.jpa.mapping-resources=META-INF/identity-ids-orm.xml");
+                }
+            }
+            context = new SpringApplicationBuilder(SmartcartApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(String[]::new));
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            context.close();
+        }
+    }
+
+    // Seeding needs an empty catalog and staff table, so each call gets them emptied first
+    @State(Scope.Benchmark)
+    public static class EmptyCatalog extends Application {
+
+        DataInitializationService dataInitializationService;
+        ProductRepository productRepository;
+        EmployeeRepository employeeRepository;
+
+        @Setup(Level.Trial)
+        public void lookUp() {
+            dataInitializationService = context.getBean(DataInitializationService.class);
+            productRepository = context.getBean(ProductRepository.class);
+            employeeRepository = context.getBean(EmployeeRepository.class);
+        }
+
+        @Setup(Level.Invocation)
+        public void empty() {
+            productRepository.deleteAllInBatch();
+            employeeRepository.deleteAllInBatch();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Checkout extends Application {
+
+        @Param({"20"})
+        public int orderLines;
+
+        OrderPlacementService orderPlacementService;
+        String productIds;
+        String quantities;
+
+        @Setup(Level.Trial)
+        public void lookUp() {
+            orderPlacementService = context.getBean(OrderPlacementService.class);
+            List<Product> products = new ArrayList<>();
+            for (int i = 0; i < orderLines; i++) {
+                Product product = new Product("Benchmark product " + i, null, new BigDecimal("2.50"), null, "Benchmark");
+                product.setStockQuantity(1_000_000);
+                products.add(product);
+            }
+            productIds = context.getBean(ProductRepository.class).saveAll(products).stream()
+                .map(product -> String.valueOf(product.getId()))
+                .collect(Collectors.joining(","));
+            quantities = products.stream().map(product -> "2").collect(Collectors.joining(","));
+        }
+    }
+
+    @Benchmark
+    public void seedCatalog(EmptyCatalog state) throws Exception {
+        state.dataInitializationService.run();
+    }
+
+    @Benchmark
+    public Order placeOrder(Checkout state) {
+        // A returning customer: the payment details row is reused, the order and its lines are inserted
+        Order order = new Order("benchmark", state.productIds, state.quantities, BigDecimal.ZERO, null);
+        CustomerPayment paymentDetails = new CustomerPayment("benchmark", "Benchmark Bank", "Benchmark", "1234567890");
+        return state.orderPlacementService.placeOrder(order, paymentDetails, null).order();
+    }
+}
@@ -0,0 +1,21 @@
+package com.group35.smartcart.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class PersistenceConfig {
+    
+    // Sampled SQL logging; 0 (the default) leaves statements unlogged
+    @Bean
+    public HibernatePropertiesCustomizer sampledSqlLogging(@Value("${smartcart.sql-log.sample-every:0}") int sampleEvery) {
+        return properties -> {
+            if (sampleEvery > 0) {
+                properties.put(AvailableSettings.STATEMENT_INSPECTOR, new SampledSqlStatementInspector(sampleEvery));
+            }
+        };
+    }
+}
@@ -0,0 +1,38 @@
+package com.group35.smartcart.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logs one in every N SQL statements Hibernate prepares, instead of printing all of them
+ * the way spring.jpa.show-sql does. Statements go to the "com.group35.smartcart.sql" logger,
+ * which the prod profile writes through an asynchronous appender (see logback-spring.xml)
+ * so request threads never wait on console output.
+ */
+public class SampledSqlStatementInspector implements StatementInspector {
+
+    public static final String LOGGER_NAME = "com.group35.smartcart.sql";
+
+    private static final Logger log = LoggerFactory.getLogger(LOGGER_NAME);
+
+    private final int sampleEvery;
+    private final AtomicLong statements = new AtomicLong();
+
+    public SampledSqlStatementInspector(int sampleEvery) {
+        if (sampleEvery < 1) {
+            throw new IllegalArgumentException("Sample rate must be at least 1");
+        }
+        this.sampleEvery = sampleEvery;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (statements.incrementAndGet() % sampleEvery == 0 && log.isInfoEnabled()) {
+            log.info("[sampled 1/{}] {}", sampleEvery, sql);
+        }
+        return sql;
+    }
+}
@@ -22,7 +22,7 @@ public class SecurityConfig {
         http
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(authz -> authz
-                .requestMatchers("/", "/shopping/**", "/login", "/signup", "/logout", "/cart", "/css/**", "/js/**", "/images/**", 
+                .requestMatchers("/", "/shopping/**", "/login", "/signup", "/logout", "/cart", "/cart/api/**", "/css/**", "/js/**", "/images/**", 
                                 "/employee/login", "/employee/logout", "/employee/dashboard", 
                                 "/employee/cashier-dashboard", "/employee/store-manager-dashboard", 
                                 "/employee/it-assistant-dashboard", "/employee/delivery-coordinator-dashboard").permitAll()
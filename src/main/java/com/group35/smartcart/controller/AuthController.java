@@ -2,6 +2,7 @@ package com.group35.smartcart.controller;
 
 import com.group35.smartcart.entity.Customer;
 import com.group35.smartcart.repository.CustomerRepository;
+import com.group35.smartcart.service.CartService;
 import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,6 +20,9 @@ public class AuthController {
     @Autowired
     private CustomerRepository customerRepository;
     
+    @Autowired
+    private CartService cartService;
+    
     // Login Page
     @GetMapping("/login")
     public String loginPage(Model model) {
@@ -48,6 +52,7 @@ public class AuthController {
             // Check password (in real app, use BCryptPasswordEncoder)
             if (password.equals(customer.getPassword())) {
                 session.setAttribute("customer", customer);
+                cartService.restoreSavedCart(session, customer.getUsername());
                 redirectAttributes.addFlashAttribute("success", "Welcome back, " + customer.getFirstName() + "!");
                 System.out.println("Login successful!");
                 
@@ -118,6 +123,7 @@ public class AuthController {
     @GetMapping("/logout")
     public String logout(HttpSession session, RedirectAttributes redirectAttributes) {
         session.removeAttribute("customer");
+        cartService.clearSessionCart(session);
         redirectAttributes.addFlashAttribute("success", "You have been logged out successfully.");
         return "redirect:/";
     }
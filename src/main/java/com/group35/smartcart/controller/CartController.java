@@ -1,22 +1,111 @@
 package com.group35.smartcart.controller;
 
 import com.group35.smartcart.entity.Customer;
+import com.group35.smartcart.service.CartService;
 import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
-import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Controller
 public class CartController {
-    
+
+    @Autowired
+    private CartService cartService;
+
     @GetMapping("/cart")
     public String cartPage(Model model, HttpSession session) {
         // Check if user is logged in
         Customer customer = (Customer) session.getAttribute("customer");
-        
+
         model.addAttribute("title", "SmartCart - Shopping Cart");
         model.addAttribute("customer", customer);
         model.addAttribute("isLoggedIn", customer != null);
         return "cart";
     }
+
+    // Get the cart with current prices, stock and server-computed totals
+    @GetMapping("/cart/api")
+    @ResponseBody
+    public Map<String, Object> getCart(HttpSession session) {
+        return cartResponse(session);
+    }
+
+    // Add a product to the cart
+    @PostMapping("/cart/api/items")
+    @ResponseBody
+    public Map<String, Object> addItem(@RequestParam Long productId,
+                                       @RequestParam(defaultValue = "1") int quantity,
+                                       HttpSession session) {
+        try {
+            cartService.addItem(session, productId, quantity);
+            return cartResponse(session);
+        } catch (IllegalArgumentException e) {
+            return errorResponse(e.getMessage());
+        }
+    }
+
+    // Set the quantity of a cart line (0 removes it)
+    @PutMapping("/cart/api/items/{productId}")
+    @ResponseBody
+    public Map<String, Object> updateQuantity(@PathVariable Long productId,
+                                              @RequestParam int quantity,
+                                              HttpSession session) {
+        try {
+            cartService.updateQuantity(session, productId, quantity);
+            return cartResponse(session);
+        } catch (IllegalArgumentException e) {
+            return errorResponse(e.getMessage());
+        }
+    }
+
+    // Remove a line from the cart
+    @DeleteMapping("/cart/api/items/{productId}")
+    @ResponseBody
+    public Map<String, Object> removeItem(@PathVariable Long productId, HttpSession session) {
+        cartService.removeItem(session, productId);
+        return cartResponse(session);
+    }
+
+    // Replace the lines selected for checkout
+    @PutMapping("/cart/api/selection")
+    @ResponseBody
+    public Map<String, Object> selectItems(@RequestBody List<Long> productIds, HttpSession session) {
+        cartService.selectItems(session, productIds);
+        return cartResponse(session);
+    }
+
+    // One-time import of a cart kept in browser storage by older versions of the pages
+    @PostMapping("/cart/api/import")
+    @ResponseBody
+    public Map<String, Object> importCart(@RequestBody List<Map<String, Object>> items, HttpSession session) {
+        for (Map<String, Object> item : items) {
+            try {
+                Long productId = Long.valueOf(String.valueOf(item.get("id")));
+                int quantity = Integer.parseInt(String.valueOf(item.get("quantity")));
+                cartService.addItem(session, productId, quantity);
+            } catch (IllegalArgumentException e) {
+                // Skip lines for products that no longer exist or have invalid quantities
+            }
+        }
+        return cartResponse(session);
+    }
+
+    private Map<String, Object> cartResponse(HttpSession session) {
+        Map<String, Object> response = new HashMap<>(cartService.describe(session));
+        response.put("success", true);
+        return response;
+    }
+
+    private Map<String, Object> errorResponse(String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", message);
+        return response;
+    }
 }
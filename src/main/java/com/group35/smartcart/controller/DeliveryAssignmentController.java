@@ -3,8 +3,15 @@ package com.group35.smartcart.controller;
 import com.group35.smartcart.entity.AssignmentStatus;
 import com.group35.smartcart.entity.DeliveryAssignment;
 import com.group35.smartcart.entity.DeliveryPerson;
+import com.group35.smartcart.entity.DeliveryStats;
 import com.group35.smartcart.service.DeliveryAssignmentService;
+import com.group35.smartcart.service.DeliveryAssignmentView;
+import com.group35.smartcart.service.DeliveryDispatchService;
+import com.group35.smartcart.service.DeliveryDispatchService.DispatchResult;
+import com.group35.smartcart.service.DeliveryMetricsService.DurationSummary;
+import com.group35.smartcart.service.RiderLoadService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -21,10 +28,16 @@ import java.util.Optional;
 public class DeliveryAssignmentController {
 
     private final DeliveryAssignmentService deliveryAssignmentService;
+    private final DeliveryDispatchService deliveryDispatchService;
+    private final RiderLoadService riderLoadService;
 
     @Autowired
-    public DeliveryAssignmentController(DeliveryAssignmentService deliveryAssignmentService) {
+    public DeliveryAssignmentController(DeliveryAssignmentService deliveryAssignmentService,
+                                        DeliveryDispatchService deliveryDispatchService,
+                                        RiderLoadService riderLoadService) {
         this.deliveryAssignmentService = deliveryAssignmentService;
+        this.deliveryDispatchService = deliveryDispatchService;
+        this.riderLoadService = riderLoadService;
     }
 
     // Get all delivery assignments
@@ -32,7 +45,7 @@ public class DeliveryAssignmentController {
     public ResponseEntity<?> getAllAssignments() {
         try {
             List<DeliveryAssignment> assignments = deliveryAssignmentService.getAllAssignments();
-            return ResponseEntity.ok(assignments);
+            return ResponseEntity.ok(toViews(assignments));
         } catch (Exception e) {
             System.out.println(e.toString());
             Map<String, String> errorResponse = new HashMap<>();
@@ -48,7 +61,7 @@ public class DeliveryAssignmentController {
         try {
             Optional<DeliveryAssignment> assignment = deliveryAssignmentService.getAssignmentById(id);
             if (assignment.isPresent()) {
-                return ResponseEntity.ok(assignment.get());
+                return ResponseEntity.ok(DeliveryAssignmentView.from(assignment.get()));
             } else {
                 Map<String, String> errorResponse = new HashMap<>();
                 errorResponse.put("message", "Assignment not found");
@@ -75,7 +88,7 @@ public class DeliveryAssignmentController {
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "Assignment created successfully");
-            response.put("assignment", assignment);
+            response.put("assignment", DeliveryAssignmentView.from(assignment));
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
         } catch (IllegalArgumentException e) {
             Map<String, String> errorResponse = new HashMap<>();
@@ -93,12 +106,40 @@ public class DeliveryAssignmentController {
         }
     }
 
+    // Assign all approved, unassigned orders to the available delivery persons in one run
+    @PostMapping("/dispatch")
+    public ResponseEntity<?> dispatchApprovedOrders(@RequestBody(required = false) Map<String, String> request) {
+        try {
+            String notes = request != null ? request.get("notes") : null;
+            DispatchResult result = deliveryDispatchService.dispatchApprovedOrders(notes);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("message", result.dispatched() == 0 && result.undispatchedOrderIds().isEmpty()
+                ? "No approved orders are waiting for delivery"
+                : "Dispatched " + result.dispatched() + " orders to " + result.ridersUsed() + " delivery persons");
+            response.put("dispatched", result.dispatched());
+            response.put("ridersUsed", result.ridersUsed());
+            response.put("undispatchedOrderIds", result.undispatchedOrderIds());
+            return ResponseEntity.ok(response);
+        } catch (DataIntegrityViolationException e) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("message", "Some orders were assigned while dispatching; nothing was saved, please dispatch again");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+        } catch (Exception e) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("message", "Failed to dispatch orders");
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+
     // Get assignments by delivery person ID
     @GetMapping("/delivery-person/{deliveryPersonId}")
     public ResponseEntity<?> getAssignmentsByDeliveryPersonId(@PathVariable Long deliveryPersonId) {
         try {
             List<DeliveryAssignment> assignments = deliveryAssignmentService.getAssignmentsByDeliveryPersonId(deliveryPersonId);
-            return ResponseEntity.ok(assignments);
+            return ResponseEntity.ok(toViews(assignments));
         } catch (Exception e) {
             Map<String, String> errorResponse = new HashMap<>();
             errorResponse.put("message", "Failed to retrieve assignments for delivery person");
@@ -112,7 +153,7 @@ public class DeliveryAssignmentController {
     public ResponseEntity<?> getActiveAssignmentsByDeliveryPersonId(@PathVariable Long deliveryPersonId) {
         try {
             List<DeliveryAssignment> assignments = deliveryAssignmentService.getActiveAssignmentsByDeliveryPersonId(deliveryPersonId);
-            return ResponseEntity.ok(assignments);
+            return ResponseEntity.ok(toViews(assignments));
         } catch (Exception e) {
             Map<String, String> errorResponse = new HashMap<>();
             errorResponse.put("message", "Failed to retrieve active assignments for delivery person");
@@ -127,7 +168,7 @@ public class DeliveryAssignmentController {
         try {
             Optional<DeliveryAssignment> assignment = deliveryAssignmentService.getAssignmentByOrderId(orderId);
             if (assignment.isPresent()) {
-                return ResponseEntity.ok(assignment.get());
+                return ResponseEntity.ok(DeliveryAssignmentView.from(assignment.get()));
             } else {
                 Map<String, String> errorResponse = new HashMap<>();
                 errorResponse.put("message", "No assignment found for this order");
@@ -147,7 +188,7 @@ public class DeliveryAssignmentController {
         try {
             AssignmentStatus assignmentStatus = AssignmentStatus.valueOf(status.toUpperCase());
             List<DeliveryAssignment> assignments = deliveryAssignmentService.getAssignmentsByStatus(assignmentStatus);
-            return ResponseEntity.ok(assignments);
+            return ResponseEntity.ok(toViews(assignments));
         } catch (IllegalArgumentException e) {
             Map<String, String> errorResponse = new HashMap<>();
             errorResponse.put("message", "Invalid status: " + status);
@@ -170,7 +211,7 @@ public class DeliveryAssignmentController {
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "Assignment marked as picked up");
-            response.put("assignment", assignment);
+            response.put("assignment", DeliveryAssignmentView.from(assignment));
             return ResponseEntity.ok(response);
         } catch (IllegalArgumentException e) {
             Map<String, String> errorResponse = new HashMap<>();
@@ -198,7 +239,7 @@ public class DeliveryAssignmentController {
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "Assignment marked as delivered");
-            response.put("assignment", assignment);
+            response.put("assignment", DeliveryAssignmentView.from(assignment));
             return ResponseEntity.ok(response);
         } catch (IllegalArgumentException e) {
             Map<String, String> errorResponse = new HashMap<>();
@@ -226,7 +267,7 @@ public class DeliveryAssignmentController {
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "Assignment cancelled successfully");
-            response.put("assignment", assignment);
+            response.put("assignment", DeliveryAssignmentView.from(assignment));
             return ResponseEntity.ok(response);
         } catch (IllegalArgumentException e) {
             Map<String, String> errorResponse = new HashMap<>();
@@ -256,7 +297,7 @@ public class DeliveryAssignmentController {
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "Assignment reassigned successfully");
-            response.put("assignment", assignment);
+            response.put("assignment", DeliveryAssignmentView.from(assignment));
             return ResponseEntity.ok(response);
         } catch (IllegalArgumentException e) {
             Map<String, String> errorResponse = new HashMap<>();
@@ -290,7 +331,7 @@ public class DeliveryAssignmentController {
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("message", "Notes updated successfully");
-            response.put("assignment", assignment);
+            response.put("assignment", DeliveryAssignmentView.from(assignment));
             return ResponseEntity.ok(response);
         } catch (IllegalArgumentException e) {
             Map<String, String> errorResponse = new HashMap<>();
@@ -309,7 +350,7 @@ public class DeliveryAssignmentController {
     public ResponseEntity<?> getOverdueAssignments(@RequestParam(defaultValue = "24") int hoursAgo) {
         try {
             List<DeliveryAssignment> assignments = deliveryAssignmentService.getOverdueAssignments(hoursAgo);
-            return ResponseEntity.ok(assignments);
+            return ResponseEntity.ok(toViews(assignments));
         } catch (Exception e) {
             Map<String, String> errorResponse = new HashMap<>();
             errorResponse.put("message", "Failed to retrieve overdue assignments");
@@ -325,7 +366,7 @@ public class DeliveryAssignmentController {
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
         try {
             List<DeliveryAssignment> assignments = deliveryAssignmentService.getAssignmentsByDateRange(startDate, endDate);
-            return ResponseEntity.ok(assignments);
+            return ResponseEntity.ok(toViews(assignments));
         } catch (Exception e) {
             Map<String, String> errorResponse = new HashMap<>();
             errorResponse.put("message", "Failed to retrieve assignments by date range");
@@ -339,7 +380,7 @@ public class DeliveryAssignmentController {
     public ResponseEntity<?> searchAssignmentsByNotes(@RequestParam String searchTerm) {
         try {
             List<DeliveryAssignment> assignments = deliveryAssignmentService.searchAssignmentsByNotes(searchTerm);
-            return ResponseEntity.ok(assignments);
+            return ResponseEntity.ok(toViews(assignments));
         } catch (Exception e) {
             Map<String, String> errorResponse = new HashMap<>();
             errorResponse.put("message", "Failed to search assignments");
@@ -348,15 +389,19 @@ public class DeliveryAssignmentController {
         }
     }
 
-    // Get assignment statistics
+    // Get assignment statistics from the in-memory counters and running delivery time aggregates
     @GetMapping("/stats")
     public ResponseEntity<?> getAssignmentStatistics() {
         try {
+            Map<AssignmentStatus, Long> counts = riderLoadService.getStatusCounts();
+            DeliveryStats deliveryStats = deliveryAssignmentService.getOverallDeliveryStats();
+
             Map<String, Object> stats = new HashMap<>();
-            stats.put("assigned", deliveryAssignmentService.getAssignmentCountByStatus(AssignmentStatus.ASSIGNED));
-            stats.put("pickedUp", deliveryAssignmentService.getAssignmentCountByStatus(AssignmentStatus.PICKED_UP));
-            stats.put("delivered", deliveryAssignmentService.getAssignmentCountByStatus(AssignmentStatus.DELIVERED));
-            stats.put("cancelled", deliveryAssignmentService.getAssignmentCountByStatus(AssignmentStatus.CANCELLED));
+            stats.put("assigned", counts.getOrDefault(AssignmentStatus.ASSIGNED, 0L));
+            stats.put("pickedUp", counts.getOrDefault(AssignmentStatus.PICKED_UP, 0L));
+            stats.put("delivered", counts.getOrDefault(AssignmentStatus.DELIVERED, 0L));
+            stats.put("cancelled", counts.getOrDefault(AssignmentStatus.CANCELLED, 0L));
+            putDeliveryTimes(stats, deliveryStats);
             
             return ResponseEntity.ok(stats);
         } catch (Exception e) {
@@ -371,13 +416,13 @@ public class DeliveryAssignmentController {
     @GetMapping("/delivery-person/{deliveryPersonId}/stats")
     public ResponseEntity<?> getDeliveryPersonStats(@PathVariable Long deliveryPersonId) {
         try {
-            Object[] stats = deliveryAssignmentService.getDeliveryStats(deliveryPersonId);
-            long assignmentCount = deliveryAssignmentService.getAssignmentCountByDeliveryPersonId(deliveryPersonId);
+            DeliveryStats stats = deliveryAssignmentService.getDeliveryStats(deliveryPersonId);
+            long assignmentCount = riderLoadService.getAssignmentCount(deliveryPersonId);
             
             Map<String, Object> response = new HashMap<>();
             response.put("totalAssignments", assignmentCount);
-            response.put("deliveredCount", stats[0]);
-            response.put("averageDeliveryTime", stats[1]);
+            response.put("deliveredCount", stats.getDelivery().getCount());
+            putDeliveryTimes(response, stats);
             
             return ResponseEntity.ok(response);
         } catch (Exception e) {
@@ -402,6 +447,19 @@ public class DeliveryAssignmentController {
         }
     }
 
+    // Get the current load of every delivery person (assigned, picked up, delivered today) from memory
+    @GetMapping("/load")
+    public ResponseEntity<?> getRiderLoads() {
+        try {
+            return ResponseEntity.ok(riderLoadService.getLoads());
+        } catch (Exception e) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("message", "Failed to retrieve delivery person load");
+            errorResponse.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+
     // Check if order has assignment
     @GetMapping("/order/{orderId}/has-assignment")
     public ResponseEntity<?> checkOrderHasAssignment(@PathVariable Long orderId) {
@@ -431,6 +489,15 @@ public class DeliveryAssignmentController {
         }
     }
 
-  
-   
-}
\ No newline at end of file
+    // Average assignment-to-delivery hours plus pickup and pickup-to-delivery times in minutes
+    private static void putDeliveryTimes(Map<String, Object> response, DeliveryStats stats) {
+        response.put("averageDeliveryTime", stats.getAverageDeliveryHours());
+        response.put("pickupTime", DurationSummary.of(stats.getPickup()));
+        response.put("deliveryTime", DurationSummary.of(stats.getDelivery()));
+    }
+
+    // Slim JSON for assignment lists; the order and delivery person were fetched with the assignments
+    private static List<DeliveryAssignmentView> toViews(List<DeliveryAssignment> assignments) {
+        return assignments.stream().map(DeliveryAssignmentView::from).toList();
+    }
+}
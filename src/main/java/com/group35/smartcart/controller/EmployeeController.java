@@ -2,35 +2,40 @@ package com.group35.smartcart.controller;
 
 import com.group35.smartcart.entity.Employee;
 import com.group35.smartcart.entity.Order;
+import com.group35.smartcart.entity.OrderItem;
 import com.group35.smartcart.entity.Product;
-import com.group35.smartcart.entity.CustomerPayment;
-import com.group35.smartcart.entity.Bill;
 import com.group35.smartcart.repository.OrderRepository;
-import com.group35.smartcart.repository.ProductRepository;
-import com.group35.smartcart.repository.CustomerPaymentRepository;
-import com.group35.smartcart.repository.BillRepository;
+import com.group35.smartcart.service.BillExportService;
 import com.group35.smartcart.service.EmployeeService;
+import com.group35.smartcart.service.FileServingService;
+import com.group35.smartcart.service.OrderApprovalService;
+import com.group35.smartcart.service.OrderEventStreamService;
 import com.group35.smartcart.service.OrderService;
+import com.group35.smartcart.service.OrderSummaryService;
+import com.group35.smartcart.service.PaymentFeedService;
+import com.group35.smartcart.service.PayslipStorageService;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
-import java.nio.file.Files;
+import java.io.IOException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @Controller
 public class EmployeeController {
@@ -42,16 +47,28 @@ public class EmployeeController {
     private OrderRepository orderRepository;
     
     @Autowired
-    private ProductRepository productRepository;
+    private OrderService orderService;
     
     @Autowired
-    private CustomerPaymentRepository customerPaymentRepository;
+    private PaymentFeedService paymentFeedService;
     
     @Autowired
-    private BillRepository billRepository;
+    private OrderApprovalService orderApprovalService;
     
     @Autowired
-    private OrderService orderService;
+    private OrderSummaryService orderSummaryService;
+    
+    @Autowired
+    private OrderEventStreamService orderEventStreamService;
+    
+    @Autowired
+    private PayslipStorageService payslipStorageService;
+    
+    @Autowired
+    private FileServingService fileServingService;
+    
+    @Autowired
+    private BillExportService billExportService;
     
     // Employee Login Page
     @GetMapping("/employee/login")
@@ -201,89 +218,7 @@ public class EmployeeController {
         }
         
         try {
-            List<Order> orders = orderRepository.findAll();
-            List<Map<String, Object>> paymentCards = new ArrayList<>();
-            
-            for (Order order : orders) {
-                Map<String, Object> paymentCard = new HashMap<>();
-                paymentCard.put("paymentId", order.getPaymentId());
-                paymentCard.put("username", order.getUsername());
-                paymentCard.put("subtotal", order.getSubtotal());
-                paymentCard.put("orderStatus", order.getOrderStatus());
-                paymentCard.put("createdAt", order.getCreatedAt());
-                
-                // Parse product IDs and quantities
-                List<Map<String, Object>> items = new ArrayList<>();
-                String[] productIdStrings = order.getProductIds().split(",");
-                String[] quantityStrings = order.getProductQuantities().split(",");
-                
-                for (int i = 0; i < productIdStrings.length; i++) {
-                    try {
-                        Long productId = Long.parseLong(productIdStrings[i].trim());
-                        Integer quantity = Integer.parseInt(quantityStrings[i].trim());
-                        
-                        Optional<Product> productOpt = productRepository.findById(productId);
-                        if (productOpt.isPresent()) {
-                            Product product = productOpt.get();
-                            Map<String, Object> item = new HashMap<>();
-                            item.put("productId", productId);
-                            item.put("name", product.getName());
-                            item.put("price", product.getPrice());
-                            item.put("quantity", quantity);
-                            item.put("stockQuantity", product.getStockQuantity() != null ? product.getStockQuantity() : 0);
-                            item.put("subtotal", product.getPrice().multiply(BigDecimal.valueOf(quantity)));
-                            items.add(item);
-                        }
-                    } catch (NumberFormatException e) {
-                        // Skip invalid entries
-                    }
-                }
-                
-                paymentCard.put("items", items);
-                
-                // Get customer payment details
-                Optional<CustomerPayment> customerPaymentOpt = customerPaymentRepository
-                    .findFirstByUsernameAndIsActiveTrueOrderByCreatedAtDesc(order.getUsername());
-                
-                if (customerPaymentOpt.isPresent()) {
-                    CustomerPayment customerPayment = customerPaymentOpt.get();
-                    Map<String, Object> paymentDetails = new HashMap<>();
-                    paymentDetails.put("bankName", customerPayment.getBankName());
-                    paymentDetails.put("accountHolderName", customerPayment.getAccountHolderName());
-                    paymentDetails.put("accountNumber", customerPayment.getAccountNumber());
-                    paymentCard.put("customerPaymentDetails", paymentDetails);
-                }
-                
-                // Add payment slip path
-                paymentCard.put("payslipLocationPath", order.getPayslipLocationPath());
-                
-                // Add bill information for approved orders
-                if ("APPROVED".equals(order.getOrderStatus())) {
-                    Optional<Bill> billOpt = billRepository.findByPaymentId(order.getPaymentId());
-                    if (billOpt.isPresent()) {
-                        Bill bill = billOpt.get();
-                        Map<String, Object> billInfo = new HashMap<>();
-                        billInfo.put("id", bill.getId());
-                        billInfo.put("productNames", bill.getProductNames());
-                        billInfo.put("productQuantities", bill.getProductQuantities());
-                        billInfo.put("subtotal", bill.getSubtotal());
-                        billInfo.put("total", bill.getTotal());
-                        billInfo.put("bankName", bill.getBankName());
-                        billInfo.put("maskedAccountNumber", bill.getMaskedAccountNumber());
-                        billInfo.put("createdAt", bill.getCreatedAt());
-                        paymentCard.put("bill", billInfo);
-                    }
-                }
-                
-                paymentCards.add(paymentCard);
-            }
-            
-            // Sort by creation date (newest first)
-            paymentCards.sort((a, b) -> {
-                LocalDateTime dateA = (LocalDateTime) a.get("createdAt");
-                LocalDateTime dateB = (LocalDateTime) b.get("createdAt");
-                return dateB.compareTo(dateA);
-            });
+            List<Map<String, Object>> paymentCards = paymentFeedService.getAllPaymentCards();
             
             response.put("success", true);
             response.put("payments", paymentCards);
@@ -297,12 +232,14 @@ public class EmployeeController {
         return response;
     }
     
-    // Update payment status
-    @PostMapping("/api/payments/{paymentId}/status")
+    // API endpoint to fetch one keyset-paginated page of payments, newest first
+    @GetMapping("/api/payments/page")
     @ResponseBody
-    public Map<String, Object> updatePaymentStatus(@PathVariable Long paymentId, 
-                                                   @RequestParam String status, 
-                                                   HttpSession session) {
+    public Map<String, Object> getPaymentsPage(@RequestParam(required = false) String status,
+                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime cursorCreatedAt,
+                                               @RequestParam(required = false) Long cursorPaymentId,
+                                               @RequestParam(defaultValue = "" + PaymentFeedService.DEFAULT_PAGE_SIZE) int size,
+                                               HttpSession session) {
         Map<String, Object> response = new HashMap<>();
         
         Employee employee = (Employee) session.getAttribute("employee");
@@ -312,308 +249,89 @@ public class EmployeeController {
             return response;
         }
         
-        // Validate status
-        if (!Arrays.asList("PENDING", "APPROVED", "DECLINED").contains(status.toUpperCase())) {
+        if (status != null && !status.trim().isEmpty() &&
+            !Arrays.asList("PENDING", "APPROVED", "DECLINED").contains(status.trim().toUpperCase())) {
             response.put("success", false);
             response.put("message", "Invalid status. Must be PENDING, APPROVED, or DECLINED");
             return response;
         }
         
         try {
-            Optional<Order> orderOpt = orderRepository.findById(paymentId);
-            if (orderOpt.isPresent()) {
-                Order order = orderOpt.get();
-                
-                // Stock validation: If trying to approve and any product has zero stock, prevent approval
-                if ("APPROVED".equals(status.toUpperCase())) {
-                    String stockValidationResult = validateStockAvailability(order);
-                    if (stockValidationResult != null) {
-                        response.put("success", false);
-                        response.put("message", stockValidationResult);
-                        return response;
-                    }
-                    
-                    // Reduce stock quantities for approved orders
-                    String stockReductionResult = reduceStockQuantities(order);
-                    if (stockReductionResult != null) {
-                        response.put("success", false);
-                        response.put("message", "Failed to update stock: " + stockReductionResult);
-                        return response;
-                    }
-                    
-                    // Generate bill for approved orders
-                    String billGenerationResult = generateBill(order);
-                    if (billGenerationResult != null) {
-                        response.put("success", false);
-                        response.put("message", "Failed to generate bill: " + billGenerationResult);
-                        return response;
-                    }
-                }
-                
-                order.setOrderStatus(status.toUpperCase());
-                order.setUpdatedAt(LocalDateTime.now());
-                orderRepository.save(order);
-                
-                response.put("success", true);
-                response.put("message", "Payment status updated successfully");
-                response.put("newStatus", status.toUpperCase());
-            } else {
-                response.put("success", false);
-                response.put("message", "Payment not found");
-            }
+            response.putAll(paymentFeedService.getPaymentCardsPage(status, cursorCreatedAt, cursorPaymentId, size));
+            response.put("success", true);
         } catch (Exception e) {
             e.printStackTrace();
             response.put("success", false);
-            response.put("message", "Failed to update payment status");
+            response.put("message", "Failed to fetch payments");
         }
         
         return response;
     }
     
-    /**
-     * Helper method to convert comma-separated product IDs to product names
-     */
-    private String convertProductIdsToNames(String productIds) {
-        if (productIds == null || productIds.trim().isEmpty()) {
-            return "No products";
-        }
-        
-        String[] ids = productIds.split(",");
-        StringBuilder productNames = new StringBuilder();
+    // Update payment status
+    @PostMapping("/api/payments/{paymentId}/status")
+    @ResponseBody
+    public Map<String, Object> updatePaymentStatus(@PathVariable Long paymentId, 
+                                                   @RequestParam String status, 
+                                                   HttpSession session) {
+        Map<String, Object> response = new HashMap<>();
         
-        for (int i = 0; i < ids.length; i++) {
-            try {
-                Long productId = Long.parseLong(ids[i].trim());
-                Optional<Product> product = productRepository.findById(productId);
-                if (product.isPresent()) {
-                    productNames.append(product.get().getName());
-                } else {
-                    productNames.append("Unknown Product (ID: ").append(productId).append(")");
-                }
-                
-                // Add comma separator except for the last item
-                if (i < ids.length - 1) {
-                    productNames.append(", ");
-                }
-            } catch (NumberFormatException e) {
-                productNames.append("Invalid Product ID: ").append(ids[i].trim());
-                if (i < ids.length - 1) {
-                    productNames.append(", ");
-                }
-            }
+        Employee employee = (Employee) session.getAttribute("employee");
+        if (employee == null || employee.getType() != Employee.EmployeeType.CASHIER) {
+            response.put("success", false);
+            response.put("message", "Unauthorized access");
+            return response;
         }
         
-        return productNames.toString();
-    }
-    
-    /**
-     * Generates a bill for an approved order
-     * @param order The order to generate bill for
-     * @return null if successful, error message if failed
-     */
-    private String generateBill(Order order) {
-        try {
-            // Check if bill already exists for this payment
-            if (billRepository.existsByPaymentId(order.getPaymentId())) {
-                return null; // Bill already exists, no need to generate again
-            }
-            
-            // Get customer payment details
-            Optional<CustomerPayment> customerPaymentOpt = customerPaymentRepository
-                .findFirstByUsernameAndIsActiveTrueOrderByCreatedAtDesc(order.getUsername());
-            
-            if (!customerPaymentOpt.isPresent()) {
-                return "Customer payment details not found";
-            }
-            
-            CustomerPayment customerPayment = customerPaymentOpt.get();
-            
-            // Convert product IDs to product names
-            String productNames = convertProductIdsToNames(order.getProductIds());
-            
-            // Create bill
-            Bill bill = new Bill(
-                order.getPaymentId(),
-                order.getPaymentId(), // Using paymentId as orderId since they're the same
-                order.getUsername(),
-                productNames,
-                order.getProductQuantities(),
-                order.getSubtotal(),
-                order.getSubtotal(), // Total is same as subtotal for now
-                customerPayment.getBankName(),
-                customerPayment.getAccountNumber()
-            );
-            
-            billRepository.save(bill);
-            return null; // Success
-            
-        } catch (Exception e) {
-            e.printStackTrace();
-            return "Error generating bill: " + e.getMessage();
+        // Validate status
+        if (!Arrays.asList("PENDING", "APPROVED", "DECLINED").contains(status.toUpperCase())) {
+            response.put("success", false);
+            response.put("message", "Invalid status. Must be PENDING, APPROVED, or DECLINED");
+            return response;
         }
-    }
-    
-    /**
-     * Reduces stock quantities for all products in an approved order
-     * @param order The order to process
-     * @return null if successful, error message if failed
-     */
-    private String reduceStockQuantities(Order order) {
+        
         try {
-            String productIds = order.getProductIds();
-            String productQuantities = order.getProductQuantities();
-            
-            if (productIds == null || productIds.trim().isEmpty() || 
-                productQuantities == null || productQuantities.trim().isEmpty()) {
-                return "Invalid order data";
-            }
-            
-            String[] ids = productIds.split(",");
-            String[] quantities = productQuantities.split(",");
-            
-            if (ids.length != quantities.length) {
-                return "Mismatch between product IDs and quantities";
-            }
-            
-            for (int i = 0; i < ids.length; i++) {
-                try {
-                    Long productId = Long.parseLong(ids[i].trim());
-                    int orderedQuantity = Integer.parseInt(quantities[i].trim());
-                    
-                    Optional<Product> productOpt = productRepository.findById(productId);
-                    if (productOpt.isPresent()) {
-                        Product product = productOpt.get();
-                        int currentStock = product.getStockQuantity() != null ? product.getStockQuantity() : 0;
-                        int newStock = currentStock - orderedQuantity;
-                        
-                        // Ensure stock doesn't go below zero (shouldn't happen due to validation, but safety check)
-                        if (newStock < 0) {
-                            return "Stock reduction would result in negative inventory for product: " + product.getName();
-                        }
-                        
-                        product.setStockQuantity(newStock);
-                        productRepository.save(product);
-                    } else {
-                        return "Product with ID " + productId + " not found";
-                    }
-                } catch (NumberFormatException e) {
-                    return "Invalid product ID or quantity format";
-                }
-            }
-            
-            return null; // Success
+            orderApprovalService.updateOrderStatus(paymentId, status.toUpperCase());
             
+            response.put("success", true);
+            response.put("message", "Payment status updated successfully");
+            response.put("newStatus", status.toUpperCase());
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
-            return "Error reducing stock quantities: " + e.getMessage();
+            response.put("success", false);
+            response.put("message", "Failed to update payment status");
         }
+        
+        return response;
     }
     
     /**
      * Gets detailed stock information for all products in an order
-     * @param order The order to analyze
+     * @param items The order's items with their products loaded
      * @return List of stock details for each product
      */
-    private List<Map<String, Object>> getStockDetailsForOrder(Order order) {
+    private List<Map<String, Object>> getStockDetailsForOrder(List<OrderItem> items) {
         List<Map<String, Object>> stockDetails = new ArrayList<>();
         
-        try {
-            String productIds = order.getProductIds();
-            String productQuantities = order.getProductQuantities();
-            
-            if (productIds == null || productIds.trim().isEmpty() || 
-                productQuantities == null || productQuantities.trim().isEmpty()) {
-                return stockDetails;
-            }
-            
-            String[] ids = productIds.split(",");
-            String[] quantities = productQuantities.split(",");
-            
-            if (ids.length != quantities.length) {
-                return stockDetails;
-            }
-            
-            for (int i = 0; i < ids.length; i++) {
-                try {
-                    Long productId = Long.parseLong(ids[i].trim());
-                    int requestedQuantity = Integer.parseInt(quantities[i].trim());
-                    
-                    Optional<Product> productOpt = productRepository.findById(productId);
-                    if (productOpt.isPresent()) {
-                        Product product = productOpt.get();
-                        Map<String, Object> detail = new HashMap<>();
-                        detail.put("productId", productId);
-                        detail.put("productName", product.getName());
-                        detail.put("requestedQuantity", requestedQuantity);
-                        detail.put("availableStock", product.getStockQuantity() != null ? product.getStockQuantity() : 0);
-                        detail.put("isOutOfStock", product.getStockQuantity() == null || product.getStockQuantity() <= 0);
-                        detail.put("isInsufficientStock", product.getStockQuantity() != null && product.getStockQuantity() < requestedQuantity);
-                        stockDetails.add(detail);
-                    }
-                } catch (NumberFormatException e) {
-                    // Skip invalid entries
-                }
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+        for (OrderItem item : items) {
+            Product product = item.getProduct();
+            int requestedQuantity = item.getQuantity();
+            Map<String, Object> detail = new HashMap<>();
+            detail.put("productId", product.getId());
+            detail.put("productName", product.getName());
+            detail.put("requestedQuantity", requestedQuantity);
+            detail.put("availableStock", product.getStockQuantity() != null ? product.getStockQuantity() : 0);
+            detail.put("isOutOfStock", product.getStockQuantity() == null || product.getStockQuantity() <= 0);
+            detail.put("isInsufficientStock", product.getStockQuantity() != null && product.getStockQuantity() < requestedQuantity);
+            stockDetails.add(detail);
         }
         
         return stockDetails;
     }
     
-    /**
-     * Validates stock availability for all products in an order
-     * @param order The order to validate
-     * @return null if validation passes, error message if validation fails
-     */
-    private String validateStockAvailability(Order order) {
-        try {
-            String productIds = order.getProductIds();
-            String productQuantities = order.getProductQuantities();
-            
-            if (productIds == null || productIds.trim().isEmpty() || 
-                productQuantities == null || productQuantities.trim().isEmpty()) {
-                return "Invalid order data";
-            }
-            
-            String[] ids = productIds.split(",");
-            String[] quantities = productQuantities.split(",");
-            
-            if (ids.length != quantities.length) {
-                return "Mismatch between product IDs and quantities";
-            }
-            
-            for (int i = 0; i < ids.length; i++) {
-                try {
-                    Long productId = Long.parseLong(ids[i].trim());
-                    int requestedQuantity = Integer.parseInt(quantities[i].trim());
-                    
-                    Optional<Product> productOpt = productRepository.findById(productId);
-                    if (productOpt.isPresent()) {
-                        Product product = productOpt.get();
-                        if (product.getStockQuantity() == null || product.getStockQuantity() <= 0) {
-                            return "Cannot approve payment: Product '" + product.getName() + "' is out of stock (quantity: 0)";
-                        }
-                        if (product.getStockQuantity() < requestedQuantity) {
-                            return "Cannot approve payment: Insufficient stock for product '" + product.getName() + 
-                                   "' (requested: " + requestedQuantity + ", available: " + product.getStockQuantity() + ")";
-                        }
-                    } else {
-                        return "Product with ID " + productId + " not found";
-                    }
-                } catch (NumberFormatException e) {
-                    return "Invalid product ID or quantity format";
-                }
-            }
-            
-            return null; // Validation passed
-            
-        } catch (Exception e) {
-            e.printStackTrace();
-            return "Error validating stock availability";
-        }
-    }
-    
     // Check stock availability for a payment
     @GetMapping("/api/payments/{paymentId}/stock-check")
     @ResponseBody
@@ -631,10 +349,11 @@ public class EmployeeController {
             Optional<Order> orderOpt = orderRepository.findById(paymentId);
             if (orderOpt.isPresent()) {
                 Order order = orderOpt.get();
-                String stockValidationResult = validateStockAvailability(order);
+                List<OrderItem> items = orderService.getOrderItems(order.getPaymentId());
+                String stockValidationResult = orderApprovalService.validateStockAvailability(items);
                 
                 // Get detailed stock information for each product
-                List<Map<String, Object>> stockDetails = getStockDetailsForOrder(order);
+                List<Map<String, Object>> stockDetails = getStockDetailsForOrder(items);
                 response.put("stockDetails", stockDetails);
                 
                 if (stockValidationResult == null) {
@@ -659,6 +378,21 @@ public class EmployeeController {
         return response;
     }
     
+    // Server-sent events stream of order changes (new orders, approvals, declines, deletions)
+    @GetMapping(value = "/api/payments/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamOrderEvents(HttpSession session) {
+        Employee employee = (Employee) session.getAttribute("employee");
+        if (employee == null || employee.getType() != Employee.EmployeeType.CASHIER) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CACHE_CONTROL, "no-store")
+            // Stops buffering reverse proxies from holding events back
+            .header("X-Accel-Buffering", "no")
+            .body(orderEventStreamService.subscribe());
+    }
+    
     // API endpoint to get order summary statistics
     @GetMapping("/api/order-summary")
     @ResponseBody
@@ -673,7 +407,7 @@ public class EmployeeController {
         }
         
         try {
-            Map<String, Long> summary = orderService.getOrderSummary();
+            Map<String, Object> summary = orderSummaryService.getSummary();
             response.put("success", true);
             response.put("summary", summary);
         } catch (Exception e) {
@@ -727,36 +461,76 @@ public class EmployeeController {
         return response;
     }
     
-    // Serve payment slip files
+    // Serve payment slip files (ETag, 304 and byte ranges; body sent without heap copies)
     @GetMapping("/payslips/{filename:.+}")
-    public ResponseEntity<Resource> servePaymentSlip(@PathVariable String filename, HttpServletRequest request) {
-        try {
-            Employee employee = (Employee) request.getSession().getAttribute("employee");
-            if (employee == null || employee.getType() != Employee.EmployeeType.CASHIER) {
-                return ResponseEntity.status(403).build();
-            }
-            
-            Path filePath = Paths.get("src/main/resources/payslips").resolve(filename).normalize();
-            Resource resource = new UrlResource(filePath.toUri());
-            
-            if (resource.exists() && resource.isReadable()) {
-                // Determine content type
-                String contentType = request.getServletContext().getMimeType(resource.getFile().getAbsolutePath());
-                if (contentType == null) {
-                    contentType = "application/octet-stream";
-                }
-                
-                return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename + "\"")
-                    .body(resource);
-            } else {
-                return ResponseEntity.notFound().build();
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.status(500).build();
+    public void servePaymentSlip(@PathVariable String filename, HttpServletRequest request,
+                                 HttpServletResponse response) throws IOException {
+        Employee employee = (Employee) request.getSession().getAttribute("employee");
+        if (employee == null || employee.getType() != Employee.EmployeeType.CASHIER) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        
+        Optional<Path> fileOpt = payslipStorageService.resolve(filename);
+        if (fileOpt.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        
+        Path file = fileOpt.get();
+        String contentType = request.getServletContext().getMimeType(file.getFileName().toString());
+        if (contentType == null) {
+            contentType = "application/octet-stream";
+        }
+        
+        fileServingService.serve(file,
+            "\"" + payslipStorageService.contentHash(file) + "\"",
+            contentType,
+            "private, max-age=86400",
+            "inline; filename=\"" + file.getFileName() + "\"",
+            request, response);
+    }
+    
+    // Bulk export of bills as a streamed ZIP of PDFs, for one customer and/or a range of days
+    @GetMapping("/api/bills/export")
+    public ResponseEntity<StreamingResponseBody> exportBills(@RequestParam(required = false) String username,
+                                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                             HttpSession session) {
+        Employee employee = (Employee) session.getAttribute("employee");
+        if (employee == null || employee.getType() != Employee.EmployeeType.STORE_MANAGER) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
         }
+        
+        String customer = username != null && !username.trim().isEmpty() ? username.trim() : null;
+        if (customer == null && from == null && to == null) {
+            // Refuse to export every bill ever issued by accident
+            return ResponseEntity.badRequest().build();
+        }
+        
+        LocalDateTime fromTime = from != null ? from.atStartOfDay() : null;
+        // The end date is inclusive for the user, so the bound is the start of the next day
+        LocalDateTime toTime = to != null ? to.plusDays(1).atStartOfDay() : null;
+        
+        StringBuilder filename = new StringBuilder("bills");
+        if (customer != null) {
+            filename.append('_').append(customer.replaceAll("[^A-Za-z0-9._-]", "_"));
+        }
+        if (from != null) {
+            filename.append("_from_").append(from);
+        }
+        if (to != null) {
+            filename.append("_to_").append(to);
+        }
+        filename.append(".zip");
+        
+        // No Content-Length, so the ZIP is sent with chunked transfer encoding as it is produced
+        StreamingResponseBody body = out -> billExportService.exportZip(customer, fromTime, toTime, out);
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType("application/zip"))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+            .header(HttpHeaders.CACHE_CONTROL, "no-store")
+            .body(body);
     }
     
     // Employee Management for IT Assistant
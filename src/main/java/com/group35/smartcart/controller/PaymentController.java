@@ -8,25 +8,27 @@ import com.group35.smartcart.repository.CustomerPaymentRepository;
 import com.group35.smartcart.repository.OrderRepository;
 import com.group35.smartcart.repository.ProductRepository;
 import com.group35.smartcart.repository.BillRepository;
-import com.group35.smartcart.service.PdfService;
+import com.group35.smartcart.service.BillPdfCacheService;
+import com.group35.smartcart.service.CartService;
+import com.group35.smartcart.service.OrderPlacementService;
+import com.group35.smartcart.service.PayslipStorageService;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Controller
 public class PaymentController {
@@ -44,7 +46,16 @@ public class PaymentController {
     private BillRepository billRepository;
     
     @Autowired
-    private PdfService pdfService;
+    private BillPdfCacheService billPdfCacheService;
+    
+    @Autowired
+    private OrderPlacementService orderPlacementService;
+    
+    @Autowired
+    private CartService cartService;
+    
+    @Autowired
+    private PayslipStorageService payslipStorageService;
     
     @GetMapping("/payment")
     public String paymentPage(Model model, HttpSession session) {
@@ -71,41 +82,13 @@ public class PaymentController {
                 return "{\"success\": false, \"message\": \"User not logged in\"}";
             }
             
-            // Validate file
-            if (file.isEmpty()) {
-                return "{\"success\": false, \"message\": \"No file uploaded\"}";
-            }
+            // Stream to storage; type, size and duplicates are checked on the way
+            String storedFilename = payslipStorageService.store(file);
             
-            // Validate file type
-            String contentType = file.getContentType();
-            if (contentType == null || (!contentType.equals("image/png") && 
-                !contentType.equals("image/jpeg") && !contentType.equals("application/pdf"))) {
-                return "{\"success\": false, \"message\": \"Invalid file type. Only PNG, JPG, and PDF files are allowed\"}";
-            }
-            
-            // Validate file size (10MB)
-            if (file.getSize() > 10 * 1024 * 1024) {
-                return "{\"success\": false, \"message\": \"File size must be less than 10MB\"}";
-            }
-            
-            // Create payslips directory if it doesn't exist
-            String payslipsDir = "src/main/resources/payslips";
-            File directory = new File(payslipsDir);
-            if (!directory.exists()) {
-                directory.mkdirs();
-            }
-            
-            // Generate unique filename
-            String originalFilename = file.getOriginalFilename();
-            String extension = originalFilename.substring(originalFilename.lastIndexOf("."));
-            String uniqueFilename = UUID.randomUUID().toString() + "_" + customer.getUsername() + extension;
-            
-            // Save file
-            Path filePath = Paths.get(payslipsDir, uniqueFilename);
-            Files.write(filePath, file.getBytes());
-            
-            return "{\"success\": true, \"message\": \"Payment slip uploaded successfully\", \"filename\": \"" + uniqueFilename + "\"}";
+            return "{\"success\": true, \"message\": \"Payment slip uploaded successfully\", \"filename\": \"" + storedFilename + "\"}";
             
+        } catch (IllegalArgumentException e) {
+            return "{\"success\": false, \"message\": \"" + e.getMessage() + "\"}";
         } catch (IOException e) {
             e.printStackTrace();
             return "{\"success\": false, \"message\": \"Failed to upload file\"}";
@@ -136,7 +119,7 @@ public class PaymentController {
                 return "{\"success\": false, \"message\": \"Account number is required\"}";
             }
             
-            // Create and save payment details
+            // Save payment details, reusing the row for the same bank and account
             CustomerPayment paymentDetails = new CustomerPayment(
                 customer.getUsername(),
                 bankName.trim(),
@@ -144,7 +127,7 @@ public class PaymentController {
                 accountNumber.trim()
             );
             
-            customerPaymentRepository.save(paymentDetails);
+            orderPlacementService.savePaymentDetails(paymentDetails);
             
             return "{\"success\": true, \"message\": \"Payment details saved successfully\"}";
             
@@ -156,30 +139,30 @@ public class PaymentController {
     
     @PostMapping("/place-order")
     @ResponseBody
-    public String placeOrder(@RequestParam("productIds") String productIds,
-                           @RequestParam("productQuantities") String productQuantities,
-                           @RequestParam("subtotal") String subtotal,
-                           @RequestParam("payslipLocationPath") String payslipLocationPath,
+    public String placeOrder(@RequestParam("payslipLocationPath") String payslipLocationPath,
                            @RequestParam("bankName") String bankName,
                            @RequestParam("accountHolderName") String accountHolderName,
                            @RequestParam("accountNumber") String accountNumber,
+                           @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
                            HttpSession session) {
+        // Check if user is logged in
+        Customer customer = (Customer) session.getAttribute("customer");
+        if (customer == null) {
+            return "{\"success\": false, \"message\": \"User not logged in\"}";
+        }
+        String key = idempotencyKey != null && !idempotencyKey.isBlank() ? idempotencyKey.trim() : null;
+        
         try {
-            // Check if user is logged in
-            Customer customer = (Customer) session.getAttribute("customer");
-            if (customer == null) {
-                return "{\"success\": false, \"message\": \"User not logged in\"}";
+            // A replayed request gets the order the first one placed (its cart lines are already gone)
+            Optional<Order> placedOrder = orderPlacementService.findPlacedOrder(customer.getUsername(), key);
+            if (placedOrder.isPresent()) {
+                return orderPlacedResponse(placedOrder.get());
             }
             
-            // Validate input parameters
-            if (productIds == null || productIds.trim().isEmpty()) {
-                return "{\"success\": false, \"message\": \"Product IDs are required\"}";
-            }
-            if (productQuantities == null || productQuantities.trim().isEmpty()) {
-                return "{\"success\": false, \"message\": \"Product quantities are required\"}";
-            }
-            if (subtotal == null || subtotal.trim().isEmpty()) {
-                return "{\"success\": false, \"message\": \"Subtotal is required\"}";
+            // The order is built from the lines selected in the server-side cart
+            Map<Long, Integer> selectedQuantities = cartService.getCart(session).getSelectedQuantities();
+            if (selectedQuantities.isEmpty()) {
+                return "{\"success\": false, \"message\": \"No items selected for order\"}";
             }
             
             // Validate payment details
@@ -193,15 +176,6 @@ public class PaymentController {
                 return "{\"success\": false, \"message\": \"Account number is required\"}";
             }
             
-            // Parse subtotal
-            BigDecimal subtotalAmount;
-            try {
-                subtotalAmount = new BigDecimal(subtotal);
-            } catch (NumberFormatException e) {
-                return "{\"success\": false, \"message\": \"Invalid subtotal format\"}";
-            }
-            
-            // Save payment details to customer_payment table
             CustomerPayment paymentDetails = new CustomerPayment(
                 customer.getUsername(),
                 bankName.trim(),
@@ -209,27 +183,42 @@ public class PaymentController {
                 accountNumber.trim()
             );
             
-            customerPaymentRepository.save(paymentDetails);
-            
-            // Create and save order to payment table
+            // Payment details and order are saved in one transaction; the subtotal is computed from current prices
             Order order = new Order(
                 customer.getUsername(),
-                productIds.trim(),
-                productQuantities.trim(),
-                subtotalAmount,
+                selectedQuantities.keySet().stream().map(String::valueOf).collect(Collectors.joining(",")),
+                selectedQuantities.values().stream().map(String::valueOf).collect(Collectors.joining(",")),
+                BigDecimal.ZERO,
                 payslipLocationPath != null ? payslipLocationPath.trim() : null
             );
             
-            Order savedOrder = orderRepository.save(order);
+            OrderPlacementService.Placement placement = orderPlacementService.placeOrder(order, paymentDetails, key);
+            if (!placement.replayed()) {
+                cartService.removeOrderedItems(session, selectedQuantities.keySet());
+            }
             
-            return "{\"success\": true, \"message\": \"Order placed successfully\", \"paymentId\": " + savedOrder.getPaymentId() + "}";
+            return orderPlacedResponse(placement.order());
             
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request with the same key won the insert
+            Optional<Order> placedOrder = orderPlacementService.findPlacedOrder(customer.getUsername(), key);
+            if (placedOrder.isPresent()) {
+                return orderPlacedResponse(placedOrder.get());
+            }
+            e.printStackTrace();
+            return "{\"success\": false, \"message\": \"Failed to place order\"}";
+        } catch (IllegalArgumentException e) {
+            return "{\"success\": false, \"message\": \"" + e.getMessage() + "\"}";
         } catch (Exception e) {
             e.printStackTrace();
             return "{\"success\": false, \"message\": \"Failed to place order\"}";
         }
     }
     
+    private String orderPlacedResponse(Order order) {
+        return "{\"success\": true, \"message\": \"Order placed successfully\", \"paymentId\": " + order.getPaymentId() + "}";
+    }
+    
     @GetMapping("/get-order-bill/{paymentId}")
     @ResponseBody
     public String getOrderBill(@PathVariable Long paymentId, HttpSession session) {
@@ -283,7 +272,7 @@ public class PaymentController {
     }
     
     @GetMapping("/download-bill-pdf/{paymentId}")
-    public ResponseEntity<byte[]> downloadBillPdf(@PathVariable Long paymentId, HttpSession session) {
+    public ResponseEntity<byte[]> downloadBillPdf(@PathVariable Long paymentId, HttpSession session, WebRequest request) {
         try {
             // Check if user is logged in
             Customer customer = (Customer) session.getAttribute("customer");
@@ -315,14 +304,22 @@ public class PaymentController {
             
             Bill bill = billOpt.get();
             
-            // Generate PDF
-            byte[] pdfBytes = pdfService.generateBillPdf(bill);
+            // Bills never change, so a matching ETag means the browser already has this PDF
+            String etag = "\"" + billPdfCacheService.contentKey(bill) + "\"";
+            if (request.checkNotModified(etag)) {
+                return null;
+            }
+            
+            // Served from the PDF cache; rendered here only if it was not pre-rendered yet
+            byte[] pdfBytes = billPdfCacheService.getPdf(bill);
             
             // Set headers for PDF download
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_PDF);
             headers.setContentDispositionFormData("attachment", "bill_" + bill.getId() + ".pdf");
             headers.setContentLength(pdfBytes.length);
+            headers.setETag(etag);
+            headers.setCacheControl("private");
             
             return ResponseEntity.ok()
                     .headers(headers)
@@ -345,7 +342,7 @@ public class PaymentController {
             }
             
             // Get latest payment details for the customer
-            Optional<CustomerPayment> paymentDetails = customerPaymentRepository.findFirstByUsernameAndIsActiveTrueOrderByCreatedAtDesc(customer.getUsername());
+            Optional<CustomerPayment> paymentDetails = customerPaymentRepository.findFirstByUsernameAndIsActiveTrueOrderByUpdatedAtDescIdDesc(customer.getUsername());
             
             if (!paymentDetails.isPresent()) {
                 return "{\"success\": true, \"message\": \"No payment details found\", \"data\": null}";
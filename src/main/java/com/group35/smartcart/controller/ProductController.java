@@ -2,21 +2,34 @@ package com.group35.smartcart.controller;
 
 import com.group35.smartcart.entity.Customer;
 import com.group35.smartcart.entity.Product;
-import com.group35.smartcart.repository.ProductRepository;
+import com.group35.smartcart.service.ProductCatalogService;
+import com.group35.smartcart.service.ProductCatalogService.CatalogSnapshot;
+import com.group35.smartcart.service.ProductSearchService;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 
 @Controller
 @RequestMapping("/shopping")
 public class ProductController {
     
+    private static final List<String> STOCK_STATUS_FIELDS = List.of("id", "name", "stockQuantity", "isInStock");
+    
+    @Autowired
+    private ProductCatalogService productCatalogService;
+    
     @Autowired
-    private ProductRepository productRepository;
+    private ProductSearchService productSearchService;
     
     @GetMapping
     public String productsPage(
@@ -27,17 +40,18 @@ public class ProductController {
         // Check if user is logged in
         Customer customer = (Customer) session.getAttribute("customer");
         
+        CatalogSnapshot catalog = productCatalogService.getSnapshot();
         List<Product> products;
-        List<String> categories = productRepository.findAllCategories();
+        List<String> categories = catalog.getCategories();
         
         if (search != null && !search.trim().isEmpty()) {
-            products = productRepository.searchProducts(search.trim());
+            products = productSearchService.search(search.trim());
             model.addAttribute("searchTerm", search.trim());
         } else if (category != null && !category.isEmpty()) {
-            products = productRepository.findByCategory(category);
+            products = catalog.findByCategory(category);
             model.addAttribute("selectedCategory", category);
         } else {
-            products = productRepository.findAll();
+            products = catalog.getProducts();
         }
         
         model.addAttribute("products", products);
@@ -54,8 +68,9 @@ public class ProductController {
         // Check if user is logged in
         Customer customer = (Customer) session.getAttribute("customer");
         
-        List<Product> products = productRepository.findByCategory(categoryName);
-        List<String> categories = productRepository.findAllCategories();
+        CatalogSnapshot catalog = productCatalogService.getSnapshot();
+        List<Product> products = catalog.findByCategory(categoryName);
+        List<String> categories = catalog.getCategories();
         
         model.addAttribute("products", products);
         model.addAttribute("categories", categories);
@@ -72,8 +87,8 @@ public class ProductController {
         // Check if user is logged in
         Customer customer = (Customer) session.getAttribute("customer");
         
-        List<Product> products = productRepository.searchProducts(q);
-        List<String> categories = productRepository.findAllCategories();
+        List<Product> products = productSearchService.search(q);
+        List<String> categories = productCatalogService.getSnapshot().getCategories();
         
         model.addAttribute("products", products);
         model.addAttribute("categories", categories);
@@ -91,18 +106,15 @@ public class ProductController {
         // Check if user is logged in
         Customer customer = (Customer) session.getAttribute("customer");
         
-        Product product = productRepository.findById(id).orElse(null);
+        CatalogSnapshot catalog = productCatalogService.getSnapshot();
+        Product product = catalog.findById(id).orElse(null);
         
         if (product == null) {
             return "redirect:/shopping";
         }
         
         // Get related products from the same category
-        List<Product> relatedProducts = productRepository.findByCategory(product.getCategory())
-                .stream()
-                .filter(p -> !p.getId().equals(product.getId()))
-                .limit(4)
-                .toList();
+        List<Product> relatedProducts = catalog.findRelatedProducts(product, 4);
         
         model.addAttribute("product", product);
         model.addAttribute("relatedProducts", relatedProducts);
@@ -122,24 +134,13 @@ public class ProductController {
         try {
             Map<Long, Map<String, Object>> stockStatus = new HashMap<>();
             
-            for (Long productId : productIds) {
-                Optional<Product> productOpt = productRepository.findById(productId);
-                if (productOpt.isPresent()) {
-                    Product product = productOpt.get();
-                    Map<String, Object> status = new HashMap<>();
-                    status.put("name", product.getName());
-                    status.put("stockQuantity", product.getStockQuantity());
-                    status.put("isInStock", product.isInStock());
-                    status.put("status", product.isInStock() ? "Available" : "Not Available");
-                    stockStatus.put(productId, status);
-                } else {
-                    Map<String, Object> status = new HashMap<>();
-                    status.put("name", "Unknown Product");
-                    status.put("stockQuantity", 0);
-                    status.put("isInStock", false);
-                    status.put("status", "Not Available");
-                    stockStatus.put(productId, status);
-                }
+            for (List<Object> row : buildStockStatusRows(productIds)) {
+                Map<String, Object> status = new HashMap<>();
+                status.put("name", row.get(1));
+                status.put("stockQuantity", row.get(2));
+                status.put("isInStock", row.get(3));
+                status.put("status", Boolean.TRUE.equals(row.get(3)) ? "Available" : "Not Available");
+                stockStatus.put((Long) row.get(0), status);
             }
             
             response.put("success", true);
@@ -153,4 +154,61 @@ public class ProductController {
         
         return response;
     }
+    
+    // Compact GET form polled by the cart page; unchanged stock is answered with 304 Not Modified via If-None-Match
+    @GetMapping("/api/products/stock-status")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getStockStatus(@RequestParam("ids") List<Long> productIds,
+                                                              WebRequest request) {
+        List<List<Object>> rows = buildStockStatusRows(productIds);
+        String etag = stockStatusEtag(rows);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("fields", STOCK_STATUS_FIELDS);
+        response.put("stockStatus", rows);
+        // Stored but always revalidated, instead of the no-store default, so the browser sends If-None-Match
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).eTag(etag).body(response);
+    }
+    
+    /**
+     * Looks up the stock status of the given products in the catalog snapshot, without any SQL.
+     * Each row is an array in the order of STOCK_STATUS_FIELDS to keep the payload small.
+     */
+    private List<List<Object>> buildStockStatusRows(List<Long> productIds) {
+        CatalogSnapshot catalog = productCatalogService.getSnapshot();
+        List<List<Object>> rows = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            Optional<Product> productOpt = catalog.findById(productId);
+            if (productOpt.isPresent()) {
+                Product product = productOpt.get();
+                int stockQuantity = product.getStockQuantity() != null ? product.getStockQuantity() : 0;
+                rows.add(Arrays.asList(productId, product.getName(), stockQuantity, product.isInStock()));
+            } else {
+                rows.add(Arrays.asList(productId, "Unknown Product", 0, false));
+            }
+        }
+        return rows;
+    }
+    
+    // SHA-256 of the rows: it only changes when one of the requested products changes
+    private String stockStatusEtag(List<List<Object>> rows) {
+        StringBuilder content = new StringBuilder(rows.size() * 32);
+        for (List<Object> row : rows) {
+            for (Object value : row) {
+                // Separators that cannot appear in a product name keep rows from running together
+                content.append(value).append('\u001f');
+            }
+            content.append('\u001e');
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(content.toString().getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(hash) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
 }
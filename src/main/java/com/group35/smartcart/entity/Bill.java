@@ -42,6 +42,10 @@ public class Bill {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
+    // SHA-256 of the bill HTML, set once when the PDF is first rendered or downloaded
+    @Column(name = "content_key", length = 64)
+    private String contentKey;
+    
     // Constructors
     public Bill() {
         this.createdAt = LocalDateTime.now();
@@ -158,4 +162,12 @@ public class Bill {
         }
         return "****" + bankAccountNumber.substring(bankAccountNumber.length() - 4);
     }
+    
+    public String getContentKey() {
+        return contentKey;
+    }
+    
+    public void setContentKey(String contentKey) {
+        this.contentKey = contentKey;
+    }
 }
@@ -0,0 +1,84 @@
+package com.group35.smartcart.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Min;
+import java.time.LocalDateTime;
+
+// Saved copy of a logged-in customer's cart line, restored into the session cart on login
+@Entity
+@Table(name = "cart_items",
+       uniqueConstraints = @UniqueConstraint(name = "uk_cart_items_username_product", columnNames = {"username", "product_id"}))
+public class CartItem {
+    
+    @Id
+    // Sequence ids (allocated 50 at a time) let Hibernate batch the inserts; IDENTITY would force one round trip per row
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cart_items_seq")
+    @SequenceGenerator(name = "cart_items_seq", sequenceName = "cart_items_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(name = "username", nullable = false, length = 50)
+    private String username;
+    
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    
+    @Min(value = 1, message = "Quantity must be at least 1")
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    // Constructors
+    public CartItem() {
+        this.updatedAt = LocalDateTime.now();
+    }
+    
+    public CartItem(String username, Long productId, Integer quantity) {
+        this();
+        this.username = username;
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getUsername() {
+        return username;
+    }
+    
+    public void setUsername(String username) {
+        this.username = username;
+    }
+    
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    
+    public Integer getQuantity() {
+        return quantity;
+    }
+    
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -11,16 +11,18 @@ import java.time.LocalDateTime;
 public class DeliveryAssignment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Sequence ids (allocated 50 at a time) so a dispatch run's assignments are inserted in JDBC batches
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "delivery_assignments_seq")
+    @SequenceGenerator(name = "delivery_assignments_seq", sequenceName = "delivery_assignments_seq", allocationSize = 50)
     private Long id;
 
     @NotNull(message = "Delivery person is required")
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "delivery_person_id", nullable = false)
     private DeliveryPerson deliveryPerson;
 
     @NotNull(message = "Order is required")
-    @OneToOne(fetch = FetchType.EAGER)
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "order_id", nullable = false, unique = true)
     private Order order;
 
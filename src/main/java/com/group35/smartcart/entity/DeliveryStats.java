@@ -0,0 +1,149 @@
+package com.group35.smartcart.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Delivery performance of one delivery person, kept up to date on every pickup and delivery:
+ * time from assignment to pickup, time from pickup to delivery, and the total assignment to
+ * delivery time of delivered assignments.
+ * A row without an update time is a placeholder, inserted so that it can be locked and not
+ * built from the history yet.
+ */
+@Entity
+@Table(name = "delivery_stats")
+public class DeliveryStats implements Persistable<Long> {
+
+    @Id
+    @Column(name = "delivery_person_id")
+    private Long deliveryPersonId;
+
+    @Embedded
+    @AttributeOverrides({
+        @AttributeOverride(name = "count", column = @Column(name = "pickup_count", nullable = false)),
+        @AttributeOverride(name = "totalSeconds", column = @Column(name = "pickup_total_seconds", nullable = false)),
+        @AttributeOverride(name = "maxSeconds", column = @Column(name = "pickup_max_seconds", nullable = false)),
+        @AttributeOverride(name = "histogram", column = @Column(name = "pickup_histogram", length = 255))
+    })
+    private DurationStats pickup = new DurationStats();
+
+    @Embedded
+    @AttributeOverrides({
+        @AttributeOverride(name = "count", column = @Column(name = "delivery_count", nullable = false)),
+        @AttributeOverride(name = "totalSeconds", column = @Column(name = "delivery_total_seconds", nullable = false)),
+        @AttributeOverride(name = "maxSeconds", column = @Column(name = "delivery_max_seconds", nullable = false)),
+        @AttributeOverride(name = "histogram", column = @Column(name = "delivery_histogram", length = 255))
+    })
+    private DurationStats delivery = new DurationStats();
+
+    // Assignment to delivery time summed over delivered assignments (counted by delivery.count)
+    @Column(name = "assigned_to_delivered_seconds", nullable = false)
+    private long assignedToDeliveredSeconds;
+
+    // Changes once per change of the row (microseconds, as stored), so it also versions the row
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Saving a new instance inserts it, so it fails on an existing row instead of overwriting it
+    @Transient
+    private boolean isNew = true;
+
+    public DeliveryStats() {
+    }
+
+    public DeliveryStats(Long deliveryPersonId) {
+        this.deliveryPersonId = deliveryPersonId;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Creates the empty row of a delivery person whose statistics are not built yet.
+     */
+    public static DeliveryStats placeholder(Long deliveryPersonId) {
+        DeliveryStats stats = new DeliveryStats();
+        stats.deliveryPersonId = deliveryPersonId;
+        return stats;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        isNew = false;
+    }
+
+    @Override
+    public Long getId() {
+        return deliveryPersonId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    // False for a placeholder row
+    public boolean isBuilt() {
+        return updatedAt != null;
+    }
+
+    /**
+     * Sets the update time to now, moved past the previous one when the clock has not advanced.
+     */
+    public void touch() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        updatedAt = updatedAt != null && !now.isAfter(updatedAt) ? updatedAt.plus(1, ChronoUnit.MICROS) : now;
+    }
+
+    /**
+     * Adds another rider's figures, for totals across riders.
+     */
+    public void merge(DeliveryStats other) {
+        pickup.merge(other.getPickup());
+        delivery.merge(other.getDelivery());
+        assignedToDeliveredSeconds += other.assignedToDeliveredSeconds;
+    }
+
+    // Average assignment to delivery time in hours, null before the first delivery
+    public Double getAverageDeliveryHours() {
+        long delivered = getDelivery().getCount();
+        return delivered == 0 ? null : assignedToDeliveredSeconds / 3600.0 / delivered;
+    }
+
+    public Long getDeliveryPersonId() {
+        return deliveryPersonId;
+    }
+
+    // Hibernate loads an embeddable whose columns are all null as null
+    public DurationStats getPickup() {
+        if (pickup == null) {
+            pickup = new DurationStats();
+        }
+        return pickup;
+    }
+
+    public DurationStats getDelivery() {
+        if (delivery == null) {
+            delivery = new DurationStats();
+        }
+        return delivery;
+    }
+
+    public long getAssignedToDeliveredSeconds() {
+        return assignedToDeliveredSeconds;
+    }
+
+    public void setAssignedToDeliveredSeconds(long assignedToDeliveredSeconds) {
+        this.assignedToDeliveredSeconds = assignedToDeliveredSeconds;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,127 @@
+package com.group35.smartcart.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Running aggregate of one kind of duration: count, total, maximum and a fixed-bucket histogram
+ * for percentiles. Recording a duration and reading any figure costs the same whatever the
+ * number of recorded durations.
+ */
+@Embeddable
+public class DurationStats {
+
+    // Upper bounds of the histogram buckets in minutes; one more bucket holds everything longer
+    public static final int[] BUCKET_BOUNDS_MINUTES = {5, 10, 15, 20, 30, 45, 60, 90, 120, 180, 240, 360, 480, 720, 1440};
+
+    @Column(name = "count", nullable = false)
+    private long count;
+
+    @Column(name = "total_seconds", nullable = false)
+    private long totalSeconds;
+
+    @Column(name = "max_seconds", nullable = false)
+    private long maxSeconds;
+
+    // Bucket counts, comma-separated, in BUCKET_BOUNDS_MINUTES order plus the overflow bucket
+    @Column(name = "histogram", length = 255)
+    private String histogram;
+
+    public DurationStats() {
+    }
+
+    /**
+     * Adds one duration; negative durations (clock changes, bad data) count as zero.
+     */
+    public void record(Duration duration) {
+        long seconds = Math.max(duration.getSeconds(), 0);
+        long[] buckets = getBuckets();
+        buckets[bucketOf(seconds)]++;
+        histogram = format(buckets);
+        count++;
+        totalSeconds += seconds;
+        maxSeconds = Math.max(maxSeconds, seconds);
+    }
+
+    /**
+     * Adds all durations recorded in another aggregate.
+     */
+    public void merge(DurationStats other) {
+        long[] buckets = getBuckets();
+        long[] otherBuckets = other.getBuckets();
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] += otherBuckets[i];
+        }
+        histogram = format(buckets);
+        count += other.count;
+        totalSeconds += other.totalSeconds;
+        maxSeconds = Math.max(maxSeconds, other.maxSeconds);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalSeconds() {
+        return totalSeconds;
+    }
+
+    public long getMaxSeconds() {
+        return maxSeconds;
+    }
+
+    public Double getAverageMinutes() {
+        return count == 0 ? null : totalSeconds / 60.0 / count;
+    }
+
+    /**
+     * Estimates a percentile as the upper bound of the bucket it falls in, or the maximum for the
+     * overflow bucket.
+     *
+     * @param percentile between 0 and 100
+     * @return the estimate in minutes, or null when nothing was recorded
+     */
+    public Long getPercentileMinutes(double percentile) {
+        if (count == 0) {
+            return null;
+        }
+        long rank = Math.max((long) Math.ceil(percentile / 100.0 * count), 1);
+        long[] buckets = getBuckets();
+        long seen = 0;
+        for (int i = 0; i < BUCKET_BOUNDS_MINUTES.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return Math.min(BUCKET_BOUNDS_MINUTES[i], (maxSeconds + 59) / 60);
+            }
+        }
+        return (maxSeconds + 59) / 60;
+    }
+
+    public long[] getBuckets() {
+        long[] buckets = new long[BUCKET_BOUNDS_MINUTES.length + 1];
+        if (histogram != null && !histogram.isEmpty()) {
+            String[] parts = histogram.split(",");
+            for (int i = 0; i < Math.min(parts.length, buckets.length); i++) {
+                buckets[i] = Long.parseLong(parts[i].trim());
+            }
+        }
+        return buckets;
+    }
+
+    private static int bucketOf(long seconds) {
+        for (int i = 0; i < BUCKET_BOUNDS_MINUTES.length; i++) {
+            if (seconds <= BUCKET_BOUNDS_MINUTES[i] * 60L) {
+                return i;
+            }
+        }
+        return BUCKET_BOUNDS_MINUTES.length;
+    }
+
+    private static String format(long[] buckets) {
+        return Arrays.stream(buckets).mapToObj(String::valueOf).collect(Collectors.joining(","));
+    }
+}
@@ -1,5 +1,6 @@
 package com.group35.smartcart.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -7,12 +8,25 @@ import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Size;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Entity
-@Table(name = "payment")
+// Indexes as created by the Flyway migrations; idx_payment_username_created_at also INCLUDEs
+// order_status, subtotal and payslip_location_path (V5), which JPA cannot declare
+@Table(name = "payment", indexes = {
+    @Index(name = "idx_payment_username_created_at", columnList = "username, created_at DESC, payment_id DESC"),
+    @Index(name = "idx_payment_status_created_at", columnList = "order_status, created_at, payment_id"),
+    @Index(name = "idx_payment_created_at", columnList = "created_at, payment_id")
+})
 public class Order {
     
     @Id
+    // Stays IDENTITY, unlike order_items: a checkout inserts a single order, so there is no batch to
+    // form, and the key comes back with that one INSERT. A pooled sequence would save nothing here but
+    // would leave gaps of up to 50 in the order numbers cashiers and customers see after each restart
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "payment_id")
     private Long paymentId;
@@ -22,6 +36,7 @@ public class Order {
     @Column(name = "username", nullable = false)
     private String username;
     
+    // Legacy comma-separated columns, kept for older rows and clients; order_items is the source of truth
     @NotBlank(message = "Product IDs are required")
     @Column(name = "product_ids", nullable = false, columnDefinition = "TEXT")
     private String productIds;
@@ -47,6 +62,17 @@ public class Order {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Client-supplied key of the checkout request; unique per username (filtered index in V4)
+    @JsonIgnore
+    @Size(max = 64, message = "Idempotency key must not exceed 64 characters")
+    @Column(name = "idempotency_key", length = 64)
+    private String idempotencyKey;
+    
+    @JsonIgnore
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("id ASC")
+    private List<OrderItem> items = new ArrayList<>();
+    
     // Constructors
     public Order() {
         this.createdAt = LocalDateTime.now();
@@ -112,6 +138,14 @@ public class Order {
         this.payslipLocationPath = payslipLocationPath;
     }
     
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+    
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+    
     public String getOrderStatus() {
         return orderStatus;
     }
@@ -136,6 +170,50 @@ public class Order {
         this.updatedAt = updatedAt;
     }
     
+    public List<OrderItem> getItems() {
+        return items;
+    }
+    
+    public void setItems(List<OrderItem> items) {
+        this.items = items;
+    }
+    
+    // Helper methods
+    public void addItem(OrderItem item) {
+        item.setOrder(this);
+        this.items.add(item);
+    }
+    
+    /**
+     * Parses the legacy productIds/productQuantities columns.
+     * Repeated product IDs are merged by summing their quantities.
+     * 
+     * @return productId to quantity, in the order the products were listed
+     * @throws IllegalArgumentException if the columns are empty, misaligned or not numeric
+     */
+    public Map<Long, Integer> parseLegacyItems() {
+        if (productIds == null || productIds.trim().isEmpty() ||
+            productQuantities == null || productQuantities.trim().isEmpty()) {
+            throw new IllegalArgumentException("Invalid order data");
+        }
+        
+        String[] ids = productIds.split(",");
+        String[] quantities = productQuantities.split(",");
+        if (ids.length != quantities.length) {
+            throw new IllegalArgumentException("Mismatch between product IDs and quantities");
+        }
+        
+        Map<Long, Integer> parsed = new LinkedHashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            try {
+                parsed.merge(Long.parseLong(ids[i].trim()), Integer.parseInt(quantities[i].trim()), Integer::sum);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid product ID or quantity format");
+            }
+        }
+        return parsed;
+    }
+    
     @PreUpdate
     public void preUpdate() {
         this.updatedAt = LocalDateTime.now();
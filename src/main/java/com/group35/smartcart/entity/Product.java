@@ -1,10 +1,12 @@
 package com.group35.smartcart.entity;
 
+import com.group35.smartcart.event.ProductEntityListener;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 
 @Entity
 @Table(name = "products")
+@EntityListeners(ProductEntityListener.class)
 public class Product {
     
     @Id
@@ -0,0 +1,18 @@
+package com.group35.smartcart.event;
+
+/**
+ * Published when a bill is generated for an approved order.
+ * Lets the bill PDF be rendered ahead of the first download.
+ */
+public class BillCreatedEvent {
+
+    private final Long billId;
+
+    public BillCreatedEvent(Long billId) {
+        this.billId = billId;
+    }
+
+    public Long getBillId() {
+        return billId;
+    }
+}
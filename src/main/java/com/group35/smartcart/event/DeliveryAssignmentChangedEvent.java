@@ -0,0 +1,45 @@
+package com.group35.smartcart.event;
+
+import com.group35.smartcart.entity.AssignmentStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Published when delivery assignments are created, deleted or change status or delivery person.
+ * Carries each assignment's move so listeners can keep per-rider counters without querying;
+ * a dispatch run publishes all of its new assignments in one event.
+ */
+public class DeliveryAssignmentChangedEvent {
+
+    /**
+     * One assignment's move from (previous delivery person, previous status) to (delivery person, status).
+     * The previous fields are null for a new assignment; {@code at} is when the new status was set.
+     * The new fields are null for a deleted assignment, and {@code at} is when it was delivered, if it was.
+     */
+    public record Transition(Long previousDeliveryPersonId, AssignmentStatus previousStatus,
+                             Long deliveryPersonId, AssignmentStatus status, LocalDateTime at) {
+
+        public static Transition created(Long deliveryPersonId, LocalDateTime at) {
+            return new Transition(null, null, deliveryPersonId, AssignmentStatus.ASSIGNED, at);
+        }
+
+        public static Transition removed(Long deliveryPersonId, AssignmentStatus status, LocalDateTime deliveredAt) {
+            return new Transition(deliveryPersonId, status, null, null, deliveredAt);
+        }
+    }
+
+    private final List<Transition> transitions;
+
+    public DeliveryAssignmentChangedEvent(List<Transition> transitions) {
+        this.transitions = List.copyOf(transitions);
+    }
+
+    public DeliveryAssignmentChangedEvent(Transition transition) {
+        this(List.of(transition));
+    }
+
+    public List<Transition> getTransitions() {
+        return transitions;
+    }
+}
@@ -0,0 +1,35 @@
+package com.group35.smartcart.event;
+
+import com.group35.smartcart.entity.DeliveryStats;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when durations are added to a delivery person's statistics row.
+ * Carries what was added and the row's update time after adding it, so the totals across
+ * riders can be kept current without reading every row.
+ */
+public class DeliveryStatsRecordedEvent {
+
+    private final Long deliveryPersonId;
+    private final DeliveryStats added;
+    private final LocalDateTime updatedAt;
+
+    public DeliveryStatsRecordedEvent(Long deliveryPersonId, DeliveryStats added, LocalDateTime updatedAt) {
+        this.deliveryPersonId = deliveryPersonId;
+        this.added = added;
+        this.updatedAt = updatedAt;
+    }
+
+    public Long getDeliveryPersonId() {
+        return deliveryPersonId;
+    }
+
+    public DeliveryStats getAdded() {
+        return added;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,30 @@
+package com.group35.smartcart.event;
+
+/**
+ * Published when an order is placed, changes status or is deleted.
+ * Drives the cashier dashboard event stream and invalidates the order summary cache.
+ */
+public class OrderChangedEvent {
+
+    public enum Type {
+        CREATED,
+        STATUS_CHANGED,
+        DELETED
+    }
+
+    private final Type type;
+    private final Long paymentId;
+
+    public OrderChangedEvent(Type type, Long paymentId) {
+        this.type = type;
+        this.paymentId = paymentId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getPaymentId() {
+        return paymentId;
+    }
+}
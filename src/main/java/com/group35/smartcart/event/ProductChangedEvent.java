@@ -0,0 +1,21 @@
+package com.group35.smartcart.event;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Published whenever product rows change (entity saves or bulk stock updates).
+ * Listeners that cache catalog data use it to invalidate their copies.
+ */
+public class ProductChangedEvent {
+
+    private final Set<Long> productIds;
+
+    public ProductChangedEvent(Collection<Long> productIds) {
+        this.productIds = Set.copyOf(productIds);
+    }
+
+    public Set<Long> getProductIds() {
+        return productIds;
+    }
+}
@@ -0,0 +1,29 @@
+package com.group35.smartcart.event;
+
+import com.group35.smartcart.entity.Product;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+
+/**
+ * JPA entity listener that turns Product inserts, updates and deletes into ProductChangedEvents.
+ * Instantiated by Hibernate through Spring, so the event publisher is constructor-injected.
+ */
+public class ProductEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ProductEntityListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onProductChanged(Product product) {
+        eventPublisher.publishEvent(new ProductChangedEvent(List.of(product.getId())));
+    }
+}
@@ -1,9 +1,17 @@
 package com.group35.smartcart.repository;
 
 import com.group35.smartcart.entity.Bill;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -29,4 +37,41 @@ public interface BillRepository extends JpaRepository<Bill, Long> {
      * @return true if bill exists, false otherwise
      */
     boolean existsByPaymentId(Long paymentId);
+    
+    /**
+     * Find bills for a batch of payment IDs
+     * @param paymentIds the payment IDs
+     * @return bills belonging to any of the given payments
+     */
+    List<Bill> findByPaymentIdIn(Collection<Long> paymentIds);
+    
+    /**
+     * Find the next batch of bills after a bill ID, optionally filtered by customer and creation time
+     * @param afterId only bills with a greater ID are returned (0 for the first batch)
+     * @param username the customer, or null for all customers
+     * @param from inclusive lower bound of the creation time, or null
+     * @param to exclusive upper bound of the creation time, or null
+     * @param pageable the batch size
+     * @return bills in ascending ID order
+     */
+    @Query("SELECT b FROM Bill b WHERE b.id > :afterId " +
+           "AND (:username IS NULL OR b.username = :username) " +
+           "AND (:from IS NULL OR b.createdAt >= :from) " +
+           "AND (:to IS NULL OR b.createdAt < :to) ORDER BY b.id ASC")
+    List<Bill> findBatchForExport(@Param("afterId") Long afterId,
+                                  @Param("username") String username,
+                                  @Param("from") LocalDateTime from,
+                                  @Param("to") LocalDateTime to,
+                                  Pageable pageable);
+    
+    /**
+     * Store the content key of a bill's PDF unless one is already stored
+     * @param id the bill ID
+     * @param contentKey the SHA-256 of the bill HTML
+     * @return the number of bills updated (0 or 1)
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Bill b SET b.contentKey = :contentKey WHERE b.id = :id AND b.contentKey IS NULL")
+    int setContentKeyIfAbsent(@Param("id") Long id, @Param("contentKey") String contentKey);
 }
@@ -0,0 +1,22 @@
+package com.group35.smartcart.repository;
+
+import com.group35.smartcart.entity.CartItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CartItemRepository extends JpaRepository<CartItem, Long> {
+    
+    // Find the saved cart of a customer in the order the lines were added
+    List<CartItem> findByUsernameOrderByIdAsc(String username);
+    
+    // Drop the saved cart of a customer in one statement
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.username = :username")
+    int deleteByUsername(@Param("username") String username);
+}
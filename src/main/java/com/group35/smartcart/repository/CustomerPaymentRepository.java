@@ -2,8 +2,11 @@ package com.group35.smartcart.repository;
 
 import com.group35.smartcart.entity.CustomerPayment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,8 +19,18 @@ public interface CustomerPaymentRepository extends JpaRepository<CustomerPayment
     // Find active payment details by username
     List<CustomerPayment> findByUsernameAndIsActiveTrue(String username);
     
-    // Find latest payment details by username
-    Optional<CustomerPayment> findFirstByUsernameAndIsActiveTrueOrderByCreatedAtDesc(String username);
+    // Find the most recently used payment details by username
+    Optional<CustomerPayment> findFirstByUsernameAndIsActiveTrueOrderByUpdatedAtDescIdDesc(String username);
+    
+    // Find the active payment details row for a username, bank and account (one per combination)
+    Optional<CustomerPayment> findFirstByUsernameAndBankNameAndAccountNumberAndIsActiveTrueOrderByIdDesc(
+            String username, String bankName, String accountNumber);
+    
+    // Find the most recently used active payment details for a batch of usernames (ties broken by id)
+    @Query("SELECT cp FROM CustomerPayment cp WHERE cp.username IN :usernames AND cp.isActive = true " +
+           "AND cp.updatedAt = (SELECT MAX(latest.updatedAt) FROM CustomerPayment latest " +
+           "WHERE latest.username = cp.username AND latest.isActive = true) ORDER BY cp.id DESC")
+    List<CustomerPayment> findLatestActiveByUsernameIn(@Param("usernames") Collection<String> usernames);
     
     // Check if payment details exist for username
     boolean existsByUsernameAndIsActiveTrue(String username);
@@ -4,7 +4,10 @@ import com.group35.smartcart.entity.AssignmentStatus;
 import com.group35.smartcart.entity.DeliveryAssignment;
 import com.group35.smartcart.entity.DeliveryPerson;
 import com.group35.smartcart.entity.Order;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -16,6 +19,19 @@ import java.util.Optional;
 @Repository
 public interface DeliveryAssignmentRepository extends JpaRepository<DeliveryAssignment, Long> {
     
+    // The order and delivery person are lazy; finders that return assignments to the API load
+    // them in the same query (entity graph) so listing N assignments is one select, not 1 + 2N
+    
+    // Find an assignment with its order and delivery person
+    @EntityGraph(attributePaths = {"order", "deliveryPerson"})
+    @Query("SELECT da FROM DeliveryAssignment da WHERE da.id = :id")
+    Optional<DeliveryAssignment> findWithDetailsById(@Param("id") Long id);
+    
+    // Find an assignment and hold a row lock on it until the surrounding transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT da FROM DeliveryAssignment da WHERE da.id = :id")
+    Optional<DeliveryAssignment> findByIdForUpdate(@Param("id") Long id);
+    
     // Find assignments by delivery person
     List<DeliveryAssignment> findByDeliveryPerson(DeliveryPerson deliveryPerson);
     
@@ -26,9 +42,11 @@ public interface DeliveryAssignmentRepository extends JpaRepository<DeliveryAssi
     Optional<DeliveryAssignment> findByOrder(Order order);
     
     // Find assignment by order ID
+    @EntityGraph(attributePaths = {"order", "deliveryPerson"})
     Optional<DeliveryAssignment> findByOrderPaymentId(Long orderId);
     
     // Find assignments by status
+    @EntityGraph(attributePaths = {"order", "deliveryPerson"})
     List<DeliveryAssignment> findByStatus(AssignmentStatus status);
     
     // Find assignments by delivery person and status
@@ -38,10 +56,28 @@ public interface DeliveryAssignmentRepository extends JpaRepository<DeliveryAssi
     List<DeliveryAssignment> findByDeliveryPersonIdAndStatus(Long deliveryPersonId, AssignmentStatus status);
     
     // Find active assignments for a delivery person (ASSIGNED or PICKED_UP)
+    @EntityGraph(attributePaths = {"order", "deliveryPerson"})
     @Query("SELECT da FROM DeliveryAssignment da WHERE da.deliveryPerson.id = :deliveryPersonId AND da.status IN (com.group35.smartcart.entity.AssignmentStatus.ASSIGNED, com.group35.smartcart.entity.AssignmentStatus.PICKED_UP)")
     List<DeliveryAssignment> findActiveAssignmentsByDeliveryPersonId(@Param("deliveryPersonId") Long deliveryPersonId);
     
+    // Active (ASSIGNED or PICKED_UP) assignments of all delivery persons in one query, as
+    // (deliveryPersonId, orderId, units) rows where units is the total quantity of the order's lines
+    @Query("SELECT da.deliveryPerson.id, o.paymentId, COALESCE(SUM(oi.quantity), 0) FROM DeliveryAssignment da " +
+           "JOIN da.order o LEFT JOIN o.items oi " +
+           "WHERE da.status IN (com.group35.smartcart.entity.AssignmentStatus.ASSIGNED, com.group35.smartcart.entity.AssignmentStatus.PICKED_UP) " +
+           "GROUP BY da.deliveryPerson.id, o.paymentId")
+    List<Object[]> findActiveAssignmentUnits();
+    
+    // Assignments counted per delivery person and status as (deliveryPersonId, status, count,
+    // deliveredSince) rows, deliveredSince counting those delivered since a time; rebuilds the
+    // in-memory assignment counters
+    @Query("SELECT da.deliveryPerson.id, da.status, COUNT(da), " +
+           "SUM(CASE WHEN da.deliveredAt >= :since THEN 1 ELSE 0 END) FROM DeliveryAssignment da " +
+           "GROUP BY da.deliveryPerson.id, da.status")
+    List<Object[]> countByDeliveryPersonAndStatus(@Param("since") LocalDateTime since);
+    
     // Find assignments created within a date range
+    @EntityGraph(attributePaths = {"order", "deliveryPerson"})
     List<DeliveryAssignment> findByAssignedAtBetween(LocalDateTime startDate, LocalDateTime endDate);
     
     // Find assignments delivered within a date range
@@ -57,16 +93,19 @@ public interface DeliveryAssignmentRepository extends JpaRepository<DeliveryAssi
     long countByDeliveryPersonId(Long deliveryPersonId);
     
     // Find overdue assignments (assigned more than specified hours ago and not delivered)
+    @EntityGraph(attributePaths = {"order", "deliveryPerson"})
     @Query("SELECT da FROM DeliveryAssignment da WHERE da.assignedAt < :cutoffTime AND da.status IN (com.group35.smartcart.entity.AssignmentStatus.ASSIGNED, com.group35.smartcart.entity.AssignmentStatus.PICKED_UP)")
     List<DeliveryAssignment> findOverdueAssignments(@Param("cutoffTime") LocalDateTime cutoffTime);
     
     // Find assignments ordered by assignment date (newest first)
+    @EntityGraph(attributePaths = {"order", "deliveryPerson"})
     List<DeliveryAssignment> findAllByOrderByAssignedAtDesc();
     
     // Find assignments by delivery person ordered by assignment date (newest first)
     List<DeliveryAssignment> findByDeliveryPersonOrderByAssignedAtDesc(DeliveryPerson deliveryPerson);
     
     // Find assignments by delivery person ID ordered by assignment date (newest first)
+    @EntityGraph(attributePaths = {"order", "deliveryPerson"})
     List<DeliveryAssignment> findByDeliveryPersonIdOrderByAssignedAtDesc(Long deliveryPersonId);
     
     // Check if order has an assignment
@@ -76,10 +115,13 @@ public interface DeliveryAssignmentRepository extends JpaRepository<DeliveryAssi
     boolean existsByOrderPaymentId(Long orderId);
     
     // Find assignments with notes containing specific text
+    @EntityGraph(attributePaths = {"order", "deliveryPerson"})
     @Query("SELECT da FROM DeliveryAssignment da WHERE da.notes LIKE %:searchTerm%")
     List<DeliveryAssignment> findByNotesContaining(@Param("searchTerm") String searchTerm);
     
-    // Get delivery performance statistics for a delivery person
-    @Query(value = "SELECT COUNT(da.id), AVG(TIMESTAMPDIFF(HOUR, da.assigned_at, da.delivered_at)) FROM delivery_assignments da WHERE da.delivery_person_id = :deliveryPersonId AND da.status = 'DELIVERED'", nativeQuery = true)
-    Object[] getDeliveryStats(@Param("deliveryPersonId") Long deliveryPersonId);
+    // Timestamps of a delivery person's picked-up assignments as (assignedAt, pickedUpAt, deliveredAt, status) rows;
+    // rebuilds their delivery statistics
+    @Query("SELECT da.assignedAt, da.pickedUpAt, da.deliveredAt, da.status FROM DeliveryAssignment da " +
+           "WHERE da.deliveryPerson.id = :deliveryPersonId AND da.pickedUpAt IS NOT NULL")
+    List<Object[]> findPickupTimesByDeliveryPersonId(@Param("deliveryPersonId") Long deliveryPersonId);
 }
\ No newline at end of file
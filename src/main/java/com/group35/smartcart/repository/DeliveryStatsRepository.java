@@ -0,0 +1,31 @@
+package com.group35.smartcart.repository;
+
+import com.group35.smartcart.entity.DeliveryStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface DeliveryStatsRepository extends JpaRepository<DeliveryStats, Long> {
+
+    // Find a delivery person's statistics and hold a row lock on them until the surrounding transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM DeliveryStats s WHERE s.deliveryPersonId = :deliveryPersonId")
+    Optional<DeliveryStats> findByIdForUpdate(@Param("deliveryPersonId") Long deliveryPersonId);
+
+    // Find a delivery person's statistics if they are built (not a placeholder row)
+    @Query("SELECT s FROM DeliveryStats s WHERE s.deliveryPersonId = :deliveryPersonId AND s.updatedAt IS NOT NULL")
+    Optional<DeliveryStats> findBuiltById(@Param("deliveryPersonId") Long deliveryPersonId);
+
+    // IDs of delivery persons that have no built statistics row yet
+    @Query("SELECT d.id FROM DeliveryPerson d WHERE NOT EXISTS " +
+           "(SELECT s.deliveryPersonId FROM DeliveryStats s WHERE s.deliveryPersonId = d.id AND s.updatedAt IS NOT NULL) " +
+           "ORDER BY d.id")
+    List<Long> findDeliveryPersonIdsWithoutStats();
+}
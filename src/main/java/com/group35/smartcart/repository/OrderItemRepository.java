@@ -0,0 +1,28 @@
+package com.group35.smartcart.repository;
+
+import com.group35.smartcart.entity.OrderItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
+
+    // Find the items of an order together with their products in one join
+    @Query("SELECT oi FROM OrderItem oi JOIN FETCH oi.product WHERE oi.order.paymentId = :orderId ORDER BY oi.id")
+    List<OrderItem> findWithProductByOrderId(@Param("orderId") Long orderId);
+
+    // Find the items of an order without their products; bills only need the stored names and prices
+    List<OrderItem> findByOrderPaymentIdOrderByIdAsc(Long orderId);
+
+    // Find the items of a batch of orders together with their products in one join
+    @Query("SELECT oi FROM OrderItem oi JOIN FETCH oi.product WHERE oi.order.paymentId IN :orderIds ORDER BY oi.id")
+    List<OrderItem> findWithProductByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    // Check if an order already has normalized items
+    boolean existsByOrderPaymentId(Long orderId);
+}
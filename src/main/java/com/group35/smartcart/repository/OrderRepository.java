@@ -1,21 +1,94 @@
 package com.group35.smartcart.repository;
 
 import com.group35.smartcart.entity.Order;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     
+    // Find an order and hold a row lock on it until the surrounding transaction ends
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.paymentId = :paymentId")
+    Optional<Order> findByIdForUpdate(@Param("paymentId") Long paymentId);
+    
+    // Find the order a checkout request with this idempotency key already placed
+    Optional<Order> findByUsernameAndIdempotencyKey(String username, String idempotencyKey);
+    
     // Find orders by username
     List<Order> findByUsername(String username);
     
     // Find orders by username ordered by creation date (newest first)
     List<Order> findByUsernameOrderByCreatedAtDesc(String username);
     
+    // Order history page of a customer (newest first) with its item lines, as (paymentId, createdAt, orderStatus,
+    // subtotal, payslipLocationPath, productId, quantity) rows: one per line, or one with a null productId for an
+    // order without lines. The subquery pages on order ids from idx_payment_username_created_at (limit is one more
+    // than the page, to tell whether another follows) and the lines join on idx_order_items_order_id
+    @Query("SELECT o.paymentId, o.createdAt, o.orderStatus, o.subtotal, o.payslipLocationPath, oi.product.id, oi.quantity " +
+           "FROM Order o LEFT JOIN o.items oi " +
+           "WHERE o.paymentId IN (SELECT p.paymentId FROM Order p WHERE p.username = :username " +
+           "ORDER BY p.createdAt DESC, p.paymentId DESC OFFSET :offset ROWS FETCH FIRST :limit ROWS ONLY) " +
+           "ORDER BY o.createdAt DESC, o.paymentId DESC, oi.id")
+    List<Object[]> findHistoryPageWithLines(@Param("username") String username,
+                                            @Param("offset") int offset,
+                                            @Param("limit") int limit);
+    
+    // Find all orders ordered by creation date (newest first)
+    List<Order> findAllByOrderByCreatedAtDesc();
+    
+    // Keyset-paginated payment feed: first page (newest first)
+    List<Order> findAllByOrderByCreatedAtDescPaymentIdDesc(Pageable pageable);
+    
+    // Keyset-paginated payment feed: first page filtered by status (newest first)
+    List<Order> findByOrderStatusOrderByCreatedAtDescPaymentIdDesc(String orderStatus, Pageable pageable);
+    
+    // Keyset-paginated payment feed: page after the (createdAt, paymentId) cursor
+    @Query("SELECT o FROM Order o WHERE o.createdAt < :cursorCreatedAt " +
+           "OR (o.createdAt = :cursorCreatedAt AND o.paymentId < :cursorPaymentId) " +
+           "ORDER BY o.createdAt DESC, o.paymentId DESC")
+    List<Order> findPageAfter(@Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+                              @Param("cursorPaymentId") Long cursorPaymentId,
+                              Pageable pageable);
+    
+    // Keyset-paginated payment feed: page after the (createdAt, paymentId) cursor filtered by status
+    @Query("SELECT o FROM Order o WHERE o.orderStatus = :orderStatus AND (o.createdAt < :cursorCreatedAt " +
+           "OR (o.createdAt = :cursorCreatedAt AND o.paymentId < :cursorPaymentId)) " +
+           "ORDER BY o.createdAt DESC, o.paymentId DESC")
+    List<Order> findPageByOrderStatusAfter(@Param("orderStatus") String orderStatus,
+                                           @Param("cursorCreatedAt") LocalDateTime cursorCreatedAt,
+                                           @Param("cursorPaymentId") Long cursorPaymentId,
+                                           Pageable pageable);
+    
+    // Find orders that have no normalized order_items rows yet, in payment ID order (for backfill)
+    @Query("SELECT o FROM Order o WHERE o.paymentId > :afterPaymentId " +
+           "AND NOT EXISTS (SELECT oi.id FROM OrderItem oi WHERE oi.order = o) ORDER BY o.paymentId")
+    List<Order> findWithoutItemsAfter(@Param("afterPaymentId") Long afterPaymentId, Pageable pageable);
+    
+    // Point the orders holding a legacy payslip name (bare or after a directory) at its content-hash name
+    @Modifying
+    @Query("UPDATE Order o SET o.payslipLocationPath = :storedName " +
+           "WHERE o.payslipLocationPath = :legacyName OR o.payslipLocationPath LIKE CONCAT('%/', :legacyName)")
+    int renamePayslip(@Param("legacyName") String legacyName, @Param("storedName") String storedName);
+    
+    // Approved orders without a delivery assignment, oldest first, as (paymentId, units) rows where
+    // units is the total quantity of the order's lines (0 for an order without lines)
+    @Query("SELECT o.paymentId, COALESCE(SUM(oi.quantity), 0) FROM Order o LEFT JOIN o.items oi " +
+           "WHERE o.orderStatus = 'APPROVED' " +
+           "AND NOT EXISTS (SELECT da.id FROM DeliveryAssignment da WHERE da.order = o) " +
+           "GROUP BY o.paymentId, o.createdAt ORDER BY o.createdAt, o.paymentId")
+    List<Object[]> findUndispatchedApprovedOrderUnits();
+    
     // Find orders by status
     List<Order> findByOrderStatus(String orderStatus);
     
@@ -30,4 +103,8 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     
     // Count orders by status
     long countByOrderStatus(String orderStatus);
+    
+    // Count orders and sum their subtotals per status in one grouped query; rows are [status, count, revenue]
+    @Query("SELECT o.orderStatus, COUNT(o), SUM(o.subtotal) FROM Order o GROUP BY o.orderStatus")
+    List<Object[]> summarizeByStatus();
 }
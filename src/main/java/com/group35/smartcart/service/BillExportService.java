@@ -0,0 +1,125 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.config.WorkerThreads;
+import com.group35.smartcart.entity.Bill;
+import com.group35.smartcart.repository.BillRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exports many bills at once as a ZIP of PDFs.
+ * Bills are read in ID-ordered batches, each batch is rendered in parallel on a small
+ * bounded pool, and the PDFs are written to the ZIP stream as soon as the batch is done,
+ * so at most one batch of PDFs is held in memory however many bills are exported.
+ * PDFs come from the bill PDF cache, so bills that were already rendered are not rendered again.
+ */
+@Service
+public class BillExportService {
+
+    private final BillRepository billRepository;
+    private final BillPdfCacheService billPdfCacheService;
+    private final int batchSize;
+    private final ExecutorService exportExecutor;
+
+    @Autowired
+    public BillExportService(BillRepository billRepository,
+                             BillPdfCacheService billPdfCacheService,
+                             @Value("${smartcart.bills.export-batch-size:16}") int batchSize,
+                             @Value("${smartcart.bills.export-threads:2}") int exportThreads,
+                             WorkerThreads workerThreads) {
+        this.billRepository = billRepository;
+        this.billPdfCacheService = billPdfCacheService;
+        this.batchSize = batchSize;
+
+        // Bounded even when the threads are virtual: every task holds a whole PDF until it is zipped
+        this.exportExecutor = Executors.newFixedThreadPool(exportThreads, workerThreads.factory("bill-export"));
+    }
+
+    /**
+     * Writes a ZIP with one PDF per matching bill to the given stream.
+     * A bill that fails to render is written as a text entry with the error instead,
+     * so one bad bill does not abort an export of hundreds.
+     *
+     * @param username the customer, or null for all customers
+     * @param from inclusive lower bound of the bill creation time, or null
+     * @param to exclusive upper bound of the bill creation time, or null
+     * @param out the response stream; it is not closed
+     * @return the number of bills exported
+     * @throws IOException if writing to the stream fails
+     */
+    public int exportZip(String username, LocalDateTime from, LocalDateTime to, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        // PDFs are already compressed
+        zip.setLevel(1);
+
+        int exported = 0;
+        long afterId = 0L;
+        while (true) {
+            List<Bill> batch = billRepository.findBatchForExport(afterId, username, from, to,
+                PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            List<Future<byte[]>> pdfs = new ArrayList<>(batch.size());
+            for (Bill bill : batch) {
+                pdfs.add(exportExecutor.submit(() -> billPdfCacheService.getPdf(bill, false)));
+            }
+
+            for (int i = 0; i < batch.size(); i++) {
+                Bill bill = batch.get(i);
+                try {
+                    byte[] pdf = pdfs.get(i).get();
+                    zip.putNextEntry(new ZipEntry("bill_" + bill.getId() + ".pdf"));
+                    zip.write(pdf);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    pdfs.forEach(pdf -> pdf.cancel(true));
+                    throw new IOException("Interrupted while exporting bills", e);
+                } catch (ExecutionException e) {
+                    zip.putNextEntry(new ZipEntry("bill_" + bill.getId() + ".error.txt"));
+                    zip.write(describeFailure(bill, e.getCause()).getBytes(StandardCharsets.UTF_8));
+                }
+                zip.closeEntry();
+                exported++;
+            }
+            // Push the finished batch to the client before rendering the next one
+            zip.flush();
+
+            afterId = batch.get(batch.size() - 1).getId();
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+
+        zip.finish();
+        return exported;
+    }
+
+    private static String describeFailure(Bill bill, Throwable cause) {
+        cause.printStackTrace();
+        return "Bill " + bill.getId() + " (payment " + bill.getPaymentId() + ") could not be rendered: "
+            + cause.getMessage() + "\n";
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        exportExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,324 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.entity.Bill;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * HTML template for bills, compiled once into UTF-8 byte segments.
+ * The template source uses {{field}} placeholders and one repeated {{#items}}...{{/items}}
+ * block for the line items. Compiling resolves every placeholder up front, so rendering a
+ * bill only copies the pre-encoded segments and writes the escaped field values into a
+ * buffer taken from a small shared pool and returned afterwards. The pool is not per thread:
+ * with virtual threads every request runs on a new thread, which would never reuse a buffer.
+ */
+public final class BillHtmlTemplate {
+
+    /**
+     * One row of the line-item table. Prices are null for bills whose order predates
+     * normalized order items, and the quantity is null when it cannot be recovered.
+     */
+    public record Line(String name, Integer quantity, BigDecimal unitPrice, BigDecimal lineTotal) {
+    }
+
+    private enum Field {
+        BILL_ID("billId", false),
+        PAYMENT_ID("paymentId", false),
+        CUSTOMER("customer", false),
+        DATE("date", false),
+        BANK_NAME("bankName", false),
+        ACCOUNT_NUMBER("accountNumber", false),
+        SUBTOTAL("subtotal", false),
+        TOTAL("total", false),
+        ITEM_NAME("itemName", true),
+        ITEM_QUANTITY("itemQuantity", true),
+        ITEM_UNIT_PRICE("itemUnitPrice", true),
+        ITEM_LINE_TOTAL("itemLineTotal", true);
+
+        private final String key;
+        private final boolean perItem;
+
+        Field(String key, boolean perItem) {
+            this.key = key;
+            this.perItem = perItem;
+        }
+
+        static Field of(String key) {
+            for (Field field : values()) {
+                if (field.key.equals(key)) {
+                    return field;
+                }
+            }
+            throw new IllegalArgumentException("Unknown bill template field: " + key);
+        }
+    }
+
+    private interface Part {
+    }
+
+    private record Literal(byte[] bytes) implements Part {
+    }
+
+    private record Slot(Field field) implements Part {
+    }
+
+    private record Items(Part[] body) implements Part {
+    }
+
+    private static final Pattern TAG = Pattern.compile("\\{\\{([#/]?)(\\w+)}}");
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MMM dd, yyyy 'at' hh:mm a", Locale.ENGLISH);
+    private static final byte[] MISSING = "-".getBytes(StandardCharsets.US_ASCII);
+
+    // A bill is a few KB; a buffer that grew much larger for an unusual bill is not kept around
+    private static final int INITIAL_BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_RETAINED_BUFFER_SIZE = 256 * 1024;
+    // About the number of bills rendered at once; more concurrent renders allocate a fresh buffer
+    private static final int POOLED_BUFFERS = 8;
+
+    private final Part[] parts;
+    private final BlockingQueue<HtmlBuffer> buffers = new ArrayBlockingQueue<>(POOLED_BUFFERS);
+
+    private BillHtmlTemplate(Part[] parts) {
+        this.parts = parts;
+    }
+
+    /**
+     * Loads and compiles a template from the classpath.
+     *
+     * @param location resource path, e.g. "pdf/bill.html"
+     * @throws IllegalStateException if the resource is missing or invalid
+     */
+    public static BillHtmlTemplate fromClasspath(String location) {
+        try (InputStream in = BillHtmlTemplate.class.getClassLoader().getResourceAsStream(location)) {
+            if (in == null) {
+                throw new IllegalStateException("Bill template not found: " + location);
+            }
+            return compile(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalStateException("Failed to load bill template " + location, e);
+        }
+    }
+
+    /**
+     * Compiles template source.
+     *
+     * @throws IllegalArgumentException on unknown fields or unbalanced item blocks
+     */
+    public static BillHtmlTemplate compile(String source) {
+        List<Part> top = new ArrayList<>();
+        List<Part> itemBody = null;
+        Matcher tag = TAG.matcher(source);
+        int position = 0;
+
+        while (tag.find()) {
+            List<Part> current = itemBody != null ? itemBody : top;
+            addLiteral(current, source.substring(position, tag.start()));
+            position = tag.end();
+
+            String kind = tag.group(1);
+            String name = tag.group(2);
+            if (kind.isEmpty()) {
+                Field field = Field.of(name);
+                if (field.perItem && itemBody == null) {
+                    throw new IllegalArgumentException("Field " + name + " is only allowed inside {{#items}}");
+                }
+                current.add(new Slot(field));
+                continue;
+            }
+
+            if (!name.equals("items")) {
+                throw new IllegalArgumentException("Unknown bill template block: " + name);
+            }
+            if (kind.equals("#")) {
+                if (itemBody != null) {
+                    throw new IllegalArgumentException("Nested {{#items}} blocks are not supported");
+                }
+                itemBody = new ArrayList<>();
+            } else {
+                if (itemBody == null) {
+                    throw new IllegalArgumentException("{{/items}} without {{#items}}");
+                }
+                top.add(new Items(itemBody.toArray(new Part[0])));
+                itemBody = null;
+            }
+            // Block tags sit on their own line; drop that line break from the output
+            if (position < source.length() && source.charAt(position) == '\n') {
+                position++;
+            }
+        }
+        if (itemBody != null) {
+            throw new IllegalArgumentException("{{#items}} is not closed");
+        }
+        addLiteral(top, source.substring(position));
+        return new BillHtmlTemplate(top.toArray(new Part[0]));
+    }
+
+    private static void addLiteral(List<Part> parts, String text) {
+        if (!text.isEmpty()) {
+            parts.add(new Literal(text.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    /**
+     * Renders a bill.
+     *
+     * @param bill the bill
+     * @param lines the rows of the line-item table
+     * @return the UTF-8 encoded HTML
+     */
+    public byte[] render(Bill bill, List<Line> lines) {
+        HtmlBuffer out = buffers.poll();
+        if (out == null) {
+            out = new HtmlBuffer(INITIAL_BUFFER_SIZE);
+        }
+        try {
+            String date = bill.getCreatedAt() != null ? bill.getCreatedAt().format(DATE_FORMAT) : null;
+            write(parts, bill, date, lines, null, out);
+            return out.toByteArray();
+        } finally {
+            if (out.capacity() <= MAX_RETAINED_BUFFER_SIZE) {
+                out.reset();
+                // Dropped when the pool is already full
+                buffers.offer(out);
+            }
+        }
+    }
+
+    private static void write(Part[] parts, Bill bill, String date, List<Line> lines, Line line, HtmlBuffer out) {
+        for (Part part : parts) {
+            if (part instanceof Literal literal) {
+                out.writeBytes(literal.bytes());
+            } else if (part instanceof Slot slot) {
+                writeField(slot.field(), bill, date, line, out);
+            } else if (part instanceof Items items) {
+                for (Line item : lines) {
+                    write(items.body(), bill, date, lines, item, out);
+                }
+            }
+        }
+    }
+
+    private static void writeField(Field field, Bill bill, String date, Line line, HtmlBuffer out) {
+        switch (field) {
+            case BILL_ID -> out.writeNumber(bill.getId());
+            case PAYMENT_ID -> out.writeNumber(bill.getPaymentId());
+            case CUSTOMER -> out.writeEscaped(bill.getUsername());
+            case DATE -> out.writeEscaped(date);
+            case BANK_NAME -> out.writeEscaped(bill.getBankName());
+            case ACCOUNT_NUMBER -> out.writeEscaped(bill.getMaskedAccountNumber());
+            case SUBTOTAL -> out.writeMoney(bill.getSubtotal());
+            case TOTAL -> out.writeMoney(bill.getTotal());
+            case ITEM_NAME -> out.writeEscaped(line.name());
+            case ITEM_QUANTITY -> out.writeNumber(line.quantity() != null ? line.quantity().longValue() : null);
+            case ITEM_UNIT_PRICE -> out.writeMoney(line.unitPrice());
+            case ITEM_LINE_TOTAL -> out.writeMoney(line.lineTotal());
+        }
+    }
+
+    /**
+     * Byte buffer that writes HTML-escaped text straight to UTF-8, without intermediate strings.
+     */
+    static final class HtmlBuffer extends ByteArrayOutputStream {
+
+        HtmlBuffer(int size) {
+            super(size);
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+
+        void writeNumber(Long value) {
+            if (value == null) {
+                writeBytes(MISSING);
+                return;
+            }
+            long number = value;
+            if (number < 0) {
+                write('-');
+                number = -number;
+            }
+            writeDigits(number);
+        }
+
+        private void writeDigits(long number) {
+            if (number >= 10) {
+                writeDigits(number / 10);
+            }
+            write((int) ('0' + number % 10));
+        }
+
+        // Same output as "$%.2f": two decimals, rounded half up
+        void writeMoney(BigDecimal amount) {
+            if (amount == null) {
+                writeBytes(MISSING);
+                return;
+            }
+            write('$');
+            writeAscii(amount.setScale(2, RoundingMode.HALF_UP).toPlainString());
+        }
+
+        private void writeAscii(String text) {
+            for (int i = 0; i < text.length(); i++) {
+                write(text.charAt(i));
+            }
+        }
+
+        void writeEscaped(String text) {
+            if (text == null) {
+                return;
+            }
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '&' -> writeAscii("&amp;");
+                    case '<' -> writeAscii("&lt;");
+                    case '>' -> writeAscii("&gt;");
+                    case '"' -> writeAscii("&quot;");
+                    case '\'' -> writeAscii("&#39;");
+                    default -> {
+                        if (c < 0x80) {
+                            write(c);
+                        } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                                && Character.isLowSurrogate(text.charAt(i + 1))) {
+                            writeCodePoint(Character.toCodePoint(c, text.charAt(++i)));
+                        } else if (Character.isSurrogate(c)) {
+                            write('?');
+                        } else {
+                            writeCodePoint(c);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void writeCodePoint(int codePoint) {
+            if (codePoint < 0x800) {
+                write(0xC0 | (codePoint >> 6));
+                write(0x80 | (codePoint & 0x3F));
+            } else if (codePoint < 0x10000) {
+                write(0xE0 | (codePoint >> 12));
+                write(0x80 | ((codePoint >> 6) & 0x3F));
+                write(0x80 | (codePoint & 0x3F));
+            } else {
+                write(0xF0 | (codePoint >> 18));
+                write(0x80 | ((codePoint >> 12) & 0x3F));
+                write(0x80 | ((codePoint >> 6) & 0x3F));
+                write(0x80 | (codePoint & 0x3F));
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.config.WorkerThreads;
+import com.group35.smartcart.entity.Bill;
+import com.group35.smartcart.event.BillCreatedEvent;
+import com.group35.smartcart.repository.BillRepository;
+import com.group35.smartcart.repository.OrderItemRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Cache of rendered bill PDFs.
+ * A bill never changes after it is created, so its PDF is rendered once: in the background
+ * right after the bill is created, or on the first download if that has not happened yet.
+ * PDFs are stored on disk under the SHA-256 of the bill HTML they were rendered from, with a
+ * size-bounded LRU of recently downloaded PDFs in memory in front of the disk store. That
+ * content key is saved with the bill the first time it is computed, so later downloads, and
+ * conditional requests in particular, do not build the HTML again.
+ */
+@Service
+public class BillPdfCacheService {
+
+    private final PdfService pdfService;
+    private final BillRepository billRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final Path storeRoot;
+    private final long memoryLimitBytes;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, byte[]> memoryCache = new LinkedHashMap<>(64, 0.75f, true);
+    private long memoryBytes = 0;
+
+    private final ExecutorService renderExecutor;
+
+    @Autowired
+    public BillPdfCacheService(PdfService pdfService,
+                               BillRepository billRepository,
+                               OrderItemRepository orderItemRepository,
+                               @Value("${smartcart.bills.pdf-store:bill-pdfs}") String storeRoot,
+                               @Value("${smartcart.bills.pdf-memory-cache-bytes:33554432}") long memoryLimitBytes,
+                               @Value("${smartcart.bills.pdf-render-threads:2}") int renderThreads,
+                               WorkerThreads workerThreads) {
+        this.pdfService = pdfService;
+        this.billRepository = billRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.storeRoot = Paths.get(storeRoot).toAbsolutePath().normalize();
+        this.memoryLimitBytes = memoryLimitBytes;
+
+        // Still a fixed pool with virtual threads: the size bounds concurrent renders and their memory
+        this.renderExecutor = Executors.newFixedThreadPool(renderThreads, workerThreads.factory("bill-pdf-render"));
+    }
+
+    /**
+     * Content key of a bill's PDF, usable as a strong ETag. Read from the bill; only a bill
+     * whose key was never computed has its HTML built here, and the key is then saved.
+     *
+     * @param bill the bill
+     * @return the lower-case hex SHA-256 of the bill HTML
+     */
+    public String contentKey(Bill bill) {
+        if (bill.getContentKey() == null) {
+            storeContentKey(bill, sha256(billHtml(bill)));
+        }
+        return bill.getContentKey();
+    }
+
+    /**
+     * Returns the PDF of a bill from memory or disk, rendering and storing it on a miss.
+     *
+     * @param bill the bill
+     * @return the PDF bytes
+     * @throws IOException if rendering or reading the store fails
+     */
+    public byte[] getPdf(Bill bill) throws IOException {
+        return getPdf(bill, true);
+    }
+
+    /**
+     * Same as getPdf(Bill), optionally without adding the PDF to the in-memory LRU,
+     * so a bulk export does not evict the PDFs customers are downloading.
+     */
+    public byte[] getPdf(Bill bill, boolean keepInMemory) throws IOException {
+        byte[] html = null;
+        if (bill.getContentKey() == null) {
+            html = billHtml(bill);
+            storeContentKey(bill, sha256(html));
+        }
+        String key = bill.getContentKey();
+
+        byte[] cached = getFromMemory(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Path file = storeRoot.resolve(key + ".pdf");
+        byte[] pdf;
+        if (Files.isRegularFile(file)) {
+            pdf = Files.readAllBytes(file);
+        } else {
+            pdf = pdfService.convertToPdf(html != null ? html : billHtml(bill));
+            writeToStore(file, pdf);
+        }
+        if (keepInMemory) {
+            putInMemory(key, pdf);
+        }
+        return pdf;
+    }
+
+    // Render the PDF of a new bill once its transaction has committed, off the request thread
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBillCreated(BillCreatedEvent event) {
+        renderExecutor.execute(() -> {
+            try {
+                billRepository.findById(event.getBillId()).ifPresent(this::preRender);
+            } catch (Exception e) {
+                // The download falls back to rendering synchronously
+                e.printStackTrace();
+            }
+        });
+    }
+
+    private void preRender(Bill bill) {
+        try {
+            getPdf(bill, false);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to pre-render bill " + bill.getId(), e);
+        }
+    }
+
+    // The first key saved wins; a concurrent download may have saved it already
+    private void storeContentKey(Bill bill, String key) {
+        if (bill.getId() != null && billRepository.setContentKeyIfAbsent(bill.getId(), key) == 0) {
+            key = billRepository.findById(bill.getId()).map(Bill::getContentKey).orElse(key);
+        }
+        bill.setContentKey(key);
+    }
+
+    private byte[] billHtml(Bill bill) {
+        return pdfService.generateBillHtml(bill, orderItemRepository.findByOrderPaymentIdOrderByIdAsc(bill.getOrderId()));
+    }
+
+    private void writeToStore(Path file, byte[] pdf) throws IOException {
+        Files.createDirectories(storeRoot);
+        Path tempFile = Files.createTempFile(storeRoot, "render-", ".tmp");
+        try {
+            Files.write(tempFile, pdf);
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Rendered concurrently by another thread; both copies are identical
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private synchronized byte[] getFromMemory(String key) {
+        return memoryCache.get(key);
+    }
+
+    private synchronized void putInMemory(String key, byte[] pdf) {
+        if (pdf.length > memoryLimitBytes) {
+            return;
+        }
+        byte[] previous = memoryCache.put(key, pdf);
+        if (previous != null) {
+            memoryBytes -= previous.length;
+        }
+        memoryBytes += pdf.length;
+
+        Iterator<Map.Entry<String, byte[]>> eldest = memoryCache.entrySet().iterator();
+        while (memoryBytes > memoryLimitBytes && eldest.hasNext()) {
+            memoryBytes -= eldest.next().getValue().length;
+            eldest.remove();
+        }
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderExecutor.shutdownNow();
+    }
+}
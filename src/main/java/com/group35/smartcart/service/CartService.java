@@ -0,0 +1,308 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.config.WorkerThreads;
+import com.group35.smartcart.entity.CartItem;
+import com.group35.smartcart.entity.Customer;
+import com.group35.smartcart.entity.Product;
+import com.group35.smartcart.repository.CartItemRepository;
+import com.group35.smartcart.service.ProductCatalogService.CatalogSnapshot;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.util.WebUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Service class for the server-side shopping cart.
+ * The cart lives in the HTTP session as a SessionCart; totals are computed here from
+ * catalog snapshot prices, never from values sent by the browser. Carts of logged-in
+ * customers are also saved to cart_items with write-behind: changes only queue the
+ * latest cart per customer and a background thread writes it, so a burst of clicks
+ * costs one save. Writes of one customer's cart never overlap: each holds that customer's
+ * write lock from taking the queued cart until it is committed.
+ */
+@Service
+public class CartService {
+
+    public static final String SESSION_ATTRIBUTE = "shoppingCart";
+
+    private static final BigDecimal TAX_RATE = new BigDecimal("0.15");
+    private static final int MAX_LINE_QUANTITY = 999;
+    private static final int WRITE_LOCK_STRIPES = 64;
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_SECONDS = 5;
+
+    private final ProductCatalogService productCatalogService;
+    private final CartItemRepository cartItemRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ScheduledExecutorService writeBehindExecutor;
+
+    // Latest unsaved cart per username; a newer change replaces the queued one
+    private final Map<String, PendingWrite> pendingWrites = new ConcurrentHashMap<>();
+
+    // Striped by username. Locks rather than synchronized, so a virtual thread waiting on the
+    // database while holding one does not pin its carrier thread
+    private final ReentrantLock[] writeLocks = new ReentrantLock[WRITE_LOCK_STRIPES];
+
+    @Autowired
+    public CartService(ProductCatalogService productCatalogService,
+                       CartItemRepository cartItemRepository,
+                       PlatformTransactionManager transactionManager,
+                       WorkerThreads workerThreads) {
+        this.productCatalogService = productCatalogService;
+        this.cartItemRepository = cartItemRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.writeBehindExecutor = Executors.newSingleThreadScheduledExecutor(workerThreads.factory("cart-write-behind"));
+        for (int i = 0; i < writeLocks.length; i++) {
+            writeLocks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Returns the cart of the session, creating an empty one on first use.
+     *
+     * @param session the HTTP session
+     * @return the session cart
+     */
+    public SessionCart getCart(HttpSession session) {
+        synchronized (WebUtils.getSessionMutex(session)) {
+            SessionCart cart = (SessionCart) session.getAttribute(SESSION_ATTRIBUTE);
+            if (cart == null) {
+                cart = new SessionCart();
+                session.setAttribute(SESSION_ATTRIBUTE, cart);
+            }
+            return cart;
+        }
+    }
+
+    /**
+     * Adds a product to the cart, increasing the quantity if it is already there.
+     *
+     * @throws IllegalArgumentException if the product does not exist or the quantity is not positive
+     */
+    public void addItem(HttpSession session, Long productId, int quantity) {
+        requireProduct(productId);
+        if (quantity < 1) {
+            throw new IllegalArgumentException("Quantity must be at least 1");
+        }
+        SessionCart cart = getCart(session);
+        cart.add(productId, quantity, MAX_LINE_QUANTITY);
+        saveLater(session, cart);
+    }
+
+    /**
+     * Sets the quantity of a cart line; zero or less removes it.
+     *
+     * @throws IllegalArgumentException if the product does not exist
+     */
+    public void updateQuantity(HttpSession session, Long productId, int quantity) {
+        SessionCart cart = getCart(session);
+        if (quantity > 0) {
+            requireProduct(productId);
+        }
+        cart.setQuantity(productId, Math.min(quantity, MAX_LINE_QUANTITY));
+        saveLater(session, cart);
+    }
+
+    public void removeItem(HttpSession session, Long productId) {
+        SessionCart cart = getCart(session);
+        cart.remove(productId);
+        saveLater(session, cart);
+    }
+
+    /**
+     * Replaces the set of lines selected for checkout. IDs not in the cart are ignored.
+     */
+    public void selectItems(HttpSession session, Collection<Long> productIds) {
+        getCart(session).select(productIds);
+    }
+
+    /**
+     * Removes lines that were just ordered from the cart.
+     */
+    public void removeOrderedItems(HttpSession session, Collection<Long> productIds) {
+        SessionCart cart = getCart(session);
+        cart.removeAll(productIds);
+        saveLater(session, cart);
+    }
+
+    /**
+     * Merges the customer's saved cart into the session cart after login.
+     * Lines already in the session cart keep their session quantity.
+     */
+    public void restoreSavedCart(HttpSession session, String username) {
+        // Make sure a queued or running save of an older session is written before reading
+        flushPendingWrite(username);
+
+        SessionCart cart = getCart(session);
+        Map<Long, Integer> sessionLines = cart.getQuantities();
+        CatalogSnapshot catalog = productCatalogService.getSnapshot();
+        for (CartItem saved : cartItemRepository.findByUsernameOrderByIdAsc(username)) {
+            if (!sessionLines.containsKey(saved.getProductId()) && catalog.findById(saved.getProductId()).isPresent()) {
+                cart.setQuantity(saved.getProductId(), saved.getQuantity());
+            }
+        }
+        scheduleWrite(username, cart.getQuantities());
+    }
+
+    /**
+     * Detaches the cart from the session on logout; the saved copy is kept.
+     */
+    public void clearSessionCart(HttpSession session) {
+        session.removeAttribute(SESSION_ATTRIBUTE);
+    }
+
+    /**
+     * Describes the cart for the browser: every line with current name, price and stock,
+     * plus server-computed totals of the whole cart and of the selected lines.
+     * Lines whose product no longer exists are dropped.
+     *
+     * @param session the HTTP session
+     * @return the cart view
+     */
+    public Map<String, Object> describe(HttpSession session) {
+        SessionCart cart = getCart(session);
+        CatalogSnapshot catalog = productCatalogService.getSnapshot();
+        Set<Long> selected = cart.getSelected();
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        List<Long> missing = new ArrayList<>();
+        BigDecimal cartTotal = BigDecimal.ZERO;
+        BigDecimal selectedSubtotal = BigDecimal.ZERO;
+        int itemCount = 0;
+
+        for (Map.Entry<Long, Integer> line : cart.getQuantities().entrySet()) {
+            Optional<Product> productOpt = catalog.findById(line.getKey());
+            if (productOpt.isEmpty()) {
+                missing.add(line.getKey());
+                continue;
+            }
+            Product product = productOpt.get();
+            int quantity = line.getValue();
+            BigDecimal lineTotal = product.getPrice().multiply(BigDecimal.valueOf(quantity));
+            boolean isSelected = selected.contains(product.getId());
+
+            Map<String, Object> item = new HashMap<>();
+            item.put("id", product.getId());
+            item.put("name", product.getName());
+            item.put("imageUrl", product.getImageUrl());
+            item.put("price", product.getPrice());
+            item.put("quantity", quantity);
+            item.put("lineTotal", lineTotal);
+            item.put("stockQuantity", product.getStockQuantity());
+            item.put("isInStock", product.isInStock());
+            item.put("selected", isSelected);
+            items.add(item);
+
+            itemCount += quantity;
+            cartTotal = cartTotal.add(lineTotal);
+            if (isSelected) {
+                selectedSubtotal = selectedSubtotal.add(lineTotal);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            removeOrderedItems(session, missing);
+        }
+
+        BigDecimal tax = selectedSubtotal.multiply(TAX_RATE).setScale(2, RoundingMode.HALF_UP);
+
+        Map<String, Object> view = new HashMap<>();
+        view.put("items", items);
+        view.put("itemCount", itemCount);
+        view.put("cartTotal", cartTotal);
+        view.put("subtotal", selectedSubtotal);
+        view.put("tax", tax);
+        view.put("total", selectedSubtotal.add(tax));
+        return view;
+    }
+
+    private void requireProduct(Long productId) {
+        if (productId == null || productCatalogService.getSnapshot().findById(productId).isEmpty()) {
+            throw new IllegalArgumentException("Product with ID " + productId + " not found");
+        }
+    }
+
+    private void saveLater(HttpSession session, SessionCart cart) {
+        Customer customer = (Customer) session.getAttribute("customer");
+        if (customer != null) {
+            scheduleWrite(customer.getUsername(), cart.getQuantities());
+        }
+    }
+
+    private void scheduleWrite(String username, Map<Long, Integer> quantities) {
+        // Only the first change queues a task; later ones just replace the pending snapshot
+        if (pendingWrites.put(username, new PendingWrite(quantities, 1)) == null) {
+            writeBehindExecutor.execute(() -> flushPendingWrite(username));
+        }
+    }
+
+    /**
+     * Writes the queued cart of a customer, if any. Waits for a write of the same customer
+     * that is already running, so once this returns the saved cart is the latest one.
+     */
+    void flushPendingWrite(String username) {
+        ReentrantLock lock = writeLocks[Math.floorMod(username.hashCode(), writeLocks.length)];
+        lock.lock();
+        try {
+            PendingWrite pending = pendingWrites.remove(username);
+            if (pending == null) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    cartItemRepository.deleteByUsername(username);
+                    List<CartItem> lines = new ArrayList<>(pending.quantities().size());
+                    pending.quantities().forEach((productId, quantity) ->
+                        lines.add(new CartItem(username, productId, quantity)));
+                    cartItemRepository.saveAll(lines);
+                });
+            } catch (Exception e) {
+                e.printStackTrace();
+                retryLater(username, pending);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Queues a failed write again unless a newer cart has been queued meanwhile
+    private void retryLater(String username, PendingWrite failed) {
+        if (failed.attempt() >= MAX_WRITE_ATTEMPTS || writeBehindExecutor.isShutdown()) {
+            return;
+        }
+        if (pendingWrites.putIfAbsent(username, new PendingWrite(failed.quantities(), failed.attempt() + 1)) == null) {
+            writeBehindExecutor.schedule(() -> flushPendingWrite(username), RETRY_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private record PendingWrite(Map<Long, Integer> quantities, int attempt) {
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        writeBehindExecutor.shutdown();
+        writeBehindExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        for (String username : List.copyOf(pendingWrites.keySet())) {
+            flushPendingWrite(username);
+        }
+    }
+}
@@ -3,11 +3,16 @@ package com.group35.smartcart.service;
 import com.group35.smartcart.entity.AssignmentStatus;
 import com.group35.smartcart.entity.DeliveryAssignment;
 import com.group35.smartcart.entity.DeliveryPerson;
+import com.group35.smartcart.entity.DeliveryStats;
 import com.group35.smartcart.entity.Order;
+import com.group35.smartcart.event.DeliveryAssignmentChangedEvent;
+import com.group35.smartcart.event.DeliveryAssignmentChangedEvent.Transition;
 import com.group35.smartcart.repository.DeliveryAssignmentRepository;
 import com.group35.smartcart.repository.DeliverPersonRepository;
 import com.group35.smartcart.repository.OrderRepository;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,14 +27,20 @@ public class DeliveryAssignmentService {
     private final DeliveryAssignmentRepository deliveryAssignmentRepository;
     private final DeliverPersonRepository deliverPersonRepository;
     private final OrderRepository orderRepository;
+    private final DeliveryMetricsService deliveryMetricsService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
     public DeliveryAssignmentService(DeliveryAssignmentRepository deliveryAssignmentRepository,
                                    DeliverPersonRepository deliverPersonRepository,
-                                   OrderRepository orderRepository) {
+                                   OrderRepository orderRepository,
+                                   DeliveryMetricsService deliveryMetricsService,
+                                   ApplicationEventPublisher eventPublisher) {
         this.deliveryAssignmentRepository = deliveryAssignmentRepository;
         this.deliverPersonRepository = deliverPersonRepository;
         this.orderRepository = orderRepository;
+        this.deliveryMetricsService = deliveryMetricsService;
+        this.eventPublisher = eventPublisher;
     }
 
     // Create a new delivery assignment
@@ -66,7 +77,10 @@ public class DeliveryAssignmentService {
         assignment.setCreatedAt(LocalDateTime.now());
         assignment.setUpdatedAt(LocalDateTime.now());
 
-        return deliveryAssignmentRepository.save(assignment);
+        DeliveryAssignment saved = deliveryAssignmentRepository.save(assignment);
+        eventPublisher.publishEvent(new DeliveryAssignmentChangedEvent(
+            Transition.created(deliveryPersonId, saved.getAssignedAt())));
+        return saved;
     }
 
     // Get all assignments
@@ -76,7 +90,7 @@ public class DeliveryAssignmentService {
 
     // Get assignment by ID
     public Optional<DeliveryAssignment> getAssignmentById(Long id) {
-        return deliveryAssignmentRepository.findById(id);
+        return deliveryAssignmentRepository.findWithDetailsById(id);
     }
 
     // Get assignment by order ID
@@ -101,12 +115,7 @@ public class DeliveryAssignmentService {
 
     // Update assignment status to PICKED_UP
     public DeliveryAssignment markAsPickedUp(Long assignmentId, String notes) {
-        Optional<DeliveryAssignment> assignmentOpt = deliveryAssignmentRepository.findById(assignmentId);
-        if (assignmentOpt.isEmpty()) {
-            throw new IllegalArgumentException("Assignment not found with ID: " + assignmentId);
-        }
-
-        DeliveryAssignment assignment = assignmentOpt.get();
+        DeliveryAssignment assignment = lockAssignment(assignmentId);
         if (assignment.getStatus() != AssignmentStatus.ASSIGNED) {
             throw new IllegalStateException("Assignment must be in ASSIGNED status to mark as picked up");
         }
@@ -118,17 +127,15 @@ public class DeliveryAssignmentService {
             assignment.setNotes(assignment.getNotes() + "\n[PICKUP] " + notes);
         }
 
+        publishTransition(assignment, assignment.getDeliveryPerson().getId(), AssignmentStatus.ASSIGNED, assignment.getPickedUpAt());
+        deliveryMetricsService.recordPickup(assignment.getDeliveryPerson().getId(),
+            assignment.getAssignedAt(), assignment.getPickedUpAt());
         return deliveryAssignmentRepository.save(assignment);
     }
 
     // Update assignment status to DELIVERED
     public DeliveryAssignment markAsDelivered(Long assignmentId, String notes) {
-        Optional<DeliveryAssignment> assignmentOpt = deliveryAssignmentRepository.findById(assignmentId);
-        if (assignmentOpt.isEmpty()) {
-            throw new IllegalArgumentException("Assignment not found with ID: " + assignmentId);
-        }
-
-        DeliveryAssignment assignment = assignmentOpt.get();
+        DeliveryAssignment assignment = lockAssignment(assignmentId);
         if (assignment.getStatus() != AssignmentStatus.PICKED_UP) {
             throw new IllegalStateException("Assignment must be in PICKED_UP status to mark as delivered");
         }
@@ -140,38 +147,33 @@ public class DeliveryAssignmentService {
             assignment.setNotes(assignment.getNotes() + "\n[DELIVERY] " + notes);
         }
 
+        publishTransition(assignment, assignment.getDeliveryPerson().getId(), AssignmentStatus.PICKED_UP, assignment.getDeliveredAt());
+        deliveryMetricsService.recordDelivery(assignment.getDeliveryPerson().getId(),
+            assignment.getAssignedAt(), assignment.getPickedUpAt(), assignment.getDeliveredAt());
         return deliveryAssignmentRepository.save(assignment);
     }
 
     // Update assignment status to CANCELLED
     public DeliveryAssignment cancelAssignment(Long assignmentId, String reason) {
-        Optional<DeliveryAssignment> assignmentOpt = deliveryAssignmentRepository.findById(assignmentId);
-        if (assignmentOpt.isEmpty()) {
-            throw new IllegalArgumentException("Assignment not found with ID: " + assignmentId);
-        }
-
-        DeliveryAssignment assignment = assignmentOpt.get();
+        DeliveryAssignment assignment = lockAssignment(assignmentId);
         if (assignment.getStatus() == AssignmentStatus.DELIVERED) {
             throw new IllegalStateException("Cannot cancel a delivered assignment");
         }
 
+        AssignmentStatus previousStatus = assignment.getStatus();
         assignment.setStatus(AssignmentStatus.CANCELLED);
         assignment.setUpdatedAt(LocalDateTime.now());
         if (reason != null && !reason.trim().isEmpty()) {
             assignment.setNotes(assignment.getNotes() + "\n[CANCELLED] " + reason);
         }
 
+        publishTransition(assignment, assignment.getDeliveryPerson().getId(), previousStatus, assignment.getUpdatedAt());
         return deliveryAssignmentRepository.save(assignment);
     }
 
     // Reassign to different delivery person
     public DeliveryAssignment reassignDeliveryPerson(Long assignmentId, Long newDeliveryPersonId, String reason) {
-        Optional<DeliveryAssignment> assignmentOpt = deliveryAssignmentRepository.findById(assignmentId);
-        if (assignmentOpt.isEmpty()) {
-            throw new IllegalArgumentException("Assignment not found with ID: " + assignmentId);
-        }
-
-        DeliveryAssignment assignment = assignmentOpt.get();
+        DeliveryAssignment assignment = lockAssignment(assignmentId);
         if (assignment.getStatus() == AssignmentStatus.DELIVERED) {
             throw new IllegalStateException("Cannot reassign a delivered assignment");
         }
@@ -187,6 +189,8 @@ public class DeliveryAssignmentService {
             throw new IllegalStateException("New delivery person is not active or has been deleted");
         }
 
+        Long previousDeliveryPersonId = assignment.getDeliveryPerson().getId();
+        AssignmentStatus previousStatus = assignment.getStatus();
         assignment.setDeliveryPerson(newDeliveryPerson);
         assignment.setStatus(AssignmentStatus.ASSIGNED);
         assignment.setAssignedAt(LocalDateTime.now());
@@ -196,12 +200,13 @@ public class DeliveryAssignmentService {
             assignment.setNotes(assignment.getNotes() + "\n[REASSIGNED] " + reason);
         }
 
+        publishTransition(assignment, previousDeliveryPersonId, previousStatus, assignment.getAssignedAt());
         return deliveryAssignmentRepository.save(assignment);
     }
 
     // Update assignment notes
     public DeliveryAssignment updateNotes(Long assignmentId, String notes) {
-        Optional<DeliveryAssignment> assignmentOpt = deliveryAssignmentRepository.findById(assignmentId);
+        Optional<DeliveryAssignment> assignmentOpt = deliveryAssignmentRepository.findWithDetailsById(assignmentId);
         if (assignmentOpt.isEmpty()) {
             throw new IllegalArgumentException("Assignment not found with ID: " + assignmentId);
         }
@@ -244,9 +249,14 @@ public class DeliveryAssignmentService {
         return deliveryAssignmentRepository.countByDeliveryPersonId(deliveryPersonId);
     }
 
-    // Get delivery performance statistics for a delivery person
-    public Object[] getDeliveryStats(Long deliveryPersonId) {
-        return deliveryAssignmentRepository.getDeliveryStats(deliveryPersonId);
+    // Get delivery performance statistics for a delivery person (maintained on each pickup and delivery)
+    public DeliveryStats getDeliveryStats(Long deliveryPersonId) {
+        return deliveryMetricsService.getStats(deliveryPersonId);
+    }
+
+    // Get delivery performance statistics of all delivery persons together
+    public DeliveryStats getOverallDeliveryStats() {
+        return deliveryMetricsService.getOverallStats();
     }
 
     // Delete assignment (soft delete by setting status to CANCELLED)
@@ -263,4 +273,23 @@ public class DeliveryAssignmentService {
     public List<DeliveryPerson> getAvailableDeliveryPersons() {
         return deliverPersonRepository.findByIsActiveTrueAndIsDeletedFalse();
     }
+
+    // Read an assignment under a row lock held until commit, so two status changes of the same assignment
+    // run one after the other and the second sees the first's status; the order and delivery person the
+    // caller shows are loaded without locking their rows
+    private DeliveryAssignment lockAssignment(Long assignmentId) {
+        DeliveryAssignment assignment = deliveryAssignmentRepository.findByIdForUpdate(assignmentId)
+            .orElseThrow(() -> new IllegalArgumentException("Assignment not found with ID: " + assignmentId));
+        Hibernate.initialize(assignment.getOrder());
+        Hibernate.initialize(assignment.getDeliveryPerson());
+        return assignment;
+    }
+
+    // Tell the rider load counters that an assignment moved to its current delivery person and status
+    private void publishTransition(DeliveryAssignment assignment, Long previousDeliveryPersonId,
+                                   AssignmentStatus previousStatus, LocalDateTime at) {
+        eventPublisher.publishEvent(new DeliveryAssignmentChangedEvent(new Transition(
+            previousDeliveryPersonId, previousStatus,
+            assignment.getDeliveryPerson().getId(), assignment.getStatus(), at)));
+    }
 }
\ No newline at end of file
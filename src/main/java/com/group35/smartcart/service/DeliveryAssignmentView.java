@@ -0,0 +1,48 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.entity.AssignmentStatus;
+import com.group35.smartcart.entity.DeliveryAssignment;
+import com.group35.smartcart.entity.DeliveryPerson;
+import com.group35.smartcart.entity.Order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Delivery assignment as returned by the assignment API and shown on the delivery board.
+ * Keeps the nested order / deliveryPerson shape of the entity JSON, but only with the fields
+ * the board reads, so responses no longer carry the whole order with its product lists.
+ */
+public record DeliveryAssignmentView(Long id,
+                                     AssignmentStatus status,
+                                     String notes,
+                                     LocalDateTime assignedAt,
+                                     LocalDateTime pickedUpAt,
+                                     LocalDateTime deliveredAt,
+                                     OrderSummary order,
+                                     Courier deliveryPerson) {
+
+    public record OrderSummary(Long paymentId, String username, BigDecimal subtotal, String orderStatus) {
+    }
+
+    public record Courier(Long id, String name, DeliveryPerson.VehicleType vehicleType, String contactNumber) {
+    }
+
+    /**
+     * Maps an assignment whose order and delivery person are loaded (fetched with it, or
+     * within the transaction); reads nothing else.
+     */
+    public static DeliveryAssignmentView from(DeliveryAssignment assignment) {
+        Order order = assignment.getOrder();
+        DeliveryPerson person = assignment.getDeliveryPerson();
+        return new DeliveryAssignmentView(
+            assignment.getId(),
+            assignment.getStatus(),
+            assignment.getNotes(),
+            assignment.getAssignedAt(),
+            assignment.getPickedUpAt(),
+            assignment.getDeliveredAt(),
+            new OrderSummary(order.getPaymentId(), order.getUsername(), order.getSubtotal(), order.getOrderStatus()),
+            new Courier(person.getId(), person.getName(), person.getVehicleType(), person.getContactNumber()));
+    }
+}
@@ -0,0 +1,251 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.entity.AssignmentStatus;
+import com.group35.smartcart.entity.DeliveryAssignment;
+import com.group35.smartcart.entity.DeliveryPerson;
+import com.group35.smartcart.event.DeliveryAssignmentChangedEvent;
+import com.group35.smartcart.event.DeliveryAssignmentChangedEvent.Transition;
+import com.group35.smartcart.repository.DeliverPersonRepository;
+import com.group35.smartcart.repository.DeliveryAssignmentRepository;
+import com.group35.smartcart.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Service class for automatic delivery dispatch.
+ * A dispatch run assigns every approved order that has no delivery assignment yet to an active
+ * delivery person, balancing load against vehicle capacity. Load and size are counted in item
+ * units (the total quantity of an order's lines, at least 1 per order); a rider's load is the
+ * units of their ASSIGNED and PICKED_UP assignments. The run reads with two queries, plans in
+ * memory and inserts the new assignments in one transaction, flushing and clearing the
+ * persistence context every 500 assignments.
+ */
+@Service
+@Transactional
+public class DeliveryDispatchService {
+
+    public static final String DISPATCH_NOTE = "Assigned by automatic dispatch";
+
+    // Assignments inserted per flush, a multiple of hibernate.jdbc.batch_size so every flush sends full batches
+    private static final int FLUSH_SIZE = 500;
+
+    /**
+     * An order waiting for dispatch.
+     *
+     * @param orderId the order's payment ID
+     * @param units the order's size in item units
+     */
+    record PendingOrder(Long orderId, int units) {
+    }
+
+    /**
+     * A delivery person as seen by the planner.
+     *
+     * @param deliveryPersonId the delivery person's ID
+     * @param capacity the units their vehicle carries
+     * @param load the units already on their active assignments
+     */
+    record RiderLoad(Long deliveryPersonId, int capacity, int load) {
+    }
+
+    /**
+     * One planned assignment.
+     */
+    record Dispatch(Long orderId, Long deliveryPersonId) {
+    }
+
+    /**
+     * Outcome of a dispatch run.
+     *
+     * @param dispatched number of assignments created
+     * @param undispatchedOrderIds approved orders left unassigned because no rider had room for them
+     * @param ridersUsed number of delivery persons that received at least one order
+     */
+    public record DispatchResult(int dispatched, List<Long> undispatchedOrderIds, int ridersUsed) {
+    }
+
+    private final DeliveryAssignmentRepository deliveryAssignmentRepository;
+    private final DeliverPersonRepository deliverPersonRepository;
+    private final OrderRepository orderRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${smartcart.dispatch.bike-capacity:15}")
+    private int bikeCapacity;
+
+    @Value("${smartcart.dispatch.threewheel-capacity:40}")
+    private int threewheelCapacity;
+
+    @Value("${smartcart.dispatch.lorry-capacity:200}")
+    private int lorryCapacity;
+
+    @Autowired
+    public DeliveryDispatchService(DeliveryAssignmentRepository deliveryAssignmentRepository,
+                                   DeliverPersonRepository deliverPersonRepository,
+                                   OrderRepository orderRepository,
+                                   ApplicationEventPublisher eventPublisher) {
+        this.deliveryAssignmentRepository = deliveryAssignmentRepository;
+        this.deliverPersonRepository = deliverPersonRepository;
+        this.orderRepository = orderRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Assigns all approved, unassigned orders to the active delivery persons.
+     *
+     * @param notes notes for the new assignments; blank uses {@link #DISPATCH_NOTE}
+     * @return what the run assigned and what it left
+     */
+    public DispatchResult dispatchApprovedOrders(String notes) {
+        List<PendingOrder> orders = new ArrayList<>();
+        for (Object[] row : orderRepository.findUndispatchedApprovedOrderUnits()) {
+            orders.add(new PendingOrder((Long) row[0], units(row[1])));
+        }
+        if (orders.isEmpty()) {
+            return new DispatchResult(0, List.of(), 0);
+        }
+
+        Map<Long, Integer> loads = new HashMap<>();
+        for (Object[] row : deliveryAssignmentRepository.findActiveAssignmentUnits()) {
+            loads.merge((Long) row[0], units(row[2]), Integer::sum);
+        }
+        List<RiderLoad> riders = new ArrayList<>();
+        for (DeliveryPerson person : deliverPersonRepository.findByIsActiveTrueAndIsDeletedFalse()) {
+            riders.add(new RiderLoad(person.getId(), capacityOf(person.getVehicleType()),
+                loads.getOrDefault(person.getId(), 0)));
+        }
+
+        List<Dispatch> plan = plan(orders, riders);
+
+        // References rather than loaded entities: the inserts only need the foreign keys
+        String assignmentNotes = notes != null && !notes.trim().isEmpty() ? notes : DISPATCH_NOTE;
+        LocalDateTime now = LocalDateTime.now();
+        List<Transition> transitions = new ArrayList<>(plan.size());
+        Set<Long> dispatchedOrderIds = new HashSet<>();
+        Set<Long> ridersUsed = new HashSet<>();
+        for (int from = 0; from < plan.size(); from += FLUSH_SIZE) {
+            List<DeliveryAssignment> assignments = new ArrayList<>(FLUSH_SIZE);
+            for (Dispatch dispatch : plan.subList(from, Math.min(from + FLUSH_SIZE, plan.size()))) {
+                DeliveryAssignment assignment = new DeliveryAssignment(
+                    deliverPersonRepository.getReferenceById(dispatch.deliveryPersonId()),
+                    orderRepository.getReferenceById(dispatch.orderId()));
+                assignment.setStatus(AssignmentStatus.ASSIGNED);
+                assignment.setAssignedAt(now);
+                assignment.setCreatedAt(now);
+                assignment.setUpdatedAt(now);
+                assignment.setNotes(assignmentNotes);
+                assignments.add(assignment);
+                transitions.add(Transition.created(dispatch.deliveryPersonId(), now));
+                dispatchedOrderIds.add(dispatch.orderId());
+                ridersUsed.add(dispatch.deliveryPersonId());
+            }
+            deliveryAssignmentRepository.saveAll(assignments);
+            // Flush here so an order assigned concurrently surfaces as a constraint violation from this call,
+            // and clear so each flush only dirty-checks its own batch instead of every assignment so far
+            deliveryAssignmentRepository.flush();
+            entityManager.clear();
+        }
+        eventPublisher.publishEvent(new DeliveryAssignmentChangedEvent(transitions));
+
+        List<Long> undispatched = orders.stream()
+            .map(PendingOrder::orderId)
+            .filter(orderId -> !dispatchedOrderIds.contains(orderId))
+            .toList();
+        return new DispatchResult(plan.size(), undispatched, ridersUsed.size());
+    }
+
+    /**
+     * Plans a balanced assignment. Orders are taken oldest first; each goes to the rider with
+     * the lowest load-to-capacity ratio that still has room for it, preferring the smaller
+     * vehicle on a tie. Riders are kept in one priority queue per capacity (least loaded first),
+     * so only the head of each queue has to be considered: O(orders * log riders).
+     *
+     * @param orders the orders, in the order they should be served
+     * @param riders the available riders with their current load
+     * @return the planned assignments; orders no rider has room for are left out
+     */
+    static List<Dispatch> plan(List<PendingOrder> orders, List<RiderLoad> riders) {
+        Comparator<Slot> leastLoaded = Comparator.comparingInt((Slot slot) -> slot.load)
+            .thenComparing(slot -> slot.deliveryPersonId);
+        TreeMap<Integer, PriorityQueue<Slot>> queuesByCapacity = new TreeMap<>();
+        for (RiderLoad rider : riders) {
+            if (rider.capacity() > 0) {
+                queuesByCapacity.computeIfAbsent(rider.capacity(), capacity -> new PriorityQueue<>(leastLoaded))
+                    .add(new Slot(rider.deliveryPersonId(), rider.capacity(), rider.load()));
+            }
+        }
+
+        List<Dispatch> plan = new ArrayList<>(orders.size());
+        for (PendingOrder order : orders) {
+            PriorityQueue<Slot> bestQueue = null;
+            Slot best = null;
+            for (PriorityQueue<Slot> queue : queuesByCapacity.values()) {
+                Slot head = queue.peek();
+                if (head.capacity - head.load < order.units()) {
+                    continue;
+                }
+                // Compare load ratios without division; capacities are visited smallest first
+                if (best == null || (long) head.load * best.capacity < (long) best.load * head.capacity) {
+                    best = head;
+                    bestQueue = queue;
+                }
+            }
+            if (best == null) {
+                continue;
+            }
+            bestQueue.poll();
+            best.load += order.units();
+            bestQueue.add(best);
+            plan.add(new Dispatch(order.orderId(), best.deliveryPersonId));
+        }
+        return plan;
+    }
+
+    private int capacityOf(DeliveryPerson.VehicleType vehicleType) {
+        if (vehicleType == null) {
+            return 0;
+        }
+        return switch (vehicleType) {
+            case BIKE -> bikeCapacity;
+            case THREEWHEEL -> threewheelCapacity;
+            case LORRY -> lorryCapacity;
+        };
+    }
+
+    // An order counts at least one unit, so orders without lines still take up room
+    private static int units(Object value) {
+        return Math.max(((Number) value).intValue(), 1);
+    }
+
+    // A rider's mutable load while planning
+    private static final class Slot {
+
+        private final Long deliveryPersonId;
+        private final int capacity;
+        private int load;
+
+        private Slot(Long deliveryPersonId, int capacity, int load) {
+            this.deliveryPersonId = deliveryPersonId;
+            this.capacity = capacity;
+            this.load = load;
+        }
+    }
+}
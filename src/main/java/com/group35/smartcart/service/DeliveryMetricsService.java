@@ -0,0 +1,234 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.entity.AssignmentStatus;
+import com.group35.smartcart.entity.DeliveryStats;
+import com.group35.smartcart.entity.DurationStats;
+import com.group35.smartcart.event.DeliveryStatsRecordedEvent;
+import com.group35.smartcart.repository.DeliveryAssignmentRepository;
+import com.group35.smartcart.repository.DeliveryStatsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Service class for delivery performance statistics.
+ * Each delivery person has one delivery_stats row with running aggregates of their pickup and
+ * delivery times, updated in the same transaction as the pickup or delivery and locked while
+ * it is, so reading statistics never scans the assignment history. A missing row is built from
+ * the history once (on first use or by {@link DeliveryStatsBackfillService}). The totals across
+ * riders are kept in memory from {@link DeliveryStatsRecordedEvent}.
+ */
+@Service
+@Transactional
+public class DeliveryMetricsService {
+
+    /**
+     * Summary of one kind of duration, in minutes.
+     *
+     * @param count number of recorded durations
+     * @param averageMinutes mean, null when nothing was recorded
+     * @param p50Minutes median estimate (histogram bucket bound)
+     * @param p90Minutes 90th percentile estimate
+     * @param p95Minutes 95th percentile estimate
+     */
+    public record DurationSummary(long count, Double averageMinutes, Long p50Minutes, Long p90Minutes, Long p95Minutes) {
+
+        public static DurationSummary of(DurationStats stats) {
+            return new DurationSummary(stats.getCount(), stats.getAverageMinutes(),
+                stats.getPercentileMinutes(50), stats.getPercentileMinutes(90), stats.getPercentileMinutes(95));
+        }
+    }
+
+    private final DeliveryStatsRepository deliveryStatsRepository;
+    private final DeliveryAssignmentRepository deliveryAssignmentRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate newTransaction;
+
+    // Guards overall and overallVersions
+    private final ReentrantLock overallLock = new ReentrantLock();
+
+    // Totals across riders, read from the table on first use and then added to after each commit
+    private DeliveryStats overall;
+
+    // Update time of each rider's row as last counted into overall, so a change is never counted twice
+    private final Map<Long, LocalDateTime> overallVersions = new HashMap<>();
+
+    @Autowired
+    public DeliveryMetricsService(DeliveryStatsRepository deliveryStatsRepository,
+                                  DeliveryAssignmentRepository deliveryAssignmentRepository,
+                                  ApplicationEventPublisher eventPublisher,
+                                  PlatformTransactionManager transactionManager) {
+        this.deliveryStatsRepository = deliveryStatsRepository;
+        this.deliveryAssignmentRepository = deliveryAssignmentRepository;
+        this.eventPublisher = eventPublisher;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Records a pickup. Call after the assignment's pickup time is set.
+     *
+     * @param deliveryPersonId the delivery person who picked the order up
+     * @param assignedAt when the assignment was made
+     * @param pickedUpAt when the order was picked up
+     */
+    public void recordPickup(Long deliveryPersonId, LocalDateTime assignedAt, LocalDateTime pickedUpAt) {
+        DeliveryStats stats = lockOrCreate(deliveryPersonId);
+        if (!stats.isBuilt()) {
+            // Built from the history, which already contains this pickup
+            buildFromHistory(stats);
+            return;
+        }
+        if (assignedAt != null && pickedUpAt != null) {
+            DeliveryStats added = new DeliveryStats(null);
+            added.getPickup().record(Duration.between(assignedAt, pickedUpAt));
+            add(stats, added);
+        }
+    }
+
+    /**
+     * Records a delivery. Call after the assignment's delivery time is set.
+     *
+     * @param deliveryPersonId the delivery person who delivered the order
+     * @param assignedAt when the assignment was made
+     * @param pickedUpAt when the order was picked up
+     * @param deliveredAt when the order was delivered
+     */
+    public void recordDelivery(Long deliveryPersonId, LocalDateTime assignedAt, LocalDateTime pickedUpAt,
+                               LocalDateTime deliveredAt) {
+        DeliveryStats stats = lockOrCreate(deliveryPersonId);
+        if (!stats.isBuilt()) {
+            buildFromHistory(stats);
+            return;
+        }
+        DeliveryStats added = new DeliveryStats(null);
+        addDelivery(added, assignedAt, pickedUpAt, deliveredAt);
+        add(stats, added);
+    }
+
+    /**
+     * Returns a delivery person's statistics, building them from the history if they have none yet.
+     *
+     * @param deliveryPersonId the delivery person
+     * @return their statistics
+     */
+    public DeliveryStats getStats(Long deliveryPersonId) {
+        return deliveryStatsRepository.findBuiltById(deliveryPersonId).orElseGet(() -> {
+            DeliveryStats stats = lockOrCreate(deliveryPersonId);
+            if (!stats.isBuilt()) {
+                buildFromHistory(stats);
+            }
+            return stats;
+        });
+    }
+
+    /**
+     * Returns the statistics of all delivery persons added together, from memory after the first call.
+     *
+     * @return the totals; not persisted
+     */
+    @Transactional(readOnly = true)
+    public DeliveryStats getOverallStats() {
+        overallLock.lock();
+        try {
+            if (overall == null) {
+                DeliveryStats loaded = new DeliveryStats(null);
+                for (DeliveryStats stats : deliveryStatsRepository.findAll()) {
+                    loaded.merge(stats);
+                    if (stats.isBuilt()) {
+                        overallVersions.put(stats.getDeliveryPersonId(), stats.getUpdatedAt());
+                    }
+                }
+                overall = loaded;
+            }
+            DeliveryStats copy = new DeliveryStats(null);
+            copy.merge(overall);
+            return copy;
+        } finally {
+            overallLock.unlock();
+        }
+    }
+
+    // Add to the totals after commit so a rolled-back change is never counted; a change the
+    // totals were read with already has a version at least as new and is skipped
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void onStatsRecorded(DeliveryStatsRecordedEvent event) {
+        overallLock.lock();
+        try {
+            if (overall == null) {
+                return;
+            }
+            LocalDateTime counted = overallVersions.get(event.getDeliveryPersonId());
+            if (counted == null || event.getUpdatedAt().isAfter(counted)) {
+                overall.merge(event.getAdded());
+                overallVersions.put(event.getDeliveryPersonId(), event.getUpdatedAt());
+            }
+        } finally {
+            overallLock.unlock();
+        }
+    }
+
+    // Locks the rider's row, first inserting an empty placeholder in its own transaction if there is
+    // none. Two first pickups or deliveries then both lock the one row instead of both inserting it.
+    // The probe does not lock, as locking a missing key would hold a range lock the insert waits on.
+    private DeliveryStats lockOrCreate(Long deliveryPersonId) {
+        if (!deliveryStatsRepository.existsById(deliveryPersonId)) {
+            try {
+                newTransaction.executeWithoutResult(status ->
+                    deliveryStatsRepository.saveAndFlush(DeliveryStats.placeholder(deliveryPersonId)));
+            } catch (DataIntegrityViolationException e) {
+                // Inserted by another transaction meanwhile
+            }
+        }
+        return deliveryStatsRepository.findByIdForUpdate(deliveryPersonId).orElseThrow();
+    }
+
+    // Aggregates the rider's existing pickups and deliveries into their locked placeholder row
+    private void buildFromHistory(DeliveryStats stats) {
+        DeliveryStats added = new DeliveryStats(null);
+        for (Object[] row : deliveryAssignmentRepository.findPickupTimesByDeliveryPersonId(stats.getDeliveryPersonId())) {
+            LocalDateTime assignedAt = (LocalDateTime) row[0];
+            LocalDateTime pickedUpAt = (LocalDateTime) row[1];
+            LocalDateTime deliveredAt = (LocalDateTime) row[2];
+            if (assignedAt != null) {
+                added.getPickup().record(Duration.between(assignedAt, pickedUpAt));
+            }
+            if (row[3] == AssignmentStatus.DELIVERED) {
+                addDelivery(added, assignedAt, pickedUpAt, deliveredAt);
+            }
+        }
+        add(stats, added);
+    }
+
+    private void add(DeliveryStats stats, DeliveryStats added) {
+        stats.merge(added);
+        stats.touch();
+        eventPublisher.publishEvent(new DeliveryStatsRecordedEvent(stats.getDeliveryPersonId(), added, stats.getUpdatedAt()));
+    }
+
+    private static void addDelivery(DeliveryStats stats, LocalDateTime assignedAt, LocalDateTime pickedUpAt,
+                                    LocalDateTime deliveredAt) {
+        if (pickedUpAt == null || deliveredAt == null) {
+            return;
+        }
+        stats.getDelivery().record(Duration.between(pickedUpAt, deliveredAt));
+        if (assignedAt != null) {
+            stats.setAssignedToDeliveredSeconds(stats.getAssignedToDeliveredSeconds()
+                + Math.max(Duration.between(assignedAt, deliveredAt).getSeconds(), 0));
+        }
+    }
+}
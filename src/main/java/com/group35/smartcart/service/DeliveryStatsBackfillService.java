@@ -0,0 +1,43 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.repository.DeliveryStatsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Builds the delivery_stats row of every delivery person that has none yet from their
+ * assignment history, one short transaction per delivery person, so statistics are served
+ * from the table from startup on. Riders added later get theirs on first use.
+ */
+@Service
+public class DeliveryStatsBackfillService implements CommandLineRunner {
+
+    private final DeliveryStatsRepository deliveryStatsRepository;
+    private final DeliveryMetricsService deliveryMetricsService;
+
+    @Autowired
+    public DeliveryStatsBackfillService(DeliveryStatsRepository deliveryStatsRepository,
+                                        DeliveryMetricsService deliveryMetricsService) {
+        this.deliveryStatsRepository = deliveryStatsRepository;
+        this.deliveryMetricsService = deliveryMetricsService;
+    }
+
+    @Override
+    public void run(String... args) {
+        int built = 0;
+        for (Long deliveryPersonId : deliveryStatsRepository.findDeliveryPersonIdsWithoutStats()) {
+            try {
+                deliveryMetricsService.getStats(deliveryPersonId);
+                built++;
+            } catch (DataIntegrityViolationException e) {
+                // A pickup or delivery built the row meanwhile
+            }
+        }
+
+        if (built > 0) {
+            System.out.println("Built delivery statistics for " + built + " delivery persons");
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.entity.Bill;
+import com.group35.smartcart.entity.CustomerPayment;
+import com.group35.smartcart.entity.Order;
+import com.group35.smartcart.entity.OrderItem;
+import com.group35.smartcart.entity.Product;
+import com.group35.smartcart.event.BillCreatedEvent;
+import com.group35.smartcart.event.OrderChangedEvent;
+import com.group35.smartcart.event.ProductChangedEvent;
+import com.group35.smartcart.repository.BillRepository;
+import com.group35.smartcart.repository.CustomerPaymentRepository;
+import com.group35.smartcart.repository.OrderItemRepository;
+import com.group35.smartcart.repository.OrderRepository;
+import com.group35.smartcart.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Service class for cashier status changes on orders.
+ * Approval validates stock, decrements it, generates the bill and updates the status
+ * in a single transaction, so any failure rolls every step back.
+ */
+@Service
+@Transactional
+public class OrderApprovalService {
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final ProductRepository productRepository;
+    private final CustomerPaymentRepository customerPaymentRepository;
+    private final BillRepository billRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public OrderApprovalService(OrderRepository orderRepository,
+                                OrderItemRepository orderItemRepository,
+                                ProductRepository productRepository,
+                                CustomerPaymentRepository customerPaymentRepository,
+                                BillRepository billRepository,
+                                ApplicationEventPublisher eventPublisher) {
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.productRepository = productRepository;
+        this.customerPaymentRepository = customerPaymentRepository;
+        this.billRepository = billRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Changes the status of an order. Approving an order also reduces stock and generates its bill.
+     * The order row is locked for the duration of the transaction so two cashiers cannot approve
+     * the same order twice.
+     *
+     * @param paymentId the order ID
+     * @param status the new status (PENDING, APPROVED or DECLINED)
+     * @return the updated order
+     * @throws IllegalArgumentException if the order does not exist
+     * @throws IllegalStateException if approval fails; nothing is written in that case
+     */
+    public Order updateOrderStatus(Long paymentId, String status) {
+        Order order = orderRepository.findByIdForUpdate(paymentId)
+            .orElseThrow(() -> new IllegalArgumentException("Payment not found"));
+
+        if ("APPROVED".equals(status)) {
+            if ("APPROVED".equals(order.getOrderStatus())) {
+                throw new IllegalStateException("Payment is already approved");
+            }
+
+            List<OrderItem> items = orderItemRepository.findWithProductByOrderId(order.getPaymentId());
+
+            // Stock validation: If any product has insufficient stock, prevent approval
+            String stockValidationResult = validateStockAvailability(items);
+            if (stockValidationResult != null) {
+                throw new IllegalStateException(stockValidationResult);
+            }
+
+            reduceStockQuantities(items);
+            generateBill(order, items);
+        }
+
+        order.setOrderStatus(status);
+        order.setUpdatedAt(LocalDateTime.now());
+        Order savedOrder = orderRepository.save(order);
+        eventPublisher.publishEvent(new OrderChangedEvent(OrderChangedEvent.Type.STATUS_CHANGED, paymentId));
+        return savedOrder;
+    }
+
+    /**
+     * Validates stock availability for all products in an order
+     * @param items The order's items with their products loaded
+     * @return null if validation passes, error message if validation fails
+     */
+    @Transactional(readOnly = true)
+    public String validateStockAvailability(List<OrderItem> items) {
+        if (items.isEmpty()) {
+            return "Invalid order data";
+        }
+
+        for (OrderItem item : items) {
+            Product product = item.getProduct();
+            int requestedQuantity = item.getQuantity();
+            if (product.getStockQuantity() == null || product.getStockQuantity() <= 0) {
+                return "Cannot approve payment: Product '" + product.getName() + "' is out of stock (quantity: 0)";
+            }
+            if (product.getStockQuantity() < requestedQuantity) {
+                return "Cannot approve payment: Insufficient stock for product '" + product.getName() +
+                       "' (requested: " + requestedQuantity + ", available: " + product.getStockQuantity() + ")";
+            }
+        }
+
+        return null; // Validation passed
+    }
+
+    /**
+     * Reduces stock for every item with a conditional UPDATE, one statement per product.
+     * The validation above may be stale by now; the affected row count is authoritative.
+     */
+    private void reduceStockQuantities(List<OrderItem> items) {
+        // Decrement in product ID order so concurrent approvals lock rows in the same sequence
+        List<OrderItem> sorted = new ArrayList<>(items);
+        sorted.sort(Comparator.comparing(item -> item.getProduct().getId()));
+
+        for (OrderItem item : sorted) {
+            Product product = item.getProduct();
+            int updated = productRepository.decrementStock(product.getId(), item.getQuantity());
+            if (updated == 0) {
+                throw new IllegalStateException("Failed to update stock: Insufficient stock for product '" +
+                    product.getName() + "' (requested: " + item.getQuantity() + ")");
+            }
+        }
+
+        // Bulk updates bypass entity listeners, so announce the stock change explicitly
+        eventPublisher.publishEvent(new ProductChangedEvent(
+            sorted.stream().map(item -> item.getProduct().getId()).toList()));
+    }
+
+    /**
+     * Generates a bill for an approved order unless one already exists
+     */
+    private void generateBill(Order order, List<OrderItem> items) {
+        // Check if bill already exists for this payment
+        if (billRepository.existsByPaymentId(order.getPaymentId())) {
+            return;
+        }
+
+        // Get customer payment details
+        Optional<CustomerPayment> customerPaymentOpt = customerPaymentRepository
+            .findFirstByUsernameAndIsActiveTrueOrderByUpdatedAtDescIdDesc(order.getUsername());
+        if (customerPaymentOpt.isEmpty()) {
+            throw new IllegalStateException("Failed to generate bill: Customer payment details not found");
+        }
+
+        CustomerPayment customerPayment = customerPaymentOpt.get();
+
+        String productNames = items.stream()
+            .map(OrderItem::getProductName)
+            .collect(Collectors.joining(", "));
+        String productQuantities = items.stream()
+            .map(item -> String.valueOf(item.getQuantity()))
+            .collect(Collectors.joining(","));
+
+        Bill bill = new Bill(
+            order.getPaymentId(),
+            order.getPaymentId(), // Using paymentId as orderId since they're the same
+            order.getUsername(),
+            productNames,
+            productQuantities,
+            order.getSubtotal(),
+            order.getSubtotal(), // Total is same as subtotal for now
+            customerPayment.getBankName(),
+            customerPayment.getAccountNumber()
+        );
+
+        Bill savedBill = billRepository.save(bill);
+        eventPublisher.publishEvent(new BillCreatedEvent(savedBill.getId()));
+    }
+}
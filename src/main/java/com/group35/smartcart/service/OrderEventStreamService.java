@@ -0,0 +1,252 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.config.WorkerThreads;
+import com.group35.smartcart.event.OrderChangedEvent;
+import com.group35.smartcart.repository.OrderRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes order changes to open cashier dashboards over server-sent events.
+ * An open stream is only an async servlet request parked in the container, so idle
+ * dashboards hold no threads. Each change is turned into one payload (the updated payment
+ * card and the new order summary) on a single dispatcher thread, after the change has
+ * committed, and put on every subscriber's own bounded queue; request threads only enqueue
+ * the event. Queues are written out by a fixed pool of sender threads, one task per subscriber
+ * with events, which hands its thread back after a queue's worth so busy dashboards take turns.
+ * A dashboard that falls a full queue behind is disconnected (its browser reconnects and
+ * reloads), so a stalled connection costs at most one sender until the container's write
+ * times out, never memory or a thread per event.
+ */
+@Service
+public class OrderEventStreamService {
+
+    private static final long HEARTBEAT_SECONDS = 25;
+
+    private final OrderRepository orderRepository;
+    private final PaymentFeedService paymentFeedService;
+    private final OrderSummaryService orderSummaryService;
+    private final long streamTimeoutMillis;
+    private final int queueSize;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private final ScheduledExecutorService dispatcher;
+    private final ExecutorService senders;
+
+    @Autowired
+    public OrderEventStreamService(OrderRepository orderRepository,
+                                   PaymentFeedService paymentFeedService,
+                                   OrderSummaryService orderSummaryService,
+                                   @Value("${smartcart.orders.event-stream-timeout-ms:1800000}") long streamTimeoutMillis,
+                                   @Value("${smartcart.orders.event-stream-queue-size:16}") int queueSize,
+                                   @Value("${smartcart.orders.event-stream-senders:4}") int senderThreads,
+                                   WorkerThreads workerThreads) {
+        this.orderRepository = orderRepository;
+        this.paymentFeedService = paymentFeedService;
+        this.orderSummaryService = orderSummaryService;
+        this.streamTimeoutMillis = streamTimeoutMillis;
+        this.queueSize = queueSize;
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(workerThreads.factory("order-event-stream"));
+        // Each subscriber has at most one task queued or running, so the task queue is bounded by subscribers
+        this.senders = Executors.newFixedThreadPool(senderThreads, workerThreads.factory("order-event-send"));
+
+        // Comments keep proxies from closing idle streams and reveal dashboards that went away
+        dispatcher.scheduleWithFixedDelay(this::sendHeartbeat, HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Opens a stream for one dashboard. The browser reconnects on its own when it times out.
+     *
+     * @return the emitter to return from the controller
+     */
+    public SseEmitter subscribe() {
+        return subscribe(new SseEmitter(streamTimeoutMillis));
+    }
+
+    // Registers an emitter created by the caller
+    SseEmitter subscribe(SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter, new ArrayBlockingQueue<>(queueSize));
+        emitter.onCompletion(subscriber::discard);
+        emitter.onTimeout(subscriber::discard);
+        emitter.onError(error -> subscriber.discard());
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        dispatcher.execute(() -> {
+            try {
+                broadcast(SseEmitter.event()
+                    .name("order")
+                    .data(buildPayload(event), MediaType.APPLICATION_JSON)
+                    .build());
+            } catch (Exception e) {
+                // Dashboards resynchronise on their next reload
+                e.printStackTrace();
+            }
+        });
+    }
+
+    private Map<String, Object> buildPayload(OrderChangedEvent event) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("type", event.getType().name());
+        payload.put("paymentId", event.getPaymentId());
+        if (event.getType() != OrderChangedEvent.Type.DELETED) {
+            orderRepository.findById(event.getPaymentId())
+                .map(order -> paymentFeedService.buildPaymentCards(List.of(order)).get(0))
+                .ifPresent(card -> payload.put("payment", card));
+        }
+        if (event.getType() == OrderChangedEvent.Type.STATUS_CHANGED && payload.get("payment") instanceof Map<?, ?> approved
+                && "APPROVED".equals(approved.get("orderStatus"))) {
+            // The approval took stock; dashboards re-check only the pending orders of these products
+            payload.put("stockLevels", stockLevels(approved));
+        }
+        payload.put("summary", orderSummaryService.getSummary());
+        return payload;
+    }
+
+    // Product ID to its stock after the change, read from the card's freshly loaded items
+    private static Map<Object, Object> stockLevels(Map<?, ?> card) {
+        Map<Object, Object> stockLevels = new HashMap<>();
+        if (card.get("items") instanceof List<?> items) {
+            for (Object item : items) {
+                Map<?, ?> line = (Map<?, ?>) item;
+                stockLevels.put(line.get("productId"), line.get("stockQuantity"));
+            }
+        }
+        return stockLevels;
+    }
+
+    // The event is built once; the built parts are immutable and shared by all subscribers
+    private void broadcast(Set<DataWithMediaType> event) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.enqueue(event);
+        }
+    }
+
+    private void sendHeartbeat() {
+        broadcast(SseEmitter.event().comment("heartbeat").build());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close();
+        }
+        senders.shutdown();
+    }
+
+    // One dashboard: its pending events, and whether a sender thread currently owns its emitter
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<DataWithMediaType>> queue;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter, BlockingQueue<Set<DataWithMediaType>> queue) {
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+
+        void enqueue(Set<DataWithMediaType> event) {
+            if (closed.get()) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                // A full queue behind: the connection is stalled or too slow to keep up
+                close();
+                return;
+            }
+            if (sending.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        // Stops delivery and completes the emitter from a sender thread, never the caller's
+        void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            subscribers.remove(this);
+            queue.clear();
+            if (sending.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        // The container already completed the stream
+        void discard() {
+            closed.set(true);
+            subscribers.remove(this);
+            queue.clear();
+        }
+
+        // Runs while this subscriber owns a sender task; once closed, sending is never released
+        private void drain() {
+            IOException failure = null;
+            try {
+                Set<DataWithMediaType> event;
+                int sent = 0;
+                while (!closed.get() && sent++ < queueSize && (event = queue.poll()) != null) {
+                    emitter.send(event);
+                }
+            } catch (IOException e) {
+                failure = e;
+            } catch (IllegalStateException e) {
+                // Already completed by the container
+                discard();
+            }
+            if (failure != null) {
+                // The dashboard disconnected
+                discard();
+                emitter.completeWithError(failure);
+                return;
+            }
+            if (closed.get()) {
+                emitter.complete();
+                return;
+            }
+            if (!queue.isEmpty()) {
+                // Still behind after a queue's worth: go to the back so other subscribers get the thread
+                senders.execute(this::drain);
+                return;
+            }
+            sending.set(false);
+            // An event enqueued after the last poll found sending still set
+            if (!queue.isEmpty() && sending.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.repository.OrderRepository;
+import com.group35.smartcart.service.ProductCatalogService.CatalogSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read model for the customer order history page.
+ * A page costs one query whatever its size: the order columns the page shows with the page's
+ * item lines joined in, the page itself chosen on order ids from the (username, created_at) index.
+ * Product names and stock come from the in-memory catalog snapshot, not the database.
+ */
+@Service
+@Transactional(readOnly = true)
+public class OrderHistoryService {
+
+    public static final int DEFAULT_PAGE_SIZE = 10;
+    public static final int MAX_PAGE_SIZE = 50;
+
+    private final OrderRepository orderRepository;
+    private final ProductCatalogService productCatalogService;
+
+    @Autowired
+    public OrderHistoryService(OrderRepository orderRepository,
+                               ProductCatalogService productCatalogService) {
+        this.orderRepository = orderRepository;
+        this.productCatalogService = productCatalogService;
+    }
+
+    /**
+     * Returns one page of a customer's orders, newest first.
+     *
+     * @param username the customer
+     * @param page zero-based page number; negative values are treated as 0
+     * @param size page size, clamped to 1..MAX_PAGE_SIZE
+     * @return the page
+     */
+    public HistoryPage getPage(String username, int page, int size) {
+        int pageNumber = Math.max(page, 0);
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+
+        // Page numbers far past the end read nothing rather than overflow
+        int offset = (int) Math.min((long) pageNumber * pageSize, Integer.MAX_VALUE);
+        List<Object[]> rows = orderRepository.findHistoryPageWithLines(username, offset, pageSize + 1);
+
+        Map<Long, Entry> entries = new LinkedHashMap<>();
+        boolean hasNext = false;
+        CatalogSnapshot catalog = rows.isEmpty() ? null : productCatalogService.getSnapshot();
+        for (Object[] row : rows) {
+            Long paymentId = (Long) row[0];
+            Entry entry = entries.get(paymentId);
+            if (entry == null) {
+                if (entries.size() == pageSize) {
+                    // The order read past the page, whose lines are the last rows
+                    hasNext = true;
+                    break;
+                }
+                entry = new Entry(paymentId, (LocalDateTime) row[1], (String) row[2], (BigDecimal) row[3],
+                    (String) row[4]);
+                entries.put(paymentId, entry);
+            }
+            if (row[5] != null) {
+                entry.addLine(catalog, (Long) row[5], (Integer) row[6]);
+            }
+        }
+
+        return new HistoryPage(List.copyOf(entries.values()), pageNumber, hasNext);
+    }
+
+    /**
+     * One page of order history.
+     */
+    public static final class HistoryPage {
+
+        private final List<Entry> orders;
+        private final int page;
+        private final boolean hasNext;
+
+        HistoryPage(List<Entry> orders, int page, boolean hasNext) {
+            this.orders = orders;
+            this.page = page;
+            this.hasNext = hasNext;
+        }
+
+        public List<Entry> getOrders() {
+            return orders;
+        }
+
+        public int getPage() {
+            return page;
+        }
+
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        public boolean hasPrevious() {
+            return page > 0;
+        }
+    }
+
+    /**
+     * One order in the history, with its products summarized for display.
+     */
+    public static final class Entry {
+
+        private final Long paymentId;
+        private final LocalDateTime createdAt;
+        private final String orderStatus;
+        private final BigDecimal subtotal;
+        private final String payslipLocationPath;
+        private final List<String> productNames = new ArrayList<>();
+        private final List<String> quantities = new ArrayList<>();
+
+        Entry(Long paymentId, LocalDateTime createdAt, String orderStatus, BigDecimal subtotal,
+              String payslipLocationPath) {
+            this.paymentId = paymentId;
+            this.createdAt = createdAt;
+            this.orderStatus = orderStatus;
+            this.subtotal = subtotal;
+            this.payslipLocationPath = payslipLocationPath;
+        }
+
+        private void addLine(CatalogSnapshot catalog, Long productId, Integer quantity) {
+            productNames.add(catalog.findById(productId)
+                .map(product -> product.getName() + " (Stock: "
+                    + (product.getStockQuantity() != null ? product.getStockQuantity() : 0) + ")")
+                .orElse("Product #" + productId));
+            quantities.add(String.valueOf(quantity));
+        }
+
+        public Long getPaymentId() {
+            return paymentId;
+        }
+
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        public String getOrderStatus() {
+            return orderStatus;
+        }
+
+        public BigDecimal getSubtotal() {
+            return subtotal;
+        }
+
+        public String getPayslipLocationPath() {
+            return payslipLocationPath;
+        }
+
+        // Product names with stock information, e.g. "Milk (Stock: 4), Bread (Stock: 0)"
+        public String getProductSummary() {
+            return productNames.isEmpty() ? "No products" : String.join(", ", productNames);
+        }
+
+        public String getProductQuantities() {
+            return String.join(",", quantities);
+        }
+    }
+}
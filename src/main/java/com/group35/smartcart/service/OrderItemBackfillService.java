@@ -0,0 +1,134 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.entity.Order;
+import com.group35.smartcart.entity.OrderItem;
+import com.group35.smartcart.entity.Product;
+import com.group35.smartcart.repository.OrderItemRepository;
+import com.group35.smartcart.repository.OrderRepository;
+import com.group35.smartcart.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Backfills the order_items table from the legacy comma-separated
+ * productIds/productQuantities columns of orders placed before it existed.
+ * Orders are streamed in payment ID order, one short transaction per batch,
+ * so memory use does not depend on the size of the order history.
+ */
+@Service
+public class OrderItemBackfillService implements CommandLineRunner {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public OrderItemBackfillService(OrderRepository orderRepository,
+                                    ProductRepository productRepository,
+                                    OrderItemRepository orderItemRepository,
+                                    PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void run(String... args) {
+        long cursor = 0L;
+        int migratedOrders = 0;
+        int skippedOrders = 0;
+
+        while (true) {
+            final long after = cursor;
+            BatchResult result = transactionTemplate.execute(status -> backfillBatch(after));
+            if (result == null || result.lastPaymentId == null) {
+                break;
+            }
+            cursor = result.lastPaymentId;
+            migratedOrders += result.migratedOrders;
+            skippedOrders += result.skippedOrders;
+        }
+
+        if (migratedOrders > 0 || skippedOrders > 0) {
+            System.out.println("Backfilled order items for " + migratedOrders + " orders (" +
+                skippedOrders + " orders skipped due to invalid or unknown products)");
+        }
+    }
+
+    private BatchResult backfillBatch(long afterPaymentId) {
+        List<Order> orders = orderRepository.findWithoutItemsAfter(afterPaymentId, PageRequest.of(0, BATCH_SIZE));
+        BatchResult result = new BatchResult();
+        if (orders.isEmpty()) {
+            return result;
+        }
+
+        // Parse every order of the batch first so all products resolve in one query
+        Map<Long, Map<Long, Integer>> parsedByOrderId = new HashMap<>();
+        Set<Long> productIds = new HashSet<>();
+        for (Order order : orders) {
+            try {
+                Map<Long, Integer> parsed = order.parseLegacyItems();
+                parsedByOrderId.put(order.getPaymentId(), parsed);
+                productIds.addAll(parsed.keySet());
+            } catch (IllegalArgumentException e) {
+                result.skippedOrders++;
+            }
+        }
+
+        Map<Long, Product> productsById = new HashMap<>();
+        for (Product product : productRepository.findAllById(productIds)) {
+            productsById.put(product.getId(), product);
+        }
+
+        List<OrderItem> items = new ArrayList<>();
+        for (Order order : orders) {
+            Map<Long, Integer> parsed = parsedByOrderId.get(order.getPaymentId());
+            if (parsed == null) {
+                continue;
+            }
+
+            List<OrderItem> orderItems = new ArrayList<>(parsed.size());
+            for (Map.Entry<Long, Integer> entry : parsed.entrySet()) {
+                Product product = productsById.get(entry.getKey());
+                if (product == null || entry.getValue() < 1) {
+                    orderItems = null;
+                    break;
+                }
+                // The historical price was never stored, so the current catalog price is the best available
+                orderItems.add(new OrderItem(order, product, entry.getValue(), product.getPrice()));
+            }
+
+            if (orderItems == null) {
+                result.skippedOrders++;
+            } else {
+                items.addAll(orderItems);
+                result.migratedOrders++;
+            }
+        }
+
+        orderItemRepository.saveAll(items);
+        result.lastPaymentId = orders.get(orders.size() - 1).getPaymentId();
+        return result;
+    }
+
+    private static final class BatchResult {
+        private Long lastPaymentId;
+        private int migratedOrders;
+        private int skippedOrders;
+    }
+}
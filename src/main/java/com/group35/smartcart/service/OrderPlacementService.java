@@ -0,0 +1,118 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.entity.CustomerPayment;
+import com.group35.smartcart.entity.Order;
+import com.group35.smartcart.repository.CustomerPaymentRepository;
+import com.group35.smartcart.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Service class for customer checkout.
+ * Placing an order saves the payment details and the order in one transaction. Payment details
+ * are kept as one row per (username, bank, account) that is reused by later orders. A checkout
+ * request may carry an idempotency key; replaying it (a double click, a retried request)
+ * returns the order the first request placed and writes nothing.
+ */
+@Service
+@Transactional
+public class OrderPlacementService {
+
+    public static final int MAX_IDEMPOTENCY_KEY_LENGTH = 64;
+
+    /**
+     * Outcome of a checkout request.
+     *
+     * @param order the placed order, or the one placed earlier under the same idempotency key
+     * @param replayed whether the request was a replay and nothing was written
+     */
+    public record Placement(Order order, boolean replayed) {
+    }
+
+    private final OrderRepository orderRepository;
+    private final CustomerPaymentRepository customerPaymentRepository;
+    private final OrderService orderService;
+
+    @Autowired
+    public OrderPlacementService(OrderRepository orderRepository,
+                                CustomerPaymentRepository customerPaymentRepository,
+                                OrderService orderService) {
+        this.orderRepository = orderRepository;
+        this.customerPaymentRepository = customerPaymentRepository;
+        this.orderService = orderService;
+    }
+
+    /**
+     * Finds the order a checkout request with this key already placed.
+     *
+     * @param username the customer
+     * @param idempotencyKey the request's key, may be null
+     * @return the order, or empty when there is no key or nothing was placed under it
+     */
+    @Transactional(readOnly = true)
+    public Optional<Order> findPlacedOrder(String username, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return Optional.empty();
+        }
+        return orderRepository.findByUsernameAndIdempotencyKey(username, idempotencyKey);
+    }
+
+    /**
+     * Places an order together with its payment details.
+     *
+     * @param order the new order (username, legacy product lists and payslip path)
+     * @param paymentDetails the payment details entered at checkout
+     * @param idempotencyKey the request's key, or null for a request that is not deduplicated
+     * @return the placed order, or the order placed earlier under the same key
+     * @throws IllegalArgumentException if the key is too long or the order's products are invalid
+     */
+    public Placement placeOrder(Order order, CustomerPayment paymentDetails, String idempotencyKey) {
+        if (idempotencyKey != null && idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency key must not exceed " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+        }
+
+        Optional<Order> placed = findPlacedOrder(order.getUsername(), idempotencyKey);
+        if (placed.isPresent()) {
+            return new Placement(placed.get(), true);
+        }
+
+        savePaymentDetails(paymentDetails);
+        order.setIdempotencyKey(idempotencyKey);
+        return new Placement(orderService.createOrderWithItems(order), false);
+    }
+
+    /**
+     * Saves payment details, reusing the customer's existing row for the same bank and account.
+     * Nothing is written when that row is already the customer's most recently used one;
+     * otherwise it is marked as used now, so bills pick these details.
+     *
+     * @param paymentDetails the details as entered (not yet persisted)
+     * @return the stored row
+     */
+    public CustomerPayment savePaymentDetails(CustomerPayment paymentDetails) {
+        Optional<CustomerPayment> existing = customerPaymentRepository
+            .findFirstByUsernameAndBankNameAndAccountNumberAndIsActiveTrueOrderByIdDesc(
+                paymentDetails.getUsername(), paymentDetails.getBankName(), paymentDetails.getAccountNumber());
+        if (existing.isEmpty()) {
+            return customerPaymentRepository.save(paymentDetails);
+        }
+
+        CustomerPayment stored = existing.get();
+        boolean holderChanged = !Objects.equals(stored.getAccountHolderName(), paymentDetails.getAccountHolderName());
+        boolean latest = customerPaymentRepository
+            .findFirstByUsernameAndIsActiveTrueOrderByUpdatedAtDescIdDesc(stored.getUsername())
+            .map(current -> current.getId().equals(stored.getId()))
+            .orElse(false);
+
+        if (holderChanged || !latest) {
+            stored.setAccountHolderName(paymentDetails.getAccountHolderName());
+            stored.setUpdatedAt(LocalDateTime.now());
+        }
+        return stored;
+    }
+}
@@ -1,12 +1,21 @@
 package com.group35.smartcart.service;
 
 import com.group35.smartcart.entity.Order;
+import com.group35.smartcart.entity.OrderItem;
+import com.group35.smartcart.entity.Product;
+import com.group35.smartcart.event.DeliveryAssignmentChangedEvent;
+import com.group35.smartcart.event.DeliveryAssignmentChangedEvent.Transition;
+import com.group35.smartcart.event.OrderChangedEvent;
+import com.group35.smartcart.repository.OrderItemRepository;
 import com.group35.smartcart.repository.OrderRepository;
 import com.group35.smartcart.repository.DeliveryAssignmentRepository;
+import com.group35.smartcart.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,11 +31,19 @@ public class OrderService {
 
     private final OrderRepository orderRepository;
     private final DeliveryAssignmentRepository deliveryAssignmentRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public OrderService(OrderRepository orderRepository, DeliveryAssignmentRepository deliveryAssignmentRepository) {
+    public OrderService(OrderRepository orderRepository, DeliveryAssignmentRepository deliveryAssignmentRepository,
+                        OrderItemRepository orderItemRepository, ProductRepository productRepository,
+                        ApplicationEventPublisher eventPublisher) {
         this.orderRepository = orderRepository;
         this.deliveryAssignmentRepository = deliveryAssignmentRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -82,6 +99,55 @@ public class OrderService {
         return orderRepository.save(order);
     }
 
+    /**
+     * Saves a new order together with its normalized order items.
+     * The items are derived from the order's productIds/productQuantities and
+     * capture each product's price at the time of purchase; the order subtotal
+     * is recomputed from those prices.
+     * 
+     * @param order the new order
+     * @return the saved order
+     * @throws IllegalArgumentException if the product list is malformed or references unknown products
+     */
+    public Order createOrderWithItems(Order order) {
+        Map<Long, Integer> quantities = order.parseLegacyItems();
+        
+        Map<Long, Product> productsById = new HashMap<>();
+        for (Product product : productRepository.findAllById(quantities.keySet())) {
+            productsById.put(product.getId(), product);
+        }
+        
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            Product product = productsById.get(entry.getKey());
+            if (product == null) {
+                throw new IllegalArgumentException("Product with ID " + entry.getKey() + " not found");
+            }
+            if (entry.getValue() < 1) {
+                throw new IllegalArgumentException("Invalid quantity for product: " + product.getName());
+            }
+            order.addItem(new OrderItem(order, product, entry.getValue(), product.getPrice()));
+        }
+        
+        order.setSubtotal(order.getItems().stream()
+            .map(OrderItem::getLineTotal)
+            .reduce(BigDecimal.ZERO, BigDecimal::add));
+        
+        Order savedOrder = orderRepository.save(order);
+        eventPublisher.publishEvent(new OrderChangedEvent(OrderChangedEvent.Type.CREATED, savedOrder.getPaymentId()));
+        return savedOrder;
+    }
+
+    /**
+     * Retrieves the items of an order with their products loaded in a single join.
+     * 
+     * @param orderId the order ID
+     * @return List of order items, in the order they were placed
+     */
+    @Transactional(readOnly = true)
+    public List<OrderItem> getOrderItems(Long orderId) {
+        return orderItemRepository.findWithProductByOrderId(orderId);
+    }
+
     /**
      * Deletes an order by its ID.
      * Also handles deletion of related delivery assignments to avoid foreign key constraint violations.
@@ -94,11 +160,15 @@ public class OrderService {
             deliveryAssignmentRepository.findByOrderPaymentId(id);
         if (assignmentOpt.isPresent()) {
             // Delete the delivery assignment first to avoid foreign key constraint violation
-            deliveryAssignmentRepository.delete(assignmentOpt.get());
+            com.group35.smartcart.entity.DeliveryAssignment assignment = assignmentOpt.get();
+            deliveryAssignmentRepository.delete(assignment);
+            eventPublisher.publishEvent(new DeliveryAssignmentChangedEvent(Transition.removed(
+                assignment.getDeliveryPerson().getId(), assignment.getStatus(), assignment.getDeliveredAt())));
         }
         
         // Now delete the order
         orderRepository.deleteById(id);
+        eventPublisher.publishEvent(new OrderChangedEvent(OrderChangedEvent.Type.DELETED, id));
     }
 
     /**
@@ -145,30 +215,50 @@ public class OrderService {
     }
 
     /**
-     * Gets order summary statistics for dashboard display.
+     * Gets order summary statistics for dashboard display, from a single grouped query.
      * 
-     * @return Map containing total, pending, and approved order counts
+     * @return Map containing total, pending, approved and declined order counts
+     *         and the revenue (sum of subtotals) of each
      */
     @Transactional(readOnly = true)
-    public Map<String, Long> getOrderSummary() {
-        Map<String, Long> summary = new HashMap<>();
-        
-        // Get total orders count
-        long totalOrders = orderRepository.count();
-        summary.put("totalOrders", totalOrders);
-        
-        // Get pending orders count
-        long pendingOrders = orderRepository.countByOrderStatus("PENDING");
-        summary.put("pendingOrders", pendingOrders);
+    public Map<String, Object> getOrderSummary() {
+        long totalOrders = 0;
+        BigDecimal totalRevenue = BigDecimal.ZERO;
+        Map<String, Long> counts = new HashMap<>();
+        Map<String, BigDecimal> revenues = new HashMap<>();
         
-        // Get approved orders count
-        long approvedOrders = orderRepository.countByOrderStatus("APPROVED");
-        summary.put("approvedOrders", approvedOrders);
+        for (Object[] row : orderRepository.summarizeByStatus()) {
+            String status = (String) row[0];
+            long count = ((Number) row[1]).longValue();
+            BigDecimal revenue = toBigDecimal(row[2]);
+            
+            totalOrders += count;
+            totalRevenue = totalRevenue.add(revenue);
+            if (status != null) {
+                counts.merge(status, count, Long::sum);
+                revenues.merge(status, revenue, BigDecimal::add);
+            }
+        }
         
-        // Get declined orders count (optional for completeness)
-        long declinedOrders = orderRepository.countByOrderStatus("DECLINED");
-        summary.put("declinedOrders", declinedOrders);
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("totalOrders", totalOrders);
+        summary.put("totalRevenue", totalRevenue);
+        for (String status : new String[] {"PENDING", "APPROVED", "DECLINED"}) {
+            String key = status.toLowerCase();
+            summary.put(key + "Orders", counts.getOrDefault(status, 0L));
+            summary.put(key + "Revenue", revenues.getOrDefault(status, BigDecimal.ZERO));
+        }
         
         return summary;
     }
-}
\ No newline at end of file
+    
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        if (value instanceof BigDecimal decimal) {
+            return decimal;
+        }
+        return new BigDecimal(value.toString());
+    }
+}
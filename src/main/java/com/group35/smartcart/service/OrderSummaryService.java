@@ -0,0 +1,119 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.event.OrderChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short-lived cache of the order summary shown on the cashier dashboard.
+ * Every open dashboard polls the summary, so it is kept for a short TTL, and concurrent
+ * requests that find it expired wait for a single load instead of each querying the
+ * database (single flight). OrderChangedEvents invalidate it so the next poll is exact.
+ */
+@Service
+public class OrderSummaryService {
+
+    private final OrderService orderService;
+    private final long ttlNanos;
+
+    private final Object lock = new Object();
+    private Map<String, Object> cached;
+    private long cachedAt;
+    private CompletableFuture<Map<String, Object>> inFlight;
+    // Bumped on invalidation so a load that started before it is not cached
+    private long generation;
+
+    @Autowired
+    public OrderSummaryService(OrderService orderService,
+                               @Value("${smartcart.orders.summary-ttl-ms:2000}") long ttlMillis) {
+        this.orderService = orderService;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    /**
+     * Returns the order summary, from the cache while it is fresh.
+     *
+     * @return unmodifiable map of order counts and revenue per status (see OrderService.getOrderSummary)
+     */
+    public Map<String, Object> getSummary() {
+        CompletableFuture<Map<String, Object>> load;
+        long loadGeneration;
+        boolean leader = false;
+
+        synchronized (lock) {
+            if (cached != null && System.nanoTime() - cachedAt < ttlNanos) {
+                return cached;
+            }
+            if (inFlight == null) {
+                inFlight = new CompletableFuture<>();
+                leader = true;
+            }
+            load = inFlight;
+            loadGeneration = generation;
+        }
+
+        if (leader) {
+            try {
+                Map<String, Object> summary = Collections.unmodifiableMap(orderService.getOrderSummary());
+                synchronized (lock) {
+                    if (generation == loadGeneration) {
+                        cached = summary;
+                        cachedAt = System.nanoTime();
+                    }
+                    if (inFlight == load) {
+                        inFlight = null;
+                    }
+                }
+                load.complete(summary);
+                return summary;
+            } catch (RuntimeException e) {
+                synchronized (lock) {
+                    if (inFlight == load) {
+                        inFlight = null;
+                    }
+                }
+                load.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Orders were placed, approved, declined or deleted; runs after the change has committed,
+    // ahead of other listeners so the dashboard event stream sends the new summary
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        invalidate();
+    }
+
+    /**
+     * Drops the cached summary so the next request reloads it.
+     */
+    public void invalidate() {
+        synchronized (lock) {
+            generation++;
+            cached = null;
+            // Later callers start a fresh load rather than joining one that may miss the change
+            inFlight = null;
+        }
+    }
+}
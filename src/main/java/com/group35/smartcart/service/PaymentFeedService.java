@@ -0,0 +1,248 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.entity.Bill;
+import com.group35.smartcart.entity.CustomerPayment;
+import com.group35.smartcart.entity.Order;
+import com.group35.smartcart.entity.OrderItem;
+import com.group35.smartcart.entity.Product;
+import com.group35.smartcart.repository.BillRepository;
+import com.group35.smartcart.repository.CustomerPaymentRepository;
+import com.group35.smartcart.repository.OrderItemRepository;
+import com.group35.smartcart.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read model for the cashier payment feed.
+ * Loads the order items (joined with their products), latest payment details and bills
+ * referenced by a page of orders with one set-based query each and assembles the cards in memory.
+ */
+@Service
+@Transactional(readOnly = true)
+public class PaymentFeedService {
+
+    // SQL Server rejects statements with more than 2100 parameters, so IN lists are chunked
+    private static final int IN_CLAUSE_BATCH_SIZE = 1000;
+
+    public static final int DEFAULT_PAGE_SIZE = 24;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final CustomerPaymentRepository customerPaymentRepository;
+    private final BillRepository billRepository;
+
+    @Autowired
+    public PaymentFeedService(OrderRepository orderRepository,
+                              OrderItemRepository orderItemRepository,
+                              CustomerPaymentRepository customerPaymentRepository,
+                              BillRepository billRepository) {
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.customerPaymentRepository = customerPaymentRepository;
+        this.billRepository = billRepository;
+    }
+
+    /**
+     * Builds the payment cards for every order, newest first.
+     *
+     * @return List of payment cards in the shape served by /api/payments
+     */
+    public List<Map<String, Object>> getAllPaymentCards() {
+        return buildPaymentCards(orderRepository.findAllByOrderByCreatedAtDesc());
+    }
+
+    /**
+     * Builds one keyset-paginated page of payment cards, newest first.
+     * The cursor is the (createdAt, paymentId) pair of the last card of the previous page,
+     * so each page is a bounded index range scan regardless of how many orders exist.
+     *
+     * @param status optional order status filter (PENDING, APPROVED, DECLINED)
+     * @param cursorCreatedAt creation time of the last card already shown, or null for the first page
+     * @param cursorPaymentId payment ID of the last card already shown, or null for the first page
+     * @param size requested page size, clamped to MAX_PAGE_SIZE
+     * @return Map containing the payment cards, hasMore and the nextCursor for the following page
+     */
+    public Map<String, Object> getPaymentCardsPage(String status, LocalDateTime cursorCreatedAt,
+                                                   Long cursorPaymentId, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Fetch one extra row to learn whether another page exists without a COUNT query
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        String orderStatus = status != null && !status.trim().isEmpty() ? status.trim().toUpperCase() : null;
+        boolean firstPage = cursorCreatedAt == null || cursorPaymentId == null;
+
+        List<Order> orders;
+        if (orderStatus == null) {
+            orders = firstPage
+                ? orderRepository.findAllByOrderByCreatedAtDescPaymentIdDesc(limit)
+                : orderRepository.findPageAfter(cursorCreatedAt, cursorPaymentId, limit);
+        } else {
+            orders = firstPage
+                ? orderRepository.findByOrderStatusOrderByCreatedAtDescPaymentIdDesc(orderStatus, limit)
+                : orderRepository.findPageByOrderStatusAfter(orderStatus, cursorCreatedAt, cursorPaymentId, limit);
+        }
+
+        boolean hasMore = orders.size() > pageSize;
+        if (hasMore) {
+            orders = orders.subList(0, pageSize);
+        }
+
+        Map<String, Object> page = new HashMap<>();
+        page.put("payments", buildPaymentCards(orders));
+        page.put("hasMore", hasMore);
+        if (hasMore) {
+            Order last = orders.get(orders.size() - 1);
+            Map<String, Object> nextCursor = new HashMap<>();
+            nextCursor.put("createdAt", last.getCreatedAt());
+            nextCursor.put("paymentId", last.getPaymentId());
+            page.put("nextCursor", nextCursor);
+        }
+        return page;
+    }
+
+    /**
+     * Builds payment cards for the given orders, preserving their order.
+     *
+     * @param orders the orders to render
+     * @return List of payment cards, one per order
+     */
+    public List<Map<String, Object>> buildPaymentCards(List<Order> orders) {
+        List<Map<String, Object>> paymentCards = new ArrayList<>(orders.size());
+        if (orders.isEmpty()) {
+            return paymentCards;
+        }
+
+        // Collect every key referenced by the page before touching the database
+        List<Long> orderIds = new ArrayList<>(orders.size());
+        Set<String> usernames = new LinkedHashSet<>();
+        List<Long> approvedPaymentIds = new ArrayList<>();
+        for (Order order : orders) {
+            orderIds.add(order.getPaymentId());
+            usernames.add(order.getUsername());
+            if ("APPROVED".equals(order.getOrderStatus())) {
+                approvedPaymentIds.add(order.getPaymentId());
+            }
+        }
+
+        Map<Long, List<OrderItem>> itemsByOrderId = loadItems(orderIds);
+        Map<String, CustomerPayment> paymentDetailsByUsername = loadLatestPaymentDetails(usernames);
+        Map<Long, Bill> billsByPaymentId = loadBills(approvedPaymentIds);
+
+        for (Order order : orders) {
+            Map<String, Object> paymentCard = new HashMap<>();
+            paymentCard.put("paymentId", order.getPaymentId());
+            paymentCard.put("username", order.getUsername());
+            paymentCard.put("subtotal", order.getSubtotal());
+            paymentCard.put("orderStatus", order.getOrderStatus());
+            paymentCard.put("createdAt", order.getCreatedAt());
+            paymentCard.put("items", buildItems(itemsByOrderId.getOrDefault(order.getPaymentId(), List.of())));
+
+            CustomerPayment customerPayment = paymentDetailsByUsername.get(order.getUsername());
+            if (customerPayment != null) {
+                Map<String, Object> paymentDetails = new HashMap<>();
+                paymentDetails.put("bankName", customerPayment.getBankName());
+                paymentDetails.put("accountHolderName", customerPayment.getAccountHolderName());
+                paymentDetails.put("accountNumber", customerPayment.getAccountNumber());
+                paymentCard.put("customerPaymentDetails", paymentDetails);
+            }
+
+            paymentCard.put("payslipLocationPath", order.getPayslipLocationPath());
+
+            Bill bill = billsByPaymentId.get(order.getPaymentId());
+            if (bill != null && "APPROVED".equals(order.getOrderStatus())) {
+                Map<String, Object> billInfo = new HashMap<>();
+                billInfo.put("id", bill.getId());
+                billInfo.put("productNames", bill.getProductNames());
+                billInfo.put("productQuantities", bill.getProductQuantities());
+                billInfo.put("subtotal", bill.getSubtotal());
+                billInfo.put("total", bill.getTotal());
+                billInfo.put("bankName", bill.getBankName());
+                billInfo.put("maskedAccountNumber", bill.getMaskedAccountNumber());
+                billInfo.put("createdAt", bill.getCreatedAt());
+                paymentCard.put("bill", billInfo);
+            }
+
+            paymentCards.add(paymentCard);
+        }
+
+        return paymentCards;
+    }
+
+    private List<Map<String, Object>> buildItems(List<OrderItem> orderItems) {
+        List<Map<String, Object>> items = new ArrayList<>(orderItems.size());
+
+        for (OrderItem orderItem : orderItems) {
+            Product product = orderItem.getProduct();
+            Map<String, Object> item = new HashMap<>();
+            item.put("productId", product.getId());
+            item.put("name", product.getName());
+            item.put("price", orderItem.getUnitPrice());
+            item.put("quantity", orderItem.getQuantity());
+            item.put("stockQuantity", product.getStockQuantity() != null ? product.getStockQuantity() : 0);
+            item.put("subtotal", orderItem.getLineTotal());
+            items.add(item);
+        }
+
+        return items;
+    }
+
+    private Map<Long, List<OrderItem>> loadItems(Collection<Long> orderIds) {
+        Map<Long, List<OrderItem>> itemsByOrderId = new HashMap<>();
+        for (List<Long> batch : partition(orderIds)) {
+            for (OrderItem item : orderItemRepository.findWithProductByOrderIdIn(batch)) {
+                // Reading the id of the lazy order reference does not initialize it
+                itemsByOrderId.computeIfAbsent(item.getOrder().getPaymentId(), id -> new ArrayList<>()).add(item);
+            }
+        }
+        return itemsByOrderId;
+    }
+
+    private Map<String, CustomerPayment> loadLatestPaymentDetails(Collection<String> usernames) {
+        Map<String, CustomerPayment> paymentDetailsByUsername = new HashMap<>();
+        for (List<String> batch : partition(usernames)) {
+            // Rows arrive newest id first, so the first row per username wins
+            for (CustomerPayment customerPayment : customerPaymentRepository.findLatestActiveByUsernameIn(batch)) {
+                paymentDetailsByUsername.putIfAbsent(customerPayment.getUsername(), customerPayment);
+            }
+        }
+        return paymentDetailsByUsername;
+    }
+
+    private Map<Long, Bill> loadBills(Collection<Long> paymentIds) {
+        Map<Long, Bill> billsByPaymentId = new HashMap<>();
+        for (List<Long> batch : partition(paymentIds)) {
+            for (Bill bill : billRepository.findByPaymentIdIn(batch)) {
+                billsByPaymentId.putIfAbsent(bill.getPaymentId(), bill);
+            }
+        }
+        return billsByPaymentId;
+    }
+
+    private static <T> List<List<T>> partition(Collection<T> values) {
+        List<List<T>> batches = new ArrayList<>();
+        List<T> current = new ArrayList<>(Math.min(values.size(), IN_CLAUSE_BATCH_SIZE));
+        for (T value : values) {
+            current.add(value);
+            if (current.size() == IN_CLAUSE_BATCH_SIZE) {
+                batches.add(current);
+                current = new ArrayList<>(IN_CLAUSE_BATCH_SIZE);
+            }
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        return batches;
+    }
+}
@@ -0,0 +1,60 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Moves payment slips uploaded before slips were named after their content hash to their
+ * content-hash names and points the orders holding them at the new name, one slip and one
+ * short transaction at a time. Only content-hash names are served, so until then these
+ * slips cannot be viewed. A slip whose content is not a PNG, JPEG or PDF is left in place.
+ */
+@Service
+public class PayslipBackfillService implements CommandLineRunner {
+
+    private final PayslipStorageService payslipStorageService;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public PayslipBackfillService(PayslipStorageService payslipStorageService,
+                                  OrderRepository orderRepository,
+                                  PlatformTransactionManager transactionManager) {
+        this.payslipStorageService = payslipStorageService;
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void run(String... args) throws IOException {
+        int moved = 0;
+        int skipped = 0;
+
+        for (Path legacyFile : payslipStorageService.findLegacySlips()) {
+            String legacyName = legacyFile.getFileName().toString();
+            try {
+                // Copy, then move the orders, then delete: a run interrupted anywhere is completed by the next
+                String storedName = payslipStorageService.storeLegacy(legacyFile);
+                transactionTemplate.executeWithoutResult(status ->
+                    orderRepository.renamePayslip(legacyName, storedName));
+                Files.delete(legacyFile);
+                moved++;
+            } catch (IllegalArgumentException e) {
+                skipped++;
+            }
+        }
+
+        if (moved > 0 || skipped > 0) {
+            System.out.println("Renamed " + moved + " payment slips to content-hash names (" +
+                skipped + " slips skipped as empty, too large or of an unknown type)");
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.group35.smartcart.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Stores uploaded payment slips on disk.
+ * Uploads are streamed through a fixed-size buffer into a temporary file while their
+ * SHA-256 is computed, so no upload is ever held in memory as a whole. The file type is
+ * taken from the leading magic bytes rather than the client's Content-Type. Files are
+ * named after their hash, so uploading the same slip again reuses the stored copy.
+ * Temporary files live in a directory of their own below the storage root, and only
+ * content-hash names are ever served.
+ */
+@Service
+public class PayslipStorageService {
+
+    public static final long MAX_FILE_SIZE = 10 * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final byte[] PNG_MAGIC = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] JPEG_MAGIC = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final byte[] PDF_MAGIC = {'%', 'P', 'D', 'F', '-'};
+
+    // The only names store() produces: the SHA-256 of the content plus the sniffed extension
+    private static final Pattern STORED_NAME = Pattern.compile("[0-9a-f]{64}\\.(png|jpg|pdf)");
+
+    private final Path storageRoot;
+
+    // In-progress uploads; a subdirectory so the final move stays on one file system and is atomic
+    private final Path uploadDir;
+
+    public PayslipStorageService(@Value("${smartcart.payslips.storage-root:src/main/resources/payslips}") String storageRoot) {
+        this.storageRoot = Paths.get(storageRoot).toAbsolutePath().normalize();
+        this.uploadDir = this.storageRoot.resolve("uploads");
+    }
+
+    /**
+     * Streams an uploaded slip to storage.
+     *
+     * @param file the uploaded file
+     * @return the stored file name (SHA-256 of the content plus extension)
+     * @throws IllegalArgumentException if the file is empty, too large or not a PNG, JPEG or PDF
+     * @throws IOException if writing to storage fails
+     */
+    public String store(MultipartFile file) throws IOException {
+        if (file.isEmpty()) {
+            throw new IllegalArgumentException("No file uploaded");
+        }
+        if (file.getSize() > MAX_FILE_SIZE) {
+            throw new IllegalArgumentException("File size must be less than 10MB");
+        }
+        try (InputStream in = file.getInputStream()) {
+            return store(in);
+        }
+    }
+
+    /**
+     * Stores a copy of a slip saved before names were content hashes under its content-hash
+     * name. The legacy file is left for the caller to delete.
+     *
+     * @param legacyFile a file returned by findLegacySlips
+     * @return the stored file name
+     * @throws IllegalArgumentException if the file is empty, too large or not a PNG, JPEG or PDF
+     * @throws IOException if reading or writing storage fails
+     */
+    public String storeLegacy(Path legacyFile) throws IOException {
+        try (InputStream in = Files.newInputStream(legacyFile)) {
+            return store(in);
+        }
+    }
+
+    /**
+     * Lists the slips in the storage root that are not named after their content hash.
+     *
+     * @return the legacy files, empty once all have been moved
+     * @throws IOException if the storage root cannot be listed
+     */
+    public List<Path> findLegacySlips() throws IOException {
+        if (!Files.isDirectory(storageRoot)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(storageRoot)) {
+            return files
+                .filter(Files::isRegularFile)
+                .filter(file -> !STORED_NAME.matcher(file.getFileName().toString()).matches())
+                .toList();
+        }
+    }
+
+    private String store(InputStream in) throws IOException {
+        Files.createDirectories(uploadDir);
+        Path tempFile = Files.createTempFile(uploadDir, "upload-", ".tmp");
+        try {
+            MessageDigest digest = newSha256();
+            String extension = null;
+            long written = 0;
+
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = in.readNBytes(buffer, 0, buffer.length)) > 0) {
+                    if (extension == null) {
+                        extension = sniffExtension(buffer, read)
+                            .orElseThrow(() -> new IllegalArgumentException(
+                                "Invalid file type. Only PNG, JPG, and PDF files are allowed"));
+                    }
+                    written += read;
+                    if (written > MAX_FILE_SIZE) {
+                        throw new IllegalArgumentException("File size must be less than 10MB");
+                    }
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                }
+            }
+            if (extension == null) {
+                throw new IllegalArgumentException("No file uploaded");
+            }
+
+            String filename = HexFormat.of().formatHex(digest.digest()) + extension;
+            Path target = storageRoot.resolve(filename);
+            if (Files.exists(target)) {
+                // Identical content is already stored
+                return filename;
+            }
+            try {
+                Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // A concurrent upload of the same content won the race
+            }
+            return filename;
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Resolves a stored slip by file name. Only content-hash names are accepted, so neither
+     * path tricks nor in-progress uploads can be reached.
+     *
+     * @param filename the stored file name
+     * @return the path if the name is a stored name and the file exists
+     */
+    public Optional<Path> resolve(String filename) {
+        if (filename == null || !STORED_NAME.matcher(filename).matches()) {
+            return Optional.empty();
+        }
+        Path path = storageRoot.resolve(filename);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    /**
+     * Returns the SHA-256 of a stored slip, which is its name without the extension.
+     *
+     * @param file a path returned by resolve
+     * @return the lower-case hex SHA-256 of the file content
+     */
+    public String contentHash(Path file) {
+        String name = file.getFileName().toString();
+        return name.substring(0, name.lastIndexOf('.'));
+    }
+
+    public Path getStorageRoot() {
+        return storageRoot;
+    }
+
+    // The first buffer always holds at least the few bytes every signature needs, unless the file is tiny
+    private static Optional<String> sniffExtension(byte[] head, int length) {
+        if (startsWith(head, length, PNG_MAGIC)) {
+            return Optional.of(".png");
+        }
+        if (startsWith(head, length, JPEG_MAGIC)) {
+            return Optional.of(".jpg");
+        }
+        if (startsWith(head, length, PDF_MAGIC)) {
+            return Optional.of(".pdf");
+        }
+        return Optional.empty();
+    }
+
+    private static boolean startsWith(byte[] head, int length, byte[] magic) {
+        return length >= magic.length && Arrays.equals(head, 0, magic.length, magic, 0, magic.length);
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -1,225 +1,176 @@
 package com.group35.smartcart.service;
 
+import com.group35.smartcart.config.WorkerThreads;
 import com.group35.smartcart.entity.Bill;
+import com.group35.smartcart.entity.OrderItem;
+import com.itextpdf.html2pdf.ConverterProperties;
 import com.itextpdf.html2pdf.HtmlConverter;
+import com.itextpdf.html2pdf.resolver.font.DefaultFontProvider;
+import com.itextpdf.layout.font.FontProvider;
+import com.itextpdf.layout.font.FontSet;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.time.format.DateTimeFormatter;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Renders bills to PDF.
+ * Fonts are scanned once into a shared FontSet (a FontProvider itself is not thread-safe,
+ * so each conversion gets a cheap provider over the shared set). Conversions run on a
+ * bounded worker pool so a burst of downloads cannot run unlimited renders at once, and
+ * one bill is rendered at startup so the first real download does not pay for class
+ * loading and CSS parser initialisation. Bill HTML comes from a pre-compiled template
+ * (see BillHtmlTemplate) and is handed to the converter as bytes.
+ */
 @Service
 public class PdfService {
     
+    private final FontSet fontSet;
+    private final String defaultFontFamily;
+    private final ThreadPoolExecutor renderPool;
+    private final BillHtmlTemplate billTemplate = BillHtmlTemplate.fromClasspath("pdf/bill.html");
+    
+    public PdfService(@Value("${smartcart.pdf.render-concurrency:2}") int renderConcurrency,
+                      @Value("${smartcart.pdf.render-queue-capacity:32}") int renderQueueCapacity,
+                      WorkerThreads workerThreads) {
+        // Standard PDF fonts plus the fonts shipped with html2pdf; scanning system fonts is skipped
+        DefaultFontProvider fontProvider = new DefaultFontProvider(true, true, false);
+        this.fontSet = fontProvider.getFontSet();
+        this.defaultFontFamily = fontProvider.getDefaultFontFamily();
+        
+        // The pool size still bounds concurrent renders when its threads are virtual
+        this.renderPool = new ThreadPoolExecutor(renderConcurrency, renderConcurrency, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(renderQueueCapacity), workerThreads.factory("pdf-render"));
+    }
+    
     public byte[] generateBillPdf(Bill bill) throws IOException {
-        String html = generateBillHtml(bill);
+        return convertToPdf(generateBillHtml(bill));
+    }
+    
+    /**
+     * Converts HTML to PDF on the render pool.
+     * 
+     * @param html the UTF-8 encoded document
+     * @return the PDF bytes
+     * @throws IOException if conversion fails or too many renders are already queued
+     */
+    public byte[] convertToPdf(byte[] html) throws IOException {
+        Future<byte[]> result;
+        try {
+            result = renderPool.submit(() -> render(html));
+        } catch (RejectedExecutionException e) {
+            throw new IOException("Too many PDF renders in progress, please try again", e);
+        }
+        
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.cancel(true);
+            throw new IOException("Interrupted while rendering PDF", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Failed to render PDF", e.getCause());
+        }
+    }
+    
+    private byte[] render(byte[] html) throws IOException {
+        ConverterProperties properties = new ConverterProperties();
+        properties.setFontProvider(new FontProvider(fontSet, defaultFontFamily));
         
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        HtmlConverter.convertToPdf(html, outputStream);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(32 * 1024);
+        HtmlConverter.convertToPdf(new ByteArrayInputStream(html), outputStream, properties);
         
         return outputStream.toByteArray();
     }
     
-    private String generateBillHtml(Bill bill) {
-        String formattedDate = bill.getCreatedAt().format(DateTimeFormatter.ofPattern("MMM dd, yyyy 'at' hh:mm a"));
+    // Render one throw-away bill so the first customer download is not the slow one
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        renderPool.execute(() -> {
+            try {
+                Bill sample = new Bill(0L, 0L, "warmup", "Sample Product", "1",
+                    BigDecimal.ONE, BigDecimal.ONE, "Sample Bank", "0000000000");
+                sample.setId(0L);
+                render(generateBillHtml(sample));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        renderPool.shutdownNow();
+    }
+    
+    /**
+     * Generates the HTML of a bill whose order has no normalized items; the line-item
+     * table is rebuilt from the product names and quantities stored on the bill.
+     * 
+     * @param bill the bill
+     * @return the UTF-8 encoded HTML
+     */
+    public byte[] generateBillHtml(Bill bill) {
+        return billTemplate.render(bill, legacyLines(bill));
+    }
+    
+    /**
+     * Generates the HTML of a bill with one table row per order item.
+     * 
+     * @param bill the bill
+     * @param items the items of the bill's order
+     * @return the UTF-8 encoded HTML
+     */
+    public byte[] generateBillHtml(Bill bill, List<OrderItem> items) {
+        if (items.isEmpty()) {
+            return generateBillHtml(bill);
+        }
+        List<BillHtmlTemplate.Line> lines = new ArrayList<>(items.size());
+        for (OrderItem item : items) {
+            lines.add(new BillHtmlTemplate.Line(item.getProductName(), item.getQuantity(),
+                item.getUnitPrice(), item.getLineTotal()));
+        }
+        return billTemplate.render(bill, lines);
+    }
+    
+    // Names are joined with ", " and quantities with "," when the bill is generated
+    private static List<BillHtmlTemplate.Line> legacyLines(Bill bill) {
+        String names = bill.getProductNames() != null ? bill.getProductNames() : "";
+        String quantities = bill.getProductQuantities() != null ? bill.getProductQuantities() : "";
+        String[] nameParts = names.split(", ");
+        String[] quantityParts = quantities.split(",");
         
-        return """
-            <!DOCTYPE html>
-            <html>
-            <head>
-                <meta charset="UTF-8">
-                <title>Bill #%d</title>
-                <style>
-                    body {
-                        font-family: Arial, sans-serif;
-                        margin: 0;
-                        padding: 20px;
-                        background-color: #f5f5f5;
-                    }
-                    .bill-container {
-                        max-width: 600px;
-                        margin: 0 auto;
-                        background-color: white;
-                        padding: 30px;
-                        border-radius: 10px;
-                        box-shadow: 0 2px 10px rgba(0,0,0,0.1);
-                    }
-                    .header {
-                        text-align: center;
-                        border-bottom: 3px solid #16a34a;
-                        padding-bottom: 20px;
-                        margin-bottom: 30px;
-                    }
-                    .company-name {
-                        font-size: 28px;
-                        font-weight: bold;
-                        color: #16a34a;
-                        margin-bottom: 5px;
-                    }
-                    .bill-title {
-                        font-size: 18px;
-                        color: #666;
-                        margin-bottom: 10px;
-                    }
-                    .bill-info {
-                        display: flex;
-                        justify-content: space-between;
-                        margin-bottom: 30px;
-                        flex-wrap: wrap;
-                    }
-                    .info-section {
-                        flex: 1;
-                        min-width: 200px;
-                        margin-bottom: 15px;
-                    }
-                    .info-label {
-                        font-weight: bold;
-                        color: #333;
-                        margin-bottom: 5px;
-                    }
-                    .info-value {
-                        color: #666;
-                        font-family: monospace;
-                    }
-                    .items-section {
-                        margin-bottom: 30px;
-                    }
-                    .section-title {
-                        font-size: 16px;
-                        font-weight: bold;
-                        color: #333;
-                        margin-bottom: 15px;
-                        border-bottom: 1px solid #ddd;
-                        padding-bottom: 5px;
-                    }
-                    .item-row {
-                        display: flex;
-                        justify-content: space-between;
-                        padding: 8px 0;
-                        border-bottom: 1px solid #f0f0f0;
-                    }
-                    .item-label {
-                        color: #666;
-                    }
-                    .item-value {
-                        font-weight: bold;
-                        color: #333;
-                    }
-                    .total-section {
-                        background-color: #f8f9fa;
-                        padding: 20px;
-                        border-radius: 5px;
-                        margin-top: 20px;
-                    }
-                    .total-row {
-                        display: flex;
-                        justify-content: space-between;
-                        font-size: 18px;
-                        font-weight: bold;
-                        color: #16a34a;
-                    }
-                    .footer {
-                        text-align: center;
-                        margin-top: 30px;
-                        padding-top: 20px;
-                        border-top: 1px solid #ddd;
-                        color: #666;
-                        font-size: 12px;
-                    }
-                    .bank-info {
-                        background-color: #f0f8f0;
-                        padding: 15px;
-                        border-radius: 5px;
-                        margin-bottom: 20px;
-                    }
-                    .bank-title {
-                        font-weight: bold;
-                        color: #16a34a;
-                        margin-bottom: 10px;
-                    }
-                </style>
-            </head>
-            <body>
-                <div class="bill-container">
-                    <div class="header">
-                        <div class="company-name">SmartCart</div>
-                        <div class="bill-title">INVOICE / BILL</div>
-                    </div>
-                    
-                    <div class="bill-info">
-                        <div class="info-section">
-                            <div class="info-label">Bill ID:</div>
-                            <div class="info-value">#%d</div>
-                        </div>
-                        <div class="info-section">
-                            <div class="info-label">Payment ID:</div>
-                            <div class="info-value">#%d</div>
-                        </div>
-                        <div class="info-section">
-                            <div class="info-label">Customer:</div>
-                            <div class="info-value">%s</div>
-                        </div>
-                        <div class="info-section">
-                            <div class="info-label">Date:</div>
-                            <div class="info-value">%s</div>
-                        </div>
-                    </div>
-                    
-                    <div class="bank-info">
-                        <div class="bank-title">Payment Information</div>
-                        <div class="item-row">
-                            <span class="item-label">Bank Name:</span>
-                            <span class="item-value">%s</span>
-                        </div>
-                        <div class="item-row">
-                            <span class="item-label">Account Number:</span>
-                            <span class="item-value">%s</span>
-                        </div>
-                    </div>
-                    
-                    <div class="items-section">
-                        <div class="section-title">Order Details</div>
-                        <div class="item-row">
-                            <span class="item-label">Products:</span>
-                            <span class="item-value">%s</span>
-                        </div>
-                        <div class="item-row">
-                            <span class="item-label">Quantities:</span>
-                            <span class="item-value">%s</span>
-                        </div>
-                    </div>
-                    
-                    <div class="total-section">
-                        <div class="item-row">
-                            <span class="item-label">Subtotal:</span>
-                            <span class="item-value">$%.2f</span>
-                        </div>
-                        <div class="total-row">
-                            <span>Total Amount:</span>
-                            <span>$%.2f</span>
-                        </div>
-                    </div>
-                    
-                    <div class="footer">
-                        <p>Thank you for shopping with SmartCart!</p>
-                        <p>This is an automated bill generated on %s</p>
-                    </div>
-                </div>
-            </body>
-            </html>
-            """.formatted(
-                bill.getId(),
-                bill.getId(),
-                bill.getPaymentId(),
-                bill.getUsername(),
-                formattedDate,
-                bill.getBankName(),
-                bill.getMaskedAccountNumber(),
-                bill.getProductNames(),
-                bill.getProductQuantities(),
-                bill.getSubtotal().doubleValue(),
-                bill.getTotal().doubleValue(),
-                formattedDate
-            );
+        List<BillHtmlTemplate.Line> lines = new ArrayList<>(nameParts.length);
+        if (nameParts.length == quantityParts.length) {
+            try {
+                for (int i = 0; i < nameParts.length; i++) {
+                    lines.add(new BillHtmlTemplate.Line(nameParts[i].trim(),
+                        Integer.parseInt(quantityParts[i].trim()), null, null));
+                }
+                return lines;
+            } catch (NumberFormatException e) {
+                lines.clear();
+            }
+        }
+        // Product names containing ", " cannot be paired with quantities; show the stored text as one row
+        lines.add(new BillHtmlTemplate.Line(names + " (" + quantities + ")", null, null, null));
+        return lines;
     }
 }
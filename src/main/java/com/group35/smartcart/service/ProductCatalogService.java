@@ -0,0 +1,183 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.config.WorkerThreads;
+import com.group35.smartcart.entity.Product;
+import com.group35.smartcart.event.ProductChangedEvent;
+import com.group35.smartcart.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory, read-only snapshot of the product catalog for the shopping pages.
+ * Readers get an immutable snapshot without touching the database; product changes
+ * schedule a rebuild on a background thread which then swaps the snapshot in one write.
+ * Bursts of changes (e.g. a multi-item approval) coalesce into a single reload.
+ */
+@Service
+public class ProductCatalogService {
+
+    private final ProductRepository productRepository;
+
+    private final ExecutorService refreshExecutor;
+
+    private final AtomicBoolean refreshPending = new AtomicBoolean(false);
+
+    // Serializes reloads. A lock rather than synchronized: a virtual thread blocked on the
+    // catalog query inside a synchronized block would pin its carrier thread
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    private volatile CatalogSnapshot snapshot;
+
+    @Autowired
+    public ProductCatalogService(ProductRepository productRepository, WorkerThreads workerThreads) {
+        this.productRepository = productRepository;
+        this.refreshExecutor = Executors.newSingleThreadExecutor(workerThreads.factory("catalog-refresh"));
+    }
+
+    /**
+     * Returns the current catalog snapshot, loading it synchronously if it has never been built.
+     *
+     * @return the current immutable snapshot
+     */
+    public CatalogSnapshot getSnapshot() {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            reloadLock.lock();
+            try {
+                current = snapshot;
+                if (current == null) {
+                    current = reload();
+                }
+            } finally {
+                reloadLock.unlock();
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Whether a snapshot has been built yet.
+     *
+     * @return true once the catalog is served from memory
+     */
+    public boolean isWarm() {
+        return snapshot != null;
+    }
+
+    // Build the first snapshot once startup data initialization has finished
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        getSnapshot();
+    }
+
+    // Rebuild after the transaction that changed products has committed, so the reload sees the new rows
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        scheduleRefresh();
+    }
+
+    private void scheduleRefresh() {
+        if (refreshPending.compareAndSet(false, true)) {
+            refreshExecutor.execute(() -> {
+                // Clear first so changes arriving during the reload schedule another one
+                refreshPending.set(false);
+                reloadLock.lock();
+                try {
+                    reload();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    reloadLock.unlock();
+                }
+            });
+        }
+    }
+
+    private CatalogSnapshot reload() {
+        CatalogSnapshot rebuilt = new CatalogSnapshot(productRepository.findAll());
+        snapshot = rebuilt;
+        return rebuilt;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Immutable view of the catalog: products by id, by category and the sorted category list.
+     */
+    public static final class CatalogSnapshot {
+
+        private final List<Product> products;
+        private final Map<Long, Product> productsById;
+        private final Map<String, List<Product>> productsByCategory;
+        private final List<String> categories;
+
+        CatalogSnapshot(List<Product> loaded) {
+            List<Product> sorted = new ArrayList<>(loaded);
+            sorted.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+
+            Map<Long, Product> byId = new HashMap<>();
+            // Category lookups match the case-insensitive collation of the database
+            Map<String, List<Product>> byCategory = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            TreeSet<String> categoryNames = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+            for (Product product : sorted) {
+                byId.put(product.getId(), product);
+                if (product.getCategory() != null) {
+                    byCategory.computeIfAbsent(product.getCategory(), key -> new ArrayList<>()).add(product);
+                    categoryNames.add(product.getCategory());
+                }
+            }
+            byCategory.replaceAll((category, products) -> Collections.unmodifiableList(products));
+
+            this.products = Collections.unmodifiableList(sorted);
+            this.productsById = Collections.unmodifiableMap(byId);
+            this.productsByCategory = Collections.unmodifiableMap(byCategory);
+            this.categories = List.copyOf(categoryNames);
+        }
+
+        public List<Product> getProducts() {
+            return products;
+        }
+
+        public List<String> getCategories() {
+            return categories;
+        }
+
+        public Optional<Product> findById(Long id) {
+            return Optional.ofNullable(productsById.get(id));
+        }
+
+        public List<Product> findByCategory(String category) {
+            if (category == null) {
+                return List.of();
+            }
+            return productsByCategory.getOrDefault(category, List.of());
+        }
+
+        public List<Product> findRelatedProducts(Product product, int limit) {
+            return findByCategory(product.getCategory()).stream()
+                .filter(p -> !p.getId().equals(product.getId()))
+                .limit(limit)
+                .toList();
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.entity.Product;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over product name, category and description.
+ * Terms are lower-cased and lightly stemmed; queries match whole terms, term prefixes
+ * and terms within a small edit distance, and results are ranked by a weighted TF-IDF score.
+ * Products can be added or removed one at a time, so a stock or price change only
+ * re-indexes the products it touched.
+ */
+public class ProductSearchIndex {
+
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float CATEGORY_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    private static final float EXACT_MATCH = 1.0f;
+    private static final float PREFIX_MATCH = 0.7f;
+    private static final float FUZZY_MATCH = 0.4f;
+
+    private static final int MIN_PREFIX_LENGTH = 2;
+
+    // term -> product ID -> field-weighted term frequency
+    private final TreeMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private final Map<Long, Set<String>> termsByProduct = new HashMap<>();
+    private final Map<Long, Product> products = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Adds a product, replacing any previously indexed version of it.
+     *
+     * @param product the product to index
+     */
+    public void index(Product product) {
+        Map<String, Float> weights = new HashMap<>();
+        addField(weights, product.getName(), NAME_WEIGHT);
+        addField(weights, product.getCategory(), CATEGORY_WEIGHT);
+        addField(weights, product.getDescription(), DESCRIPTION_WEIGHT);
+
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(product.getId());
+            for (Map.Entry<String, Float> entry : weights.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), term -> new HashMap<>())
+                    .put(product.getId(), entry.getValue());
+            }
+            termsByProduct.put(product.getId(), weights.keySet());
+            products.put(product.getId(), product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a product from the index; unknown IDs are ignored.
+     *
+     * @param productId the product ID
+     */
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the whole index content with the given products.
+     *
+     * @param all every product in the catalog
+     */
+    public void rebuild(Collection<Product> all) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            termsByProduct.clear();
+            products.clear();
+            for (Product product : all) {
+                index(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return products.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Searches the index. Every query term has to match a product for it to be returned.
+     *
+     * @param query free text typed by the customer
+     * @return matching products, best match first
+     */
+    public List<Product> search(String query) {
+        List<String> queryTerms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (queryTerms.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Float> scores = null;
+            for (String queryTerm : queryTerms) {
+                Map<Long, Float> termScores = scoreTerm(queryTerm);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    scores.keySet().retainAll(termScores.keySet());
+                    scores.replaceAll((productId, score) -> score + termScores.get(productId));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            final Map<Long, Float> ranked = scores;
+            return ranked.keySet().stream()
+                .map(products::get)
+                .sorted(Comparator.<Product>comparingDouble(p -> -ranked.get(p.getId()))
+                    .thenComparing(Product::getName, String.CASE_INSENSITIVE_ORDER)
+                    .thenComparing(Product::getId))
+                .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Best score per product for one query term: exact beats prefix beats a near miss
+    private Map<Long, Float> scoreTerm(String queryTerm) {
+        Map<Long, Float> scores = new HashMap<>();
+
+        Map<Long, Float> exact = postings.get(queryTerm);
+        if (exact != null) {
+            accumulate(scores, exact, EXACT_MATCH);
+        }
+
+        if (queryTerm.length() >= MIN_PREFIX_LENGTH) {
+            for (Map<Long, Float> prefixed : postings.subMap(queryTerm, false, queryTerm + Character.MAX_VALUE, false).values()) {
+                accumulate(scores, prefixed, PREFIX_MATCH);
+            }
+        }
+
+        int maxEdits = maxEdits(queryTerm);
+        if (maxEdits > 0) {
+            for (Map.Entry<String, Map<Long, Float>> entry : postings.entrySet()) {
+                String term = entry.getKey();
+                if (Math.abs(term.length() - queryTerm.length()) <= maxEdits
+                        && !term.equals(queryTerm)
+                        && editDistance(queryTerm, term, maxEdits) <= maxEdits) {
+                    accumulate(scores, entry.getValue(), FUZZY_MATCH);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private void accumulate(Map<Long, Float> scores, Map<Long, Float> termPostings, float matchWeight) {
+        // Rare terms say more about a product than terms shared by most of the catalog
+        float idf = (float) Math.log(1.0 + (double) products.size() / termPostings.size());
+        for (Map.Entry<Long, Float> posting : termPostings.entrySet()) {
+            float score = matchWeight * posting.getValue() * idf;
+            scores.merge(posting.getKey(), score, Math::max);
+        }
+    }
+
+    private void removeUnlocked(Long productId) {
+        Set<String> terms = termsByProduct.remove(productId);
+        products.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Long, Float> termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(productId);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private static void addField(Map<String, Float> weights, String text, float fieldWeight) {
+        for (String term : new HashSet<>(tokenize(text))) {
+            weights.merge(term, fieldWeight, Float::sum);
+        }
+    }
+
+    // Short terms must match exactly, longer ones tolerate one typo, long ones two
+    private static int maxEdits(String term) {
+        if (term.length() < 4) {
+            return 0;
+        }
+        return term.length() < 8 ? 1 : 2;
+    }
+
+    /**
+     * Splits text into lower-case, stemmed terms.
+     *
+     * @param text any text, may be null
+     * @return the terms in order of appearance
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> terms = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                terms.add(stem(token));
+            }
+        }
+        return terms;
+    }
+
+    // Light English suffix stripping so "apples" finds "apple" and "sliced" finds "slice"
+    static String stem(String token) {
+        if (token.length() > 4 && token.endsWith("ies")) {
+            return token.substring(0, token.length() - 3) + "y";
+        }
+        if (token.length() > 4 && (token.endsWith("ches") || token.endsWith("shes")
+                || token.endsWith("ses") || token.endsWith("xes") || token.endsWith("zes"))) {
+            return token.substring(0, token.length() - 2);
+        }
+        if (token.length() > 3 && token.endsWith("s") && !token.endsWith("ss") && !token.endsWith("us")) {
+            return token.substring(0, token.length() - 1);
+        }
+        if (token.length() > 5 && token.endsWith("ing")) {
+            return token.substring(0, token.length() - 3);
+        }
+        if (token.length() > 4 && token.endsWith("ed")) {
+            return token.substring(0, token.length() - 1);
+        }
+        return token;
+    }
+
+    // Optimal string alignment distance, giving up once every path exceeds the limit
+    static int editDistance(String a, String b, int limit) {
+        int[] previousPrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previousPrevious[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] recycled = previousPrevious;
+            previousPrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+}
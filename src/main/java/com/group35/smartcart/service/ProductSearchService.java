@@ -0,0 +1,110 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.config.WorkerThreads;
+import com.group35.smartcart.entity.Product;
+import com.group35.smartcart.event.ProductChangedEvent;
+import com.group35.smartcart.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Product search for the shopping pages, backed by an in-memory ProductSearchIndex.
+ * The index is built once the application is ready and afterwards only the products
+ * named in ProductChangedEvents are re-read and re-indexed. Until the first build has
+ * finished, searches fall back to the SQL LIKE query.
+ */
+@Service
+public class ProductSearchService {
+
+    private final ProductRepository productRepository;
+    private final ProductSearchIndex index = new ProductSearchIndex();
+
+    private final ExecutorService indexExecutor;
+
+    // Product IDs changed since the last incremental update was picked up
+    private final Set<Long> pendingProductIds = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean ready = false;
+
+    @Autowired
+    public ProductSearchService(ProductRepository productRepository, WorkerThreads workerThreads) {
+        this.productRepository = productRepository;
+        this.indexExecutor = Executors.newSingleThreadExecutor(workerThreads.factory("search-index"));
+    }
+
+    /**
+     * Searches products by name, category and description, best match first.
+     *
+     * @param query the search text
+     * @return the matching products
+     */
+    public List<Product> search(String query) {
+        if (!ready) {
+            return productRepository.searchProducts(query);
+        }
+        return index.search(query);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        indexExecutor.execute(() -> {
+            try {
+                // Drop queued changes first; the full load below already contains them
+                pendingProductIds.clear();
+                index.rebuild(productRepository.findAll());
+                ready = true;
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    // Re-index only the changed products once their transaction has committed
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (pendingProductIds.addAll(event.getProductIds())) {
+            indexExecutor.execute(this::applyPendingChanges);
+        }
+    }
+
+    private void applyPendingChanges() {
+        Set<Long> changedIds = new HashSet<>(pendingProductIds);
+        if (changedIds.isEmpty()) {
+            return;
+        }
+        pendingProductIds.removeAll(changedIds);
+
+        try {
+            Set<Long> stillPresent = new HashSet<>();
+            for (Product product : productRepository.findAllById(changedIds)) {
+                index.index(product);
+                stillPresent.add(product.getId());
+            }
+            for (Long productId : changedIds) {
+                if (!stillPresent.contains(productId)) {
+                    index.remove(productId);
+                }
+            }
+        } catch (Exception e) {
+            // Put the IDs back so the next change retries them
+            pendingProductIds.addAll(changedIds);
+            e.printStackTrace();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        indexExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,255 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.entity.AssignmentStatus;
+import com.group35.smartcart.event.DeliveryAssignmentChangedEvent;
+import com.group35.smartcart.event.DeliveryAssignmentChangedEvent.Transition;
+import com.group35.smartcart.repository.DeliveryAssignmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory assignment counters: per rider the assignments in each status and those delivered
+ * today, and the totals per status across riders.
+ * Counted from the database once at startup, then kept current from the transitions in
+ * {@link DeliveryAssignmentChangedEvent}, applied after the changing transaction commits.
+ * Each rider's counters and the status totals are immutable values replaced atomically, so
+ * readers never query and never see a half-applied transition.
+ */
+@Service
+public class RiderLoadService {
+
+    /**
+     * Current load of one delivery person.
+     *
+     * @param deliveryPersonId the delivery person's ID
+     * @param assigned assignments waiting for pickup
+     * @param pickedUp assignments on the way
+     * @param active assigned plus picked up
+     * @param deliveredToday assignments delivered since midnight
+     */
+    public record RiderLoad(Long deliveryPersonId, int assigned, int pickedUp, int active, int deliveredToday) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(RiderLoadService.class);
+
+    private final DeliveryAssignmentRepository deliveryAssignmentRepository;
+
+    // Serializes rebuilds with the application of transitions, so none lands on a map being replaced
+    private final ReentrantLock updateLock = new ReentrantLock();
+
+    private volatile Map<Long, Counters> counters;
+
+    // Assignments per status across all riders, replaced as a whole after each change
+    private volatile Map<AssignmentStatus, Long> statusTotals;
+
+    @Autowired
+    public RiderLoadService(DeliveryAssignmentRepository deliveryAssignmentRepository) {
+        this.deliveryAssignmentRepository = deliveryAssignmentRepository;
+    }
+
+    /**
+     * Returns the load of every delivery person with counted assignments, by ID.
+     *
+     * @return the loads; riders without active assignments or deliveries today are left out
+     */
+    public List<RiderLoad> getLoads() {
+        LocalDate today = LocalDate.now();
+        return currentCounters().entrySet().stream()
+            .map(entry -> entry.getValue().toLoad(entry.getKey(), today))
+            .filter(load -> load.active() > 0 || load.deliveredToday() > 0)
+            .sorted(Comparator.comparing(RiderLoad::deliveryPersonId))
+            .toList();
+    }
+
+    /**
+     * Returns the number of assignments of a delivery person in any status.
+     *
+     * @param deliveryPersonId the delivery person's ID
+     * @return the count, 0 for a rider without assignments
+     */
+    public long getAssignmentCount(Long deliveryPersonId) {
+        return currentCounters().getOrDefault(deliveryPersonId, Counters.EMPTY).total();
+    }
+
+    /**
+     * Returns the number of assignments in each status.
+     *
+     * @return the counts; statuses without assignments are 0
+     */
+    public Map<AssignmentStatus, Long> getStatusCounts() {
+        currentCounters();
+        return statusTotals;
+    }
+
+    /**
+     * Returns the load of one delivery person.
+     *
+     * @param deliveryPersonId the delivery person's ID
+     * @return the load, all zero for a rider without assignments
+     */
+    public RiderLoad getLoad(Long deliveryPersonId) {
+        return currentCounters().getOrDefault(deliveryPersonId, Counters.EMPTY)
+            .toLoad(deliveryPersonId, LocalDate.now());
+    }
+
+    // Count once startup data initialization has finished
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    /**
+     * Recounts all riders from the database.
+     */
+    public void rebuild() {
+        updateLock.lock();
+        try {
+            LocalDate today = LocalDate.now();
+            Map<Long, Counters> rebuilt = new ConcurrentHashMap<>();
+            Map<AssignmentStatus, Long> totals = emptyTotals();
+            for (Object[] row : deliveryAssignmentRepository.countByDeliveryPersonAndStatus(today.atStartOfDay())) {
+                AssignmentStatus status = (AssignmentStatus) row[1];
+                int count = ((Number) row[2]).intValue();
+                int deliveredToday = row[3] != null ? ((Number) row[3]).intValue() : 0;
+                rebuilt.merge((Long) row[0], Counters.of(status, count, today, deliveredToday), Counters::plus);
+                totals.merge(status, (long) count, Long::sum);
+            }
+            counters = rebuilt;
+            statusTotals = Collections.unmodifiableMap(totals);
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    // Apply after commit so a rolled-back change never reaches the counters
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAssignmentChanged(DeliveryAssignmentChangedEvent event) {
+        updateLock.lock();
+        try {
+            Map<Long, Counters> current = counters;
+            if (current == null) {
+                // Not counted yet; the first count reads this change from the database
+                return;
+            }
+            boolean drifted = false;
+            Map<AssignmentStatus, Long> totals = new EnumMap<>(statusTotals);
+            for (Transition transition : event.getTransitions()) {
+                if (transition.previousStatus() != null) {
+                    totals.merge(transition.previousStatus(), -1L, Long::sum);
+                }
+                if (transition.status() != null) {
+                    totals.merge(transition.status(), 1L, Long::sum);
+                }
+                if (transition.previousDeliveryPersonId() != null) {
+                    // Only a deleted assignment takes a delivery back out of the delivered count
+                    LocalDate deliveredDay = transition.status() == null && transition.at() != null
+                        ? transition.at().toLocalDate() : null;
+                    Counters updated = current.compute(transition.previousDeliveryPersonId(), (id, value) ->
+                        (value != null ? value : Counters.EMPTY).with(transition.previousStatus(), -1, deliveredDay));
+                    drifted |= updated.isNegative();
+                }
+                if (transition.deliveryPersonId() != null) {
+                    LocalDate day = transition.at() != null ? transition.at().toLocalDate() : LocalDate.now();
+                    current.compute(transition.deliveryPersonId(), (id, value) ->
+                        (value != null ? value : Counters.EMPTY).with(transition.status(), 1, day));
+                }
+            }
+            statusTotals = Collections.unmodifiableMap(totals);
+            drifted |= totals.values().stream().anyMatch(count -> count < 0);
+            if (drifted) {
+                // A change reached the database without its event; the counters cannot be trusted
+                log.warn("Rider load counters went negative, recounting from the database");
+                rebuild();
+            }
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    private Map<Long, Counters> currentCounters() {
+        Map<Long, Counters> current = counters;
+        if (current == null) {
+            rebuild();
+            current = counters;
+        }
+        return current;
+    }
+
+    private static Map<AssignmentStatus, Long> emptyTotals() {
+        Map<AssignmentStatus, Long> totals = new EnumMap<>(AssignmentStatus.class);
+        for (AssignmentStatus status : AssignmentStatus.values()) {
+            totals.put(status, 0L);
+        }
+        return totals;
+    }
+
+    // One rider's counters per status, other holding the statuses that carry no load (cancelled, in transit,
+    // failed); deliveredOnDay counts the deliveries of deliveredDay and reads as 0 on later days
+    private record Counters(int assigned, int pickedUp, int delivered, int other,
+                            LocalDate deliveredDay, int deliveredOnDay) {
+
+        static final Counters EMPTY = new Counters(0, 0, 0, 0, null, 0);
+
+        // Counters of one status group from the database, deliveredOnDay of which were delivered on day
+        static Counters of(AssignmentStatus status, int count, LocalDate day, int deliveredOnDay) {
+            return status == AssignmentStatus.DELIVERED
+                ? new Counters(0, 0, count, 0, day, deliveredOnDay)
+                : EMPTY.with(status, count, null);
+        }
+
+        // Adds delta assignments in the given status. A delivery on a later day than the one counted starts
+        // that day's count; removing a delivery only changes the day count when its day is given and counted
+        Counters with(AssignmentStatus status, int delta, LocalDate day) {
+            if (status == null) {
+                return this;
+            }
+            return switch (status) {
+                case ASSIGNED -> new Counters(assigned + delta, pickedUp, delivered, other, deliveredDay, deliveredOnDay);
+                case PICKED_UP -> new Counters(assigned, pickedUp + delta, delivered, other, deliveredDay, deliveredOnDay);
+                case DELIVERED -> {
+                    if (day != null && day.equals(deliveredDay)) {
+                        yield new Counters(assigned, pickedUp, delivered + delta, other, day, deliveredOnDay + delta);
+                    }
+                    yield day != null && delta > 0 && (deliveredDay == null || day.isAfter(deliveredDay))
+                        ? new Counters(assigned, pickedUp, delivered + delta, other, day, delta)
+                        : new Counters(assigned, pickedUp, delivered + delta, other, deliveredDay, deliveredOnDay);
+                }
+                default -> new Counters(assigned, pickedUp, delivered, other + delta, deliveredDay, deliveredOnDay);
+            };
+        }
+
+        boolean isNegative() {
+            return assigned < 0 || pickedUp < 0 || delivered < 0 || other < 0 || deliveredOnDay < 0;
+        }
+
+        long total() {
+            return (long) assigned + pickedUp + delivered + other;
+        }
+
+        Counters plus(Counters counters) {
+            LocalDate day = deliveredDay != null ? deliveredDay : counters.deliveredDay;
+            return new Counters(assigned + counters.assigned, pickedUp + counters.pickedUp,
+                delivered + counters.delivered, other + counters.other, day, deliveredOnDay + counters.deliveredOnDay);
+        }
+
+        RiderLoad toLoad(Long deliveryPersonId, LocalDate today) {
+            int deliveredToday = today.equals(deliveredDay) ? deliveredOnDay : 0;
+            return new RiderLoad(deliveryPersonId, assigned, pickedUp, assigned + pickedUp, deliveredToday);
+        }
+    }
+}
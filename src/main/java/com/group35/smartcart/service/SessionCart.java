@@ -0,0 +1,75 @@
+package com.group35.smartcart.service;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compact per-session cart: product ID to quantity, plus the lines selected for checkout.
+ * Only IDs and quantities are kept; names and prices come from the catalog snapshot
+ * whenever the cart is rendered, so they are never stale. Methods are synchronized
+ * because requests of the same session may run concurrently.
+ */
+public class SessionCart implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final LinkedHashMap<Long, Integer> quantities = new LinkedHashMap<>();
+    private final LinkedHashSet<Long> selected = new LinkedHashSet<>();
+
+    public synchronized void add(Long productId, int quantity, int maxQuantity) {
+        quantities.merge(productId, Math.min(quantity, maxQuantity), (current, added) -> Math.min(current + added, maxQuantity));
+    }
+
+    public synchronized void setQuantity(Long productId, int quantity) {
+        if (quantity <= 0) {
+            remove(productId);
+        } else {
+            quantities.put(productId, quantity);
+        }
+    }
+
+    public synchronized void remove(Long productId) {
+        quantities.remove(productId);
+        selected.remove(productId);
+    }
+
+    public synchronized void removeAll(Collection<Long> productIds) {
+        productIds.forEach(this::remove);
+    }
+
+    public synchronized void select(Collection<Long> productIds) {
+        selected.clear();
+        for (Long productId : productIds) {
+            if (quantities.containsKey(productId)) {
+                selected.add(productId);
+            }
+        }
+    }
+
+    public synchronized boolean isEmpty() {
+        return quantities.isEmpty();
+    }
+
+    public synchronized Map<Long, Integer> getQuantities() {
+        return new LinkedHashMap<>(quantities);
+    }
+
+    public synchronized Set<Long> getSelected() {
+        return new LinkedHashSet<>(selected);
+    }
+
+    // Selected lines with their quantities, in cart order
+    public synchronized Map<Long, Integer> getSelectedQuantities() {
+        Map<Long, Integer> result = new LinkedHashMap<>();
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            if (selected.contains(entry.getKey())) {
+                result.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return result;
+    }
+}
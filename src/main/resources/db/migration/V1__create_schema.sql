@@ -0,0 +1,137 @@
+-- Baseline schema, matching the JPA entities.
+-- Databases created earlier by ddl-auto=update are baselined at this version instead
+-- (spring.flyway.baseline-on-migrate), so this script only runs on empty databases.
+
+CREATE TABLE customers (
+    username        VARCHAR(50)  NOT NULL,
+    first_name      VARCHAR(50)  NOT NULL,
+    last_name       VARCHAR(50)  NOT NULL,
+    email           VARCHAR(255) NOT NULL,
+    phone_number    VARCHAR(20)  NOT NULL,
+    password        VARCHAR(255) NOT NULL,
+    billing_address VARCHAR(255) NULL,
+    postal_code     VARCHAR(20)  NULL,
+    created_at      DATETIME2(6) NULL,
+    updated_at      DATETIME2(6) NULL,
+    is_active       BIT          NULL,
+    CONSTRAINT pk_customers PRIMARY KEY (username),
+    CONSTRAINT uk_customers_email UNIQUE (email)
+);
+
+CREATE TABLE employees (
+    empid      VARCHAR(20)  NOT NULL,
+    password   VARCHAR(255) NOT NULL,
+    type       VARCHAR(32)  NOT NULL,
+    created_at DATETIME2(6) NULL,
+    updated_at DATETIME2(6) NULL,
+    is_active  BIT          NULL,
+    CONSTRAINT pk_employees PRIMARY KEY (empid)
+);
+
+CREATE TABLE customer_payment (
+    id                  BIGINT IDENTITY(1, 1) NOT NULL,
+    username            VARCHAR(50)  NOT NULL,
+    bank_name           VARCHAR(100) NOT NULL,
+    account_holder_name VARCHAR(100) NOT NULL,
+    account_number      VARCHAR(50)  NOT NULL,
+    created_at          DATETIME2(6) NULL,
+    updated_at          DATETIME2(6) NULL,
+    is_active           BIT          NULL,
+    CONSTRAINT pk_customer_payment PRIMARY KEY (id)
+);
+
+CREATE TABLE products (
+    id             BIGINT IDENTITY(1, 1) NOT NULL,
+    name           VARCHAR(255)   NOT NULL,
+    description    VARCHAR(1000)  NULL,
+    price          NUMERIC(10, 2) NOT NULL,
+    image_url      VARCHAR(255)   NULL,
+    category       VARCHAR(255)   NULL,
+    stock_quantity INT            NULL,
+    CONSTRAINT pk_products PRIMARY KEY (id)
+);
+
+CREATE TABLE payment (
+    payment_id            BIGINT IDENTITY(1, 1) NOT NULL,
+    username              VARCHAR(50)    NOT NULL,
+    product_ids           TEXT           NOT NULL,
+    product_quantities    TEXT           NOT NULL,
+    subtotal              NUMERIC(10, 2) NOT NULL,
+    payslip_location_path VARCHAR(255)   NULL,
+    order_status          VARCHAR(255)   NULL,
+    created_at            DATETIME2(6)   NULL,
+    updated_at            DATETIME2(6)   NULL,
+    CONSTRAINT pk_payment PRIMARY KEY (payment_id)
+);
+
+CREATE SEQUENCE order_items_seq AS BIGINT START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE order_items (
+    id         BIGINT         NOT NULL,
+    order_id   BIGINT         NOT NULL,
+    product_id BIGINT         NOT NULL,
+    quantity   INT            NOT NULL,
+    unit_price NUMERIC(10, 2) NOT NULL,
+    CONSTRAINT pk_order_items PRIMARY KEY (id),
+    CONSTRAINT fk_order_items_order FOREIGN KEY (order_id) REFERENCES payment (payment_id),
+    CONSTRAINT fk_order_items_product FOREIGN KEY (product_id) REFERENCES products (id)
+);
+
+CREATE TABLE bills (
+    id                  BIGINT IDENTITY(1, 1) NOT NULL,
+    payment_id          BIGINT         NOT NULL,
+    order_id            BIGINT         NOT NULL,
+    username            VARCHAR(255)   NOT NULL,
+    product_names       TEXT           NOT NULL,
+    product_quantities  TEXT           NOT NULL,
+    subtotal            NUMERIC(10, 2) NOT NULL,
+    total               NUMERIC(10, 2) NOT NULL,
+    bank_name           VARCHAR(255)   NOT NULL,
+    bank_account_number VARCHAR(255)   NOT NULL,
+    created_at          DATETIME2(6)   NULL,
+    CONSTRAINT pk_bills PRIMARY KEY (id)
+);
+
+CREATE TABLE delivery_persons (
+    id             BIGINT IDENTITY(1, 1) NOT NULL,
+    name           VARCHAR(100) NOT NULL,
+    email          VARCHAR(255) NOT NULL,
+    contact_number VARCHAR(20)  NOT NULL,
+    vehicle_type   VARCHAR(32)  NOT NULL,
+    vehicle_number VARCHAR(20)  NOT NULL,
+    created_at     DATETIME2(6) NULL,
+    updated_at     DATETIME2(6) NULL,
+    is_active      BIT          NULL,
+    is_deleted     BIT          NULL,
+    CONSTRAINT pk_delivery_persons PRIMARY KEY (id),
+    CONSTRAINT uk_delivery_persons_email UNIQUE (email)
+);
+
+CREATE TABLE delivery_assignments (
+    id                 BIGINT IDENTITY(1, 1) NOT NULL,
+    delivery_person_id BIGINT       NOT NULL,
+    order_id           BIGINT       NOT NULL,
+    status             VARCHAR(32)  NOT NULL,
+    assigned_at        DATETIME2(6) NULL,
+    picked_up_at       DATETIME2(6) NULL,
+    delivered_at       DATETIME2(6) NULL,
+    notes              VARCHAR(255) NULL,
+    created_at         DATETIME2(6) NULL,
+    updated_at         DATETIME2(6) NULL,
+    CONSTRAINT pk_delivery_assignments PRIMARY KEY (id),
+    CONSTRAINT uk_delivery_assignments_order UNIQUE (order_id),
+    CONSTRAINT fk_delivery_assignments_person FOREIGN KEY (delivery_person_id) REFERENCES delivery_persons (id),
+    CONSTRAINT fk_delivery_assignments_order FOREIGN KEY (order_id) REFERENCES payment (payment_id)
+);
+
+CREATE SEQUENCE cart_items_seq AS BIGINT START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE cart_items (
+    id         BIGINT       NOT NULL,
+    username   VARCHAR(50)  NOT NULL,
+    product_id BIGINT       NOT NULL,
+    quantity   INT          NOT NULL,
+    updated_at DATETIME2(6) NULL,
+    CONSTRAINT pk_cart_items PRIMARY KEY (id),
+    CONSTRAINT uk_cart_items_username_product UNIQUE (username, product_id)
+);
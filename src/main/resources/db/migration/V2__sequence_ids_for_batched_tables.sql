@@ -0,0 +1,86 @@
+-- order_items and cart_items take their ids from sequences (allocated 50 at a time) so that
+-- Hibernate can batch their inserts. Databases baselined from ddl-auto=update still have
+-- IDENTITY id columns there, which reject explicit ids, so those tables are rebuilt without
+-- IDENTITY, keeping their rows, and the sequences are started past the highest existing id.
+-- On databases created by V1 nothing changes.
+
+-- Databases baselined before these tables existed get them here
+IF OBJECT_ID('order_items') IS NULL
+    EXEC('CREATE TABLE order_items (
+        id         BIGINT         NOT NULL,
+        order_id   BIGINT         NOT NULL,
+        product_id BIGINT         NOT NULL,
+        quantity   INT            NOT NULL,
+        unit_price NUMERIC(10, 2) NOT NULL,
+        CONSTRAINT pk_order_items PRIMARY KEY (id),
+        CONSTRAINT fk_order_items_order FOREIGN KEY (order_id) REFERENCES payment (payment_id),
+        CONSTRAINT fk_order_items_product FOREIGN KEY (product_id) REFERENCES products (id)
+    )');
+
+IF OBJECT_ID('cart_items') IS NULL
+    EXEC('CREATE TABLE cart_items (
+        id         BIGINT       NOT NULL,
+        username   VARCHAR(50)  NOT NULL,
+        product_id BIGINT       NOT NULL,
+        quantity   INT          NOT NULL,
+        updated_at DATETIME2(6) NULL,
+        CONSTRAINT pk_cart_items PRIMARY KEY (id),
+        CONSTRAINT uk_cart_items_username_product UNIQUE (username, product_id)
+    )');
+
+IF COLUMNPROPERTY(OBJECT_ID('order_items'), 'id', 'IsIdentity') = 1
+BEGIN
+    EXEC sp_rename 'order_items', 'order_items_identity';
+    EXEC('CREATE TABLE order_items (
+        id         BIGINT         NOT NULL,
+        order_id   BIGINT         NOT NULL,
+        product_id BIGINT         NOT NULL,
+        quantity   INT            NOT NULL,
+        unit_price NUMERIC(10, 2) NOT NULL,
+        CONSTRAINT pk_order_items PRIMARY KEY (id),
+        CONSTRAINT fk_order_items_order FOREIGN KEY (order_id) REFERENCES payment (payment_id),
+        CONSTRAINT fk_order_items_product FOREIGN KEY (product_id) REFERENCES products (id)
+    )');
+    EXEC('INSERT INTO order_items (id, order_id, product_id, quantity, unit_price)
+          SELECT id, order_id, product_id, quantity, unit_price FROM order_items_identity');
+    EXEC('DROP TABLE order_items_identity');
+    -- A sequence created by ddl-auto=update would start at 1, below the existing ids
+    IF EXISTS (SELECT 1 FROM sys.sequences WHERE name = 'order_items_seq')
+        EXEC('DROP SEQUENCE order_items_seq');
+END;
+
+IF COLUMNPROPERTY(OBJECT_ID('cart_items'), 'id', 'IsIdentity') = 1
+BEGIN
+    EXEC sp_rename 'cart_items', 'cart_items_identity';
+    EXEC('CREATE TABLE cart_items (
+        id         BIGINT       NOT NULL,
+        username   VARCHAR(50)  NOT NULL,
+        product_id BIGINT       NOT NULL,
+        quantity   INT          NOT NULL,
+        updated_at DATETIME2(6) NULL,
+        CONSTRAINT pk_cart_items PRIMARY KEY (id)
+    )');
+    EXEC('INSERT INTO cart_items (id, username, product_id, quantity, updated_at)
+          SELECT id, username, product_id, quantity, updated_at FROM cart_items_identity');
+    EXEC('DROP TABLE cart_items_identity');
+    -- A sequence created by ddl-auto=update would start at 1, below the existing ids
+    IF EXISTS (SELECT 1 FROM sys.sequences WHERE name = 'cart_items_seq')
+        EXEC('DROP SEQUENCE cart_items_seq');
+    EXEC('ALTER TABLE cart_items ADD CONSTRAINT uk_cart_items_username_product UNIQUE (username, product_id)');
+END;
+
+-- Hibernate's pooled optimizer hands out the 50 ids below each value it reads, so an
+-- existing table needs its sequence to start 50 past its highest id
+IF NOT EXISTS (SELECT 1 FROM sys.sequences WHERE name = 'order_items_seq')
+BEGIN
+    DECLARE @orderItemsSql NVARCHAR(200) = N'CREATE SEQUENCE order_items_seq AS BIGINT START WITH '
+        + CAST((SELECT ISNULL(MAX(id) + 50, 1) FROM order_items) AS NVARCHAR(20)) + N' INCREMENT BY 50';
+    EXEC(@orderItemsSql);
+END;
+
+IF NOT EXISTS (SELECT 1 FROM sys.sequences WHERE name = 'cart_items_seq')
+BEGIN
+    DECLARE @cartItemsSql NVARCHAR(200) = N'CREATE SEQUENCE cart_items_seq AS BIGINT START WITH '
+        + CAST((SELECT ISNULL(MAX(id) + 50, 1) FROM cart_items) AS NVARCHAR(20)) + N' INCREMENT BY 50';
+    EXEC(@cartItemsSql);
+END;
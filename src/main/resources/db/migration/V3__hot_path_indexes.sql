@@ -0,0 +1,93 @@
+-- Indexes for the repository finders. Databases baselined from ddl-auto=update may already
+-- have the indexes that were declared on the entities, so every index is created only if missing.
+-- Finders that filter with a leading-wildcard LIKE (product, delivery person and note searches)
+-- cannot use a B-tree index and are not covered here.
+
+-- payment (OrderRepository)
+-- findByUsername, findByUsernameOrderByCreatedAtDesc, findFirstByUsernameOrderByCreatedAtDesc,
+-- findByUsernameAndOrderStatus, countByUsername
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_payment_username_created_at' AND object_id = OBJECT_ID('payment'))
+    CREATE INDEX idx_payment_username_created_at ON payment (username, created_at DESC, payment_id DESC) INCLUDE (order_status);
+
+-- findByOrderStatus, countByOrderStatus, findByOrderStatusOrderByCreatedAtDescPaymentIdDesc, findPageByOrderStatusAfter
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_payment_status_created_at' AND object_id = OBJECT_ID('payment'))
+    CREATE INDEX idx_payment_status_created_at ON payment (order_status, created_at, payment_id);
+
+-- findAllByOrderByCreatedAtDesc, findAllByOrderByCreatedAtDescPaymentIdDesc, findPageAfter
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_payment_created_at' AND object_id = OBJECT_ID('payment'))
+    CREATE INDEX idx_payment_created_at ON payment (created_at, payment_id);
+
+-- order_items (OrderItemRepository)
+-- findWithProductByOrderId, findWithProductByOrderIdIn, existsByOrderPaymentId, OrderRepository.findWithoutItemsAfter
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_order_items_order_id' AND object_id = OBJECT_ID('order_items'))
+    CREATE INDEX idx_order_items_order_id ON order_items (order_id) INCLUDE (product_id, quantity, unit_price);
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_order_items_product_id' AND object_id = OBJECT_ID('order_items'))
+    CREATE INDEX idx_order_items_product_id ON order_items (product_id);
+
+-- customer_payment (CustomerPaymentRepository)
+-- findByUsername, findByUsernameAndIsActiveTrue, findFirstByUsernameAndIsActiveTrueOrderByCreatedAtDesc,
+-- findLatestActiveByUsernameIn, existsByUsernameAndIsActiveTrue
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_customer_payment_username_active_created_at' AND object_id = OBJECT_ID('customer_payment'))
+    CREATE INDEX idx_customer_payment_username_active_created_at ON customer_payment (username, is_active, created_at DESC);
+
+-- bills (BillRepository)
+-- findByPaymentId, existsByPaymentId, findByPaymentIdIn
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_bills_payment_id' AND object_id = OBJECT_ID('bills'))
+    CREATE INDEX idx_bills_payment_id ON bills (payment_id);
+
+-- findByOrderId
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_bills_order_id' AND object_id = OBJECT_ID('bills'))
+    CREATE INDEX idx_bills_order_id ON bills (order_id);
+
+-- findBatchForExport by customer (the date-range export walks the primary key)
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_bills_username_id' AND object_id = OBJECT_ID('bills'))
+    CREATE INDEX idx_bills_username_id ON bills (username, id) INCLUDE (created_at);
+
+-- products (ProductRepository)
+-- findByCategory, findByCategoryAndPriceBetween, findAllCategories
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_products_category_price' AND object_id = OBJECT_ID('products'))
+    CREATE INDEX idx_products_category_price ON products (category, price);
+
+-- findByPriceBetween
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_products_price' AND object_id = OBJECT_ID('products'))
+    CREATE INDEX idx_products_price ON products (price);
+
+-- findByStockQuantityGreaterThan
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_products_stock_quantity' AND object_id = OBJECT_ID('products'))
+    CREATE INDEX idx_products_stock_quantity ON products (stock_quantity);
+
+-- delivery_assignments (DeliveryAssignmentRepository)
+-- findByDeliveryPerson[Id][AndStatus], countByDeliveryPerson[Id], findActiveAssignmentsByDeliveryPersonId,
+-- findByDeliveryPerson[Id]OrderByAssignedAtDesc, getDeliveryStats
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_delivery_assignments_person_status' AND object_id = OBJECT_ID('delivery_assignments'))
+    CREATE INDEX idx_delivery_assignments_person_status ON delivery_assignments (delivery_person_id, status, assigned_at DESC) INCLUDE (delivered_at);
+
+-- findByStatus, countByStatus, findOverdueAssignments
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_delivery_assignments_status_assigned_at' AND object_id = OBJECT_ID('delivery_assignments'))
+    CREATE INDEX idx_delivery_assignments_status_assigned_at ON delivery_assignments (status, assigned_at);
+
+-- findAllByOrderByAssignedAtDesc, findByAssignedAtBetween
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_delivery_assignments_assigned_at' AND object_id = OBJECT_ID('delivery_assignments'))
+    CREATE INDEX idx_delivery_assignments_assigned_at ON delivery_assignments (assigned_at DESC);
+
+-- findByDeliveredAtBetween
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_delivery_assignments_delivered_at' AND object_id = OBJECT_ID('delivery_assignments'))
+    CREATE INDEX idx_delivery_assignments_delivered_at ON delivery_assignments (delivered_at);
+
+-- delivery_persons (DeliverPersonRepository); findByEmail uses the unique email constraint
+-- findByVehicleNumber
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_delivery_persons_vehicle_number' AND object_id = OBJECT_ID('delivery_persons'))
+    CREATE INDEX idx_delivery_persons_vehicle_number ON delivery_persons (vehicle_number);
+
+-- findByIsDeletedFalse, findByIsActiveTrueAndIsDeletedFalse, findByVehicleTypeAndIsDeletedFalse
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_delivery_persons_deleted_active' AND object_id = OBJECT_ID('delivery_persons'))
+    CREATE INDEX idx_delivery_persons_deleted_active ON delivery_persons (is_deleted, is_active, vehicle_type);
+
+-- findByIsActiveTrue
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_delivery_persons_active' AND object_id = OBJECT_ID('delivery_persons'))
+    CREATE INDEX idx_delivery_persons_active ON delivery_persons (is_active);
+
+-- customers: findByUsername* use the primary key, findByEmail/existsByEmail the unique email constraint
+-- employees: findByEmpidAndIsActiveTrue and existsByEmpid use the primary key
+-- cart_items: findByUsernameOrderByIdAsc and deleteByUsername use the unique (username, product_id) constraint
@@ -0,0 +1,32 @@
+-- Idempotent order placement: a checkout request carries a client-generated key, and a
+-- replayed request finds the order the first one placed instead of placing another.
+-- Payment details are reused per (username, bank, account) instead of inserted per order.
+
+IF COL_LENGTH('payment', 'idempotency_key') IS NULL
+    ALTER TABLE payment ADD idempotency_key VARCHAR(64) NULL;
+
+-- OrderRepository.findByUsernameAndIdempotencyKey; also rejects a concurrent duplicate
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'ux_payment_username_idempotency_key' AND object_id = OBJECT_ID('payment'))
+    EXEC('CREATE UNIQUE INDEX ux_payment_username_idempotency_key ON payment (username, idempotency_key)
+        WHERE idempotency_key IS NOT NULL');
+
+-- Collapse the duplicate rows every earlier order inserted: keep the most recently used row
+-- of each (username, bank, account) active and deactivate the rest
+;WITH ranked AS (
+    SELECT is_active,
+           ROW_NUMBER() OVER (PARTITION BY username, bank_name, account_number
+                              ORDER BY updated_at DESC, id DESC) AS position
+    FROM customer_payment
+    WHERE is_active = 1
+)
+UPDATE ranked SET is_active = 0 WHERE position > 1;
+
+-- CustomerPaymentRepository.findFirstByUsernameAndBankNameAndAccountNumberAndIsActiveTrueOrderByIdDesc
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'ux_customer_payment_active_account' AND object_id = OBJECT_ID('customer_payment'))
+    CREATE UNIQUE INDEX ux_customer_payment_active_account ON customer_payment (username, bank_name, account_number)
+        WHERE is_active = 1;
+
+-- findFirstByUsernameAndIsActiveTrueOrderByUpdatedAtDescIdDesc, findLatestActiveByUsernameIn
+-- ("latest" is now the most recently used row rather than the most recently created one)
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_customer_payment_username_active_updated_at' AND object_id = OBJECT_ID('customer_payment'))
+    CREATE INDEX idx_customer_payment_username_active_updated_at ON customer_payment (username, is_active, updated_at DESC, id DESC);
@@ -0,0 +1,9 @@
+-- The customer order history page reads paymentId, createdAt, status, subtotal and payslip path
+-- for one username, newest first. Rebuild the (username, created_at) index so it covers that
+-- projection and a page is answered from the index alone.
+
+IF EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_payment_username_created_at' AND object_id = OBJECT_ID('payment'))
+    DROP INDEX idx_payment_username_created_at ON payment;
+
+CREATE INDEX idx_payment_username_created_at ON payment (username, created_at DESC, payment_id DESC)
+    INCLUDE (order_status, subtotal, payslip_location_path);
@@ -0,0 +1,58 @@
+-- delivery_assignments takes its ids from a sequence (allocated 50 at a time) so that the
+-- assignments of a dispatch run can be inserted in JDBC batches. The table was created with an
+-- IDENTITY id column, which rejects explicit ids, so it is rebuilt without IDENTITY, keeping its
+-- rows, constraints and indexes, and the sequence is started past the highest existing id.
+
+IF COLUMNPROPERTY(OBJECT_ID('delivery_assignments'), 'id', 'IsIdentity') = 1
+BEGIN
+    EXEC sp_rename 'delivery_assignments', 'delivery_assignments_identity';
+    -- Constraints are added once the old table (which still holds their names) is dropped
+    EXEC('CREATE TABLE delivery_assignments (
+        id                 BIGINT       NOT NULL,
+        delivery_person_id BIGINT       NOT NULL,
+        order_id           BIGINT       NOT NULL,
+        status             VARCHAR(32)  NOT NULL,
+        assigned_at        DATETIME2(6) NULL,
+        picked_up_at       DATETIME2(6) NULL,
+        delivered_at       DATETIME2(6) NULL,
+        notes              VARCHAR(255) NULL,
+        created_at         DATETIME2(6) NULL,
+        updated_at         DATETIME2(6) NULL
+    )');
+    EXEC('INSERT INTO delivery_assignments (id, delivery_person_id, order_id, status, assigned_at, picked_up_at,
+                                            delivered_at, notes, created_at, updated_at)
+          SELECT id, delivery_person_id, order_id, status, assigned_at, picked_up_at,
+                 delivered_at, notes, created_at, updated_at
+          FROM delivery_assignments_identity');
+    EXEC('DROP TABLE delivery_assignments_identity');
+    EXEC('ALTER TABLE delivery_assignments ADD
+        CONSTRAINT pk_delivery_assignments PRIMARY KEY (id),
+        CONSTRAINT uk_delivery_assignments_order UNIQUE (order_id),
+        CONSTRAINT fk_delivery_assignments_person FOREIGN KEY (delivery_person_id) REFERENCES delivery_persons (id),
+        CONSTRAINT fk_delivery_assignments_order FOREIGN KEY (order_id) REFERENCES payment (payment_id)');
+    -- A sequence created by ddl-auto=update would start at 1, below the existing ids
+    IF EXISTS (SELECT 1 FROM sys.sequences WHERE name = 'delivery_assignments_seq')
+        EXEC('DROP SEQUENCE delivery_assignments_seq');
+END;
+
+-- The indexes of V3 went with the old table
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_delivery_assignments_person_status' AND object_id = OBJECT_ID('delivery_assignments'))
+    CREATE INDEX idx_delivery_assignments_person_status ON delivery_assignments (delivery_person_id, status, assigned_at DESC) INCLUDE (delivered_at);
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_delivery_assignments_status_assigned_at' AND object_id = OBJECT_ID('delivery_assignments'))
+    CREATE INDEX idx_delivery_assignments_status_assigned_at ON delivery_assignments (status, assigned_at);
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_delivery_assignments_assigned_at' AND object_id = OBJECT_ID('delivery_assignments'))
+    CREATE INDEX idx_delivery_assignments_assigned_at ON delivery_assignments (assigned_at DESC);
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'idx_delivery_assignments_delivered_at' AND object_id = OBJECT_ID('delivery_assignments'))
+    CREATE INDEX idx_delivery_assignments_delivered_at ON delivery_assignments (delivered_at);
+
+-- Hibernate's pooled optimizer hands out the 50 ids below each value it reads, so the
+-- sequence starts 50 past the highest id
+IF NOT EXISTS (SELECT 1 FROM sys.sequences WHERE name = 'delivery_assignments_seq')
+BEGIN
+    DECLARE @deliveryAssignmentsSql NVARCHAR(200) = N'CREATE SEQUENCE delivery_assignments_seq AS BIGINT START WITH '
+        + CAST((SELECT ISNULL(MAX(id) + 50, 1) FROM delivery_assignments) AS NVARCHAR(20)) + N' INCREMENT BY 50';
+    EXEC(@deliveryAssignmentsSql);
+END;
@@ -0,0 +1,21 @@
+-- Per delivery person running aggregates of pickup (assignment to pickup) and delivery (pickup
+-- to delivery) times, maintained on each pickup and delivery (DeliveryMetricsService) in place
+-- of getDeliveryStats, which averaged the whole history on every call with MySQL's TIMESTAMPDIFF.
+-- Rows are built from the existing history by DeliveryStatsBackfillService at startup. The
+-- table is derived data, so it has no foreign key that would block hard-deleting a rider.
+
+IF OBJECT_ID('delivery_stats') IS NULL
+    CREATE TABLE delivery_stats (
+        delivery_person_id            BIGINT       NOT NULL,
+        pickup_count                  BIGINT       NOT NULL,
+        pickup_total_seconds          BIGINT       NOT NULL,
+        pickup_max_seconds            BIGINT       NOT NULL,
+        pickup_histogram              VARCHAR(255) NULL,
+        delivery_count                BIGINT       NOT NULL,
+        delivery_total_seconds        BIGINT       NOT NULL,
+        delivery_max_seconds          BIGINT       NOT NULL,
+        delivery_histogram            VARCHAR(255) NULL,
+        assigned_to_delivered_seconds BIGINT       NOT NULL,
+        updated_at                    DATETIME2(6) NULL,
+        CONSTRAINT pk_delivery_stats PRIMARY KEY (delivery_person_id)
+    );
@@ -0,0 +1,14 @@
+-- Order items keep the product name they were ordered under, so a bill keeps showing the name
+-- it was issued with after the product is renamed. Existing items take the current name, the
+-- best available; no earlier name was stored.
+
+IF COL_LENGTH('order_items', 'product_name') IS NULL
+    ALTER TABLE order_items ADD product_name VARCHAR(255) NULL;
+
+-- Dynamic so the batch compiles before the column exists
+EXEC('UPDATE oi SET oi.product_name = p.name
+    FROM order_items oi
+    JOIN products p ON p.id = oi.product_id
+    WHERE oi.product_name IS NULL');
+
+EXEC('ALTER TABLE order_items ALTER COLUMN product_name VARCHAR(255) NOT NULL');
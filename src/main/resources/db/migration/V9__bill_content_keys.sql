@@ -0,0 +1,6 @@
+-- The content key (SHA-256 of the bill HTML, the PDF's ETag and disk store name) is stored
+-- with the bill once it is first computed, so a conditional download is answered from the
+-- bill row alone. Existing bills get theirs on first download.
+
+IF COL_LENGTH('bills', 'content_key') IS NULL
+    ALTER TABLE bills ADD content_key VARCHAR(64) NULL;
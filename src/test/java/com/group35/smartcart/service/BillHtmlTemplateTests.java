@@ -0,0 +1,71 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.entity.Bill;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BillHtmlTemplateTests {
+
+	@Test
+	void rendersFieldsAndOneRowPerLine() {
+		BillHtmlTemplate template = BillHtmlTemplate.compile(
+			"<h1>#{{billId}} {{customer}} {{total}}</h1>\n{{#items}}\n<tr>{{itemName}}|{{itemQuantity}}|{{itemUnitPrice}}|{{itemLineTotal}}</tr>\n{{/items}}\n<p>{{date}}</p>");
+
+		String html = render(template, bill(), List.of(
+			new BillHtmlTemplate.Line("Fresh Milk", 2, new BigDecimal("1.50"), new BigDecimal("3.00")),
+			new BillHtmlTemplate.Line("Bread", 1, null, null)));
+
+		assertEquals("<h1>#42 alice $4.01</h1>\n"
+			+ "<tr>Fresh Milk|2|$1.50|$3.00</tr>\n"
+			+ "<tr>Bread|1|-|-</tr>\n"
+			+ "<p>Mar 05, 2025 at 02:07 PM</p>", html);
+	}
+
+	@Test
+	void escapesHtmlAndEncodesUtf8() {
+		BillHtmlTemplate template = BillHtmlTemplate.compile("{{#items}}{{itemName}};{{/items}}");
+
+		String html = render(template, bill(), List.of(
+			new BillHtmlTemplate.Line("<b>Fish & \"Chips\"</b>", 1, null, null),
+			new BillHtmlTemplate.Line("Caf\u00e9 \uD83C\uDF70", 1, null, null)));
+
+		assertEquals("&lt;b&gt;Fish &amp; &quot;Chips&quot;&lt;/b&gt;;Caf\u00e9 \uD83C\uDF70;", html);
+	}
+
+	@Test
+	void rejectsUnknownFieldsAndUnbalancedBlocks() {
+		assertThrows(IllegalArgumentException.class, () -> BillHtmlTemplate.compile("{{nope}}"));
+		assertThrows(IllegalArgumentException.class, () -> BillHtmlTemplate.compile("{{itemName}}"));
+		assertThrows(IllegalArgumentException.class, () -> BillHtmlTemplate.compile("{{#items}}"));
+		assertThrows(IllegalArgumentException.class, () -> BillHtmlTemplate.compile("{{/items}}"));
+	}
+
+	@Test
+	void bundledTemplateCompiles() {
+		String html = render(BillHtmlTemplate.fromClasspath("pdf/bill.html"), bill(), List.of(
+			new BillHtmlTemplate.Line("Fresh Milk", 2, new BigDecimal("1.50"), new BigDecimal("3.00"))));
+
+		assertTrue(html.contains("<td>Fresh Milk</td>"));
+		assertTrue(html.contains("<title>Bill #42</title>"));
+	}
+
+	private static String render(BillHtmlTemplate template, Bill bill, List<BillHtmlTemplate.Line> lines) {
+		return new String(template.render(bill, lines), StandardCharsets.UTF_8);
+	}
+
+	private static Bill bill() {
+		Bill bill = new Bill(7L, 7L, "alice", "Fresh Milk", "2",
+			new BigDecimal("4.005"), new BigDecimal("4.005"), "Bank", "1234567890");
+		bill.setId(42L);
+		bill.setCreatedAt(LocalDateTime.of(2025, 3, 5, 14, 7));
+		return bill;
+	}
+}
@@ -0,0 +1,122 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.config.WorkerThreads;
+import com.group35.smartcart.entity.CartItem;
+import com.group35.smartcart.entity.Customer;
+import com.group35.smartcart.entity.Product;
+import com.group35.smartcart.repository.CartItemRepository;
+import com.group35.smartcart.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({CartService.class, ProductCatalogService.class, WorkerThreads.class})
+// Saved carts are written on the write-behind thread, which only sees committed rows
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CartServiceTests {
+
+	@Autowired
+	private CartService cartService;
+
+	@Autowired
+	private CartItemRepository cartItemRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	private Long bread;
+	private Long milk;
+	private Long eggs;
+
+	@BeforeEach
+	void setUp() {
+		// Saved once, before the catalog snapshot is first built
+		if (productRepository.count() == 0) {
+			productRepository.saveAll(List.of(
+				new Product("Bread", null, new BigDecimal("1.20"), null, "Bakery"),
+				new Product("Milk", null, new BigDecimal("0.99"), null, "Dairy"),
+				new Product("Eggs", null, new BigDecimal("2.50"), null, "Dairy")));
+		}
+		List<Product> products = productRepository.findAll();
+		bread = products.get(0).getId();
+		milk = products.get(1).getId();
+		eggs = products.get(2).getId();
+	}
+
+	@Test
+	void changesOfLoggedInCustomersAreSaved() {
+		MockHttpSession session = loggedIn("saver");
+		cartService.addItem(session, bread, 2);
+		cartService.addItem(session, milk, 1);
+		cartService.removeItem(session, bread);
+		cartService.addItem(session, eggs, 3);
+
+		cartService.flushPendingWrite("saver");
+
+		assertEquals(Map.of(milk, 1, eggs, 3), savedCart("saver"));
+	}
+
+	@Test
+	void restoringMergesTheSavedCartIntoTheSession() {
+		MockHttpSession earlier = loggedIn("returning");
+		cartService.addItem(earlier, bread, 2);
+		cartService.addItem(earlier, milk, 1);
+
+		// Lines already in the new session keep their session quantity
+		MockHttpSession session = new MockHttpSession();
+		cartService.addItem(session, milk, 4);
+		cartService.restoreSavedCart(session, "returning");
+
+		assertEquals(Map.of(bread, 2, milk, 4), cartService.getCart(session).getQuantities());
+		cartService.flushPendingWrite("returning");
+		assertEquals(Map.of(bread, 2, milk, 4), savedCart("returning"));
+	}
+
+	@Test
+	void restoringRightAfterAChangeSeesIt() {
+		for (int i = 0; i < 25; i++) {
+			String username = "relogin" + i;
+			MockHttpSession earlier = loggedIn(username);
+			cartService.addItem(earlier, bread, 1);
+			cartService.addItem(earlier, eggs, i + 1);
+
+			// The write-behind of the earlier session may be queued, running or done
+			MockHttpSession session = new MockHttpSession();
+			cartService.restoreSavedCart(session, username);
+
+			assertEquals(Map.of(bread, 1, eggs, i + 1), cartService.getCart(session).getQuantities());
+			cartService.flushPendingWrite(username);
+			assertEquals(Map.of(bread, 1, eggs, i + 1), savedCart(username));
+		}
+	}
+
+	private MockHttpSession loggedIn(String username) {
+		MockHttpSession session = new MockHttpSession();
+		session.setAttribute("customer", new Customer(username, "First", "Last", username + "@example.com",
+			"0771234567", "secret"));
+		return session;
+	}
+
+	private Map<Long, Integer> savedCart(String username) {
+		Map<Long, Integer> lines = new LinkedHashMap<>();
+		for (CartItem item : cartItemRepository.findByUsernameOrderByIdAsc(username)) {
+			lines.put(item.getProductId(), item.getQuantity());
+		}
+		return lines;
+	}
+}
@@ -0,0 +1,90 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.entity.AssignmentStatus;
+import com.group35.smartcart.entity.DeliveryAssignment;
+import com.group35.smartcart.entity.DeliveryPerson;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Import({DeliveryAssignmentService.class, DeliveryMetricsService.class})
+class DeliveryAssignmentServiceTests {
+
+	@Autowired
+	private DeliveryAssignmentService deliveryAssignmentService;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	private Statistics statistics;
+
+	private DeliveryFixtures fixtures;
+
+	@BeforeEach
+	void setUp() {
+		fixtures = new DeliveryFixtures(entityManager);
+		statistics = entityManager.getEntityManager().getEntityManagerFactory()
+			.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	void listingAssignmentsTakesOneQueryWhateverTheRowCount() {
+		DeliveryPerson rider = fixtures.persistRider();
+		DeliveryPerson otherRider = fixtures.persistRider();
+
+		persistAssignments(rider, otherRider, 2);
+		assertEquals(1, countStatements(() -> deliveryAssignmentService.getAllAssignments()));
+		assertEquals(1, countStatements(() -> deliveryAssignmentService.getAssignmentsByStatus(AssignmentStatus.ASSIGNED)));
+		assertEquals(1, countStatements(() -> deliveryAssignmentService.getAssignmentsByDeliveryPersonId(rider.getId())));
+
+		persistAssignments(rider, otherRider, 20);
+		assertEquals(1, countStatements(() -> deliveryAssignmentService.getAllAssignments()));
+		assertEquals(1, countStatements(() -> deliveryAssignmentService.getAssignmentsByStatus(AssignmentStatus.ASSIGNED)));
+		assertEquals(1, countStatements(() -> deliveryAssignmentService.getAssignmentsByDeliveryPersonId(rider.getId())));
+		assertEquals(1, countStatements(() -> deliveryAssignmentService.getActiveAssignmentsByDeliveryPersonId(rider.getId())));
+	}
+
+	@Test
+	void viewCarriesOnlyTheBoardFields() {
+		DeliveryPerson rider = fixtures.persistRider();
+		DeliveryAssignment assignment = fixtures.persistAssignment(rider);
+		entityManager.flush();
+		entityManager.clear();
+
+		DeliveryAssignmentView view = DeliveryAssignmentView.from(deliveryAssignmentService.getAllAssignments().get(0));
+
+		assertEquals(assignment.getOrder().getUsername(), view.order().username());
+		assertEquals(new BigDecimal("9.99"), view.order().subtotal());
+		assertEquals(rider.getName(), view.deliveryPerson().name());
+		assertEquals(AssignmentStatus.ASSIGNED, view.status());
+	}
+
+	// Statements run by loading the assignments and mapping them to views, from a cleared persistence context
+	private long countStatements(Supplier<List<DeliveryAssignment>> load) {
+		entityManager.clear();
+		statistics.clear();
+		load.get().forEach(DeliveryAssignmentView::from);
+		return statistics.getPrepareStatementCount();
+	}
+
+	private void persistAssignments(DeliveryPerson rider, DeliveryPerson otherRider, int count) {
+		for (int i = 0; i < count; i++) {
+			fixtures.persistAssignment(i % 2 == 0 ? rider : otherRider);
+		}
+		entityManager.flush();
+	}
+}
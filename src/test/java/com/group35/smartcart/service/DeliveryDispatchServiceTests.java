@@ -0,0 +1,186 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.entity.AssignmentStatus;
+import com.group35.smartcart.entity.DeliveryAssignment;
+import com.group35.smartcart.entity.DeliveryPerson;
+import com.group35.smartcart.entity.Order;
+import com.group35.smartcart.entity.OrderItem;
+import com.group35.smartcart.entity.Product;
+import com.group35.smartcart.repository.DeliveryAssignmentRepository;
+import com.group35.smartcart.service.DeliveryDispatchService.Dispatch;
+import com.group35.smartcart.service.DeliveryDispatchService.DispatchResult;
+import com.group35.smartcart.service.DeliveryDispatchService.PendingOrder;
+import com.group35.smartcart.service.DeliveryDispatchService.RiderLoad;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+	"spring.jpa.properties.hibernate.generate_statistics=true",
+	"smartcart.dispatch.bike-capacity=10",
+	"smartcart.dispatch.threewheel-capacity=30",
+	"smartcart.dispatch.lorry-capacity=100"
+})
+@ActiveProfiles("test")
+@Import(DeliveryDispatchService.class)
+class DeliveryDispatchServiceTests {
+
+	@Autowired
+	private DeliveryDispatchService deliveryDispatchService;
+
+	@Autowired
+	private DeliveryAssignmentRepository deliveryAssignmentRepository;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	private Product product;
+
+	private DeliveryFixtures fixtures;
+
+	private int sequence;
+
+	@BeforeEach
+	void setUp() {
+		fixtures = new DeliveryFixtures(entityManager);
+		product = entityManager.persist(new Product("Fresh Milk", "Whole milk", new BigDecimal("3.49"), null, "Dairy"));
+	}
+
+	@Test
+	void dispatchAssignsOnlyApprovedUnassignedOrders() {
+		DeliveryPerson rider = fixtures.persistRider(DeliveryPerson.VehicleType.LORRY);
+		Order approved = persistOrder("APPROVED", 2);
+		persistOrder("PENDING", 2);
+		Order alreadyAssigned = persistOrder("APPROVED", 2);
+		entityManager.persist(new DeliveryAssignment(rider, alreadyAssigned));
+		entityManager.flush();
+
+		DispatchResult result = deliveryDispatchService.dispatchApprovedOrders(null);
+
+		assertEquals(1, result.dispatched());
+		assertEquals(List.of(), result.undispatchedOrderIds());
+		entityManager.clear();
+		DeliveryAssignment assignment = deliveryAssignmentRepository.findByOrderPaymentId(approved.getPaymentId()).orElseThrow();
+		assertEquals(rider.getId(), assignment.getDeliveryPerson().getId());
+		assertEquals(AssignmentStatus.ASSIGNED, assignment.getStatus());
+		assertEquals(DeliveryDispatchService.DISPATCH_NOTE, assignment.getNotes());
+	}
+
+	@Test
+	void dispatchBalancesAgainstCurrentLoad() {
+		DeliveryPerson busyRider = fixtures.persistRider(DeliveryPerson.VehicleType.BIKE);
+		DeliveryPerson idleRider = fixtures.persistRider(DeliveryPerson.VehicleType.BIKE);
+		entityManager.persist(new DeliveryAssignment(busyRider, persistOrder("APPROVED", 6)));
+		for (int i = 0; i < 4; i++) {
+			persistOrder("APPROVED", 2);
+		}
+		entityManager.flush();
+
+		DispatchResult result = deliveryDispatchService.dispatchApprovedOrders(null);
+
+		// 6 + 2 on the busy bike, 2 + 2 + 2 on the idle one
+		assertEquals(4, result.dispatched());
+		assertEquals(2, result.ridersUsed());
+		assertEquals(3, deliveryAssignmentRepository.countByDeliveryPersonId(idleRider.getId()));
+		assertEquals(2, deliveryAssignmentRepository.countByDeliveryPersonId(busyRider.getId()));
+	}
+
+	@Test
+	void ordersNoVehicleHasRoomForAreLeftUndispatched() {
+		fixtures.persistRider(DeliveryPerson.VehicleType.BIKE);
+		Order bulky = persistOrder("APPROVED", 12);
+		persistOrder("APPROVED", 3);
+		entityManager.flush();
+
+		DispatchResult result = deliveryDispatchService.dispatchApprovedOrders("Evening run");
+
+		assertEquals(1, result.dispatched());
+		assertEquals(List.of(bulky.getPaymentId()), result.undispatchedOrderIds());
+	}
+
+	@Test
+	void dispatchOfTenThousandOrdersRunsInBatches() {
+		for (int i = 0; i < 120; i++) {
+			fixtures.persistRider(DeliveryPerson.VehicleType.LORRY);
+		}
+		for (int i = 0; i < 10_000; i++) {
+			persistOrder("APPROVED", 1);
+			if (i % 500 == 499) {
+				entityManager.flush();
+				entityManager.clear();
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+		Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+			.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		DispatchResult result = deliveryDispatchService.dispatchApprovedOrders(null);
+
+		assertEquals(10_000, result.dispatched());
+		assertEquals(List.of(), result.undispatchedOrderIds());
+		assertEquals(10_000, deliveryAssignmentRepository.count());
+		// Batched inserts and pooled sequence values: a few hundred statements, not one or two per order
+		long statements = statistics.getPrepareStatementCount();
+		assertTrue(statements < 1_000, statements + " statements");
+	}
+
+	@Test
+	void planRespectsCapacityAndPrefersTheSmallerVehicleOnATie() {
+		List<RiderLoad> riders = List.of(new RiderLoad(1L, 100, 0), new RiderLoad(2L, 10, 0));
+
+		List<Dispatch> plan = DeliveryDispatchService.plan(
+			List.of(new PendingOrder(1L, 5), new PendingOrder(2L, 20), new PendingOrder(3L, 200)), riders);
+
+		assertEquals(List.of(new Dispatch(1L, 2L), new Dispatch(2L, 1L)), plan);
+	}
+
+	@Test
+	void planSpreadsALargeBacklogEvenly() {
+		List<RiderLoad> riders = new ArrayList<>();
+		for (long id = 1; id <= 300; id++) {
+			riders.add(new RiderLoad(id, 100, 0));
+		}
+		List<PendingOrder> orders = new ArrayList<>();
+		for (long id = 1; id <= 10_000; id++) {
+			orders.add(new PendingOrder(id, 1 + (int) (id % 3)));
+		}
+
+		List<Dispatch> plan = DeliveryDispatchService.plan(orders, riders);
+
+		assertEquals(10_000, plan.size());
+		Map<Long, Integer> loads = new HashMap<>();
+		for (Dispatch dispatch : plan) {
+			loads.merge(dispatch.deliveryPersonId(), 1 + (int) (dispatch.orderId() % 3), Integer::sum);
+		}
+		int min = loads.values().stream().mapToInt(Integer::intValue).min().orElseThrow();
+		int max = loads.values().stream().mapToInt(Integer::intValue).max().orElseThrow();
+		assertEquals(300, loads.size());
+		assertTrue(max <= 100);
+		assertTrue(max - min <= 3, "loads differ by " + (max - min));
+	}
+
+	private Order persistOrder(String status, int quantity) {
+		Order order = new Order("customer" + sequence++, String.valueOf(product.getId()), String.valueOf(quantity),
+			new BigDecimal("9.99"), null);
+		order.setOrderStatus(status);
+		order.addItem(new OrderItem(order, product, quantity, product.getPrice()));
+		return entityManager.persist(order);
+	}
+}
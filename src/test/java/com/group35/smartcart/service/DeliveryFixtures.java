@@ -0,0 +1,49 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.entity.DeliveryAssignment;
+import com.group35.smartcart.entity.DeliveryPerson;
+import com.group35.smartcart.entity.Order;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+
+/**
+ * Riders, orders and assignments for the delivery tests, numbered per instance so names, e-mail
+ * addresses and usernames never collide. The new* methods only build, for tests that save
+ * through the repositories and commit.
+ */
+class DeliveryFixtures {
+
+	private final TestEntityManager entityManager;
+
+	private int sequence;
+
+	DeliveryFixtures(TestEntityManager entityManager) {
+		this.entityManager = entityManager;
+	}
+
+	DeliveryPerson newRider(DeliveryPerson.VehicleType vehicleType) {
+		int number = sequence++;
+		return new DeliveryPerson("Rider " + number, "rider" + number + "@example.com", "0771234567",
+			vehicleType, "AB-" + number);
+	}
+
+	// A one-line order of product 1 without order items
+	Order newOrder() {
+		return new Order("customer" + sequence++, "1", "1", new BigDecimal("9.99"), null);
+	}
+
+	DeliveryPerson persistRider() {
+		return persistRider(DeliveryPerson.VehicleType.BIKE);
+	}
+
+	DeliveryPerson persistRider(DeliveryPerson.VehicleType vehicleType) {
+		return entityManager.persist(newRider(vehicleType));
+	}
+
+	// Assigns a new order to the rider; the assignment is ASSIGNED as of now
+	DeliveryAssignment persistAssignment(DeliveryPerson rider) {
+		Order order = entityManager.persist(newOrder());
+		return entityManager.persist(new DeliveryAssignment(rider, order));
+	}
+}
@@ -0,0 +1,230 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.entity.AssignmentStatus;
+import com.group35.smartcart.entity.DeliveryAssignment;
+import com.group35.smartcart.entity.DeliveryPerson;
+import com.group35.smartcart.entity.DeliveryStats;
+import com.group35.smartcart.repository.DeliverPersonRepository;
+import com.group35.smartcart.repository.DeliveryAssignmentRepository;
+import com.group35.smartcart.repository.DeliveryStatsRepository;
+import com.group35.smartcart.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({DeliveryAssignmentService.class, DeliveryMetricsService.class})
+class DeliveryMetricsServiceTests {
+
+	@Autowired
+	private DeliveryAssignmentService deliveryAssignmentService;
+
+	@Autowired
+	private DeliveryMetricsService deliveryMetricsService;
+
+	@Autowired
+	private DeliverPersonRepository deliverPersonRepository;
+
+	@Autowired
+	private DeliveryAssignmentRepository deliveryAssignmentRepository;
+
+	@Autowired
+	private DeliveryStatsRepository deliveryStatsRepository;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	private DeliveryFixtures fixtures;
+
+	@BeforeEach
+	void setUp() {
+		fixtures = new DeliveryFixtures(entityManager);
+	}
+
+	@Test
+	void pickupsAndDeliveriesUpdateTheStatsRow() {
+		DeliveryPerson rider = fixtures.persistRider();
+		DeliveryAssignment first = persistAssignment(rider, LocalDateTime.now().minusMinutes(28));
+		DeliveryAssignment second = persistAssignment(rider, LocalDateTime.now().minusMinutes(50));
+
+		// The first pickup builds the row from the history, the second is added to it
+		deliveryAssignmentService.markAsPickedUp(first.getId(), null);
+		deliveryAssignmentService.markAsPickedUp(second.getId(), null);
+		deliveryAssignmentService.markAsDelivered(first.getId(), null);
+
+		DeliveryStats stats = deliveryMetricsService.getStats(rider.getId());
+		assertEquals(2, stats.getPickup().getCount());
+		assertEquals(39.0, stats.getPickup().getAverageMinutes(), 0.5);
+		assertEquals(30L, stats.getPickup().getPercentileMinutes(50));
+		assertTrue(stats.getPickup().getPercentileMinutes(95) >= 50);
+		assertEquals(1, stats.getDelivery().getCount());
+		assertEquals(28.0 / 60, stats.getAverageDeliveryHours(), 0.01);
+	}
+
+	@Test
+	void missingStatsAreBuiltFromTheHistory() {
+		DeliveryPerson rider = fixtures.persistRider();
+		LocalDateTime start = LocalDateTime.now().minusDays(1);
+		persistDelivered(rider, start, start.plusMinutes(10), start.plusMinutes(70));
+		persistDelivered(rider, start, start.plusMinutes(20), start.plusMinutes(140));
+		persistAssignment(rider, start);
+
+		DeliveryStats stats = deliveryMetricsService.getStats(rider.getId());
+
+		assertEquals(2, stats.getPickup().getCount());
+		assertEquals(15.0, stats.getPickup().getAverageMinutes(), 0.001);
+		assertEquals(2, stats.getDelivery().getCount());
+		assertEquals(90.0, stats.getDelivery().getAverageMinutes(), 0.001);
+		assertEquals(120L, stats.getDelivery().getPercentileMinutes(95));
+		assertEquals(105.0 / 60, stats.getAverageDeliveryHours(), 0.001);
+	}
+
+	@Test
+	// Both pickups commit, so each builds on what the other left in the table
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	void firstPickupsOfARiderAtTheSameTimeBothCount() throws Exception {
+		DeliveryPerson rider = deliverPersonRepository.save(fixtures.newRider(DeliveryPerson.VehicleType.BIKE));
+		Long first = deliveryAssignmentService.createAssignment(saveOrder(), rider.getId(), null).getId();
+		Long second = deliveryAssignmentService.createAssignment(saveOrder(), rider.getId(), null).getId();
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<?>> pickups = new ArrayList<>();
+			for (Long assignmentId : List.of(first, second)) {
+				pickups.add(executor.submit(() -> {
+					start.await();
+					return deliveryAssignmentService.markAsPickedUp(assignmentId, null);
+				}));
+			}
+			start.countDown();
+			for (Future<?> pickup : pickups) {
+				pickup.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(2, deliveryMetricsService.getStats(rider.getId()).getPickup().getCount());
+		deleteCommitted(rider, first, second);
+	}
+
+	@Test
+	// Both deliveries commit or fail on their own; the second finds the assignment already delivered
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	void concurrentDeliveriesOfOneAssignmentRecordOneSample() throws Exception {
+		DeliveryPerson rider = deliverPersonRepository.save(fixtures.newRider(DeliveryPerson.VehicleType.BIKE));
+		Long assignment = deliveryAssignmentService.createAssignment(saveOrder(), rider.getId(), null).getId();
+		deliveryAssignmentService.markAsPickedUp(assignment, null);
+		long overall = deliveryMetricsService.getOverallStats().getDelivery().getCount();
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		int refused = 0;
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<?>> deliveries = new ArrayList<>();
+			for (int i = 0; i < 2; i++) {
+				deliveries.add(executor.submit(() -> {
+					start.await();
+					return deliveryAssignmentService.markAsDelivered(assignment, null);
+				}));
+			}
+			start.countDown();
+			for (Future<?> delivery : deliveries) {
+				try {
+					delivery.get(30, TimeUnit.SECONDS);
+				} catch (ExecutionException e) {
+					assertInstanceOf(IllegalStateException.class, e.getCause());
+					refused++;
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(1, refused);
+		assertEquals(1, deliveryMetricsService.getStats(rider.getId()).getDelivery().getCount());
+		assertEquals(overall + 1, deliveryMetricsService.getOverallStats().getDelivery().getCount());
+		deleteCommitted(rider, assignment);
+	}
+
+	@Test
+	// The totals take a change once it commits
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	void overallStatsFollowCommittedDeliveries() {
+		DeliveryPerson rider = deliverPersonRepository.save(fixtures.newRider(DeliveryPerson.VehicleType.BIKE));
+		Long assignment = deliveryAssignmentService.createAssignment(saveOrder(), rider.getId(), null).getId();
+		long delivered = deliveryMetricsService.getOverallStats().getDelivery().getCount();
+		long pickedUp = deliveryMetricsService.getOverallStats().getPickup().getCount();
+
+		deliveryAssignmentService.markAsPickedUp(assignment, null);
+		deliveryAssignmentService.markAsDelivered(assignment, null);
+
+		DeliveryStats overall = deliveryMetricsService.getOverallStats();
+		assertEquals(pickedUp + 1, overall.getPickup().getCount());
+		assertEquals(delivered + 1, overall.getDelivery().getCount());
+		deleteCommitted(rider, assignment);
+	}
+
+	@Test
+	void riderWithoutHistoryHasEmptyStats() {
+		DeliveryStats stats = deliveryMetricsService.getStats(fixtures.persistRider().getId());
+
+		assertEquals(0, stats.getPickup().getCount());
+		assertNull(stats.getPickup().getPercentileMinutes(50));
+		assertNull(stats.getAverageDeliveryHours());
+	}
+
+	private Long saveOrder() {
+		return orderRepository.save(fixtures.newOrder()).getPaymentId();
+	}
+
+	private void deleteCommitted(DeliveryPerson rider, Long... assignmentIds) {
+		for (Long assignmentId : assignmentIds) {
+			Long orderId = deliveryAssignmentRepository.findById(assignmentId).orElseThrow().getOrder().getPaymentId();
+			deliveryAssignmentRepository.deleteById(assignmentId);
+			orderRepository.deleteById(orderId);
+		}
+		deliveryStatsRepository.deleteById(rider.getId());
+		deliverPersonRepository.deleteById(rider.getId());
+	}
+
+	private DeliveryAssignment persistAssignment(DeliveryPerson rider, LocalDateTime assignedAt) {
+		DeliveryAssignment assignment = fixtures.persistAssignment(rider);
+		assignment.setAssignedAt(assignedAt);
+		return assignment;
+	}
+
+	private void persistDelivered(DeliveryPerson rider, LocalDateTime assignedAt, LocalDateTime pickedUpAt,
+								  LocalDateTime deliveredAt) {
+		DeliveryAssignment assignment = persistAssignment(rider, assignedAt);
+		assignment.setStatus(AssignmentStatus.DELIVERED);
+		assignment.setPickedUpAt(pickedUpAt);
+		assignment.setDeliveredAt(deliveredAt);
+	}
+}
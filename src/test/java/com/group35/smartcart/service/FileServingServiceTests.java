@@ -0,0 +1,123 @@
+package com.group35.smartcart.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FileServingServiceTests {
+
+	private static final String ETAG = "\"abc123\"";
+
+	private static final int SIZE = 1000;
+
+	@TempDir
+	Path directory;
+
+	private final FileServingService fileServingService = new FileServingService();
+
+	private Path file;
+
+	private byte[] content;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		content = new byte[SIZE];
+		for (int i = 0; i < SIZE; i++) {
+			content[i] = (byte) i;
+		}
+		file = Files.write(directory.resolve("slip.pdf"), content);
+	}
+
+	@Test
+	void suffixRangeServesTheLastBytes() throws Exception {
+		MockHttpServletResponse response = serve(request("bytes=-500"));
+
+		assertEquals(206, response.getStatus());
+		assertEquals("bytes 500-999/1000", response.getHeader(HttpHeaders.CONTENT_RANGE));
+		assertArrayEquals(Arrays.copyOfRange(content, 500, SIZE), response.getContentAsByteArray());
+	}
+
+	@Test
+	void openRangeServesToTheEnd() throws Exception {
+		MockHttpServletResponse response = serve(request("bytes=100-"));
+
+		assertEquals(206, response.getStatus());
+		assertEquals("bytes 100-999/1000", response.getHeader(HttpHeaders.CONTENT_RANGE));
+		assertEquals(900, response.getContentLengthLong());
+		assertArrayEquals(Arrays.copyOfRange(content, 100, SIZE), response.getContentAsByteArray());
+	}
+
+	@Test
+	void rangePastTheEndIsNotSatisfiable() throws Exception {
+		MockHttpServletResponse response = serve(request("bytes=1000-1100"));
+
+		assertEquals(416, response.getStatus());
+		assertEquals("bytes */1000", response.getHeader(HttpHeaders.CONTENT_RANGE));
+		assertEquals(0, response.getContentAsByteArray().length);
+	}
+
+	@Test
+	void multipleRangesFallBackToTheWholeFile() throws Exception {
+		MockHttpServletResponse response = serve(request("bytes=0-9,20-29"));
+
+		assertFullFile(response);
+	}
+
+	@Test
+	void matchingIfNoneMatchIsNotModified() throws Exception {
+		MockHttpServletRequest request = request(null);
+		request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\", " + ETAG);
+
+		MockHttpServletResponse response = serve(request);
+
+		assertEquals(304, response.getStatus());
+		assertEquals(ETAG, response.getHeader(HttpHeaders.ETAG));
+		assertEquals(0, response.getContentAsByteArray().length);
+	}
+
+	@Test
+	void staleIfRangeGetsTheWholeFile() throws Exception {
+		MockHttpServletRequest request = request("bytes=100-199");
+		request.addHeader(HttpHeaders.IF_RANGE, "\"previous\"");
+
+		assertFullFile(serve(request));
+
+		// The current validator keeps the range
+		request = request("bytes=100-199");
+		request.addHeader(HttpHeaders.IF_RANGE, ETAG);
+		assertEquals(206, serve(request).getStatus());
+	}
+
+	private MockHttpServletRequest request(String range) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/payslips/slip.pdf");
+		if (range != null) {
+			request.addHeader(HttpHeaders.RANGE, range);
+		}
+		return request;
+	}
+
+	private MockHttpServletResponse serve(MockHttpServletRequest request) throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		fileServingService.serve(file, ETAG, "application/pdf", "private, max-age=86400",
+			"inline; filename=\"slip.pdf\"", request, response);
+		return response;
+	}
+
+	private void assertFullFile(MockHttpServletResponse response) throws Exception {
+		assertEquals(200, response.getStatus());
+		assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE));
+		assertEquals(SIZE, response.getContentLengthLong());
+		assertArrayEquals(content, response.getContentAsByteArray());
+	}
+}
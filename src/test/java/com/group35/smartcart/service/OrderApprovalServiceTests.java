@@ -0,0 +1,104 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.entity.CustomerPayment;
+import com.group35.smartcart.entity.Order;
+import com.group35.smartcart.entity.OrderItem;
+import com.group35.smartcart.entity.Product;
+import com.group35.smartcart.repository.BillRepository;
+import com.group35.smartcart.repository.CustomerPaymentRepository;
+import com.group35.smartcart.repository.OrderRepository;
+import com.group35.smartcart.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import(OrderApprovalService.class)
+// Every approval must commit on its own thread, so the test itself runs without a transaction
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderApprovalServiceTests {
+
+	@Autowired
+	private OrderApprovalService orderApprovalService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private CustomerPaymentRepository customerPaymentRepository;
+
+	@Autowired
+	private BillRepository billRepository;
+
+	@Test
+	void concurrentApprovalsNeverOversellOneSku() throws Exception {
+		int initialStock = 10;
+		int orderCount = 40;
+
+		Product product = new Product("Fresh Milk", "Whole milk", new BigDecimal("3.49"), null, "Dairy");
+		product.setStockQuantity(initialStock);
+		Product savedProduct = productRepository.save(product);
+
+		customerPaymentRepository.save(new CustomerPayment("buyer", "Test Bank", "Buyer", "1234567890"));
+
+		List<Long> orderIds = new ArrayList<>();
+		for (int i = 0; i < orderCount; i++) {
+			Order order = new Order("buyer", String.valueOf(savedProduct.getId()), "1", savedProduct.getPrice(), null);
+			order.addItem(new OrderItem(order, savedProduct, 1, savedProduct.getPrice()));
+			orderIds.add(orderRepository.save(order).getPaymentId());
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Boolean>> results = new ArrayList<>();
+		for (Long orderId : orderIds) {
+			results.add(executor.submit(() -> {
+				start.await();
+				try {
+					orderApprovalService.updateOrderStatus(orderId, "APPROVED");
+					return true;
+				} catch (RuntimeException e) {
+					// Insufficient stock, or a lock timeout that rolled the approval back
+					return false;
+				}
+			}));
+		}
+		start.countDown();
+
+		int approved = 0;
+		for (Future<Boolean> result : results) {
+			if (result.get(60, TimeUnit.SECONDS)) {
+				approved++;
+			}
+		}
+		executor.shutdown();
+
+		int finalStock = productRepository.findById(savedProduct.getId()).orElseThrow().getStockQuantity();
+		assertTrue(finalStock >= 0, "stock went negative: " + finalStock);
+		assertTrue(approved > 0, "no approval succeeded");
+		assertEquals(initialStock - finalStock, approved);
+		assertEquals(approved, orderRepository.countByOrderStatus("APPROVED"));
+		assertEquals(approved, billRepository.count());
+	}
+
+}
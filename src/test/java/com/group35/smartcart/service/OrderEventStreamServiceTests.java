@@ -0,0 +1,151 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.config.WorkerThreads;
+import com.group35.smartcart.event.OrderChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class OrderEventStreamServiceTests {
+
+	private OrderEventStreamService service;
+
+	@BeforeEach
+	void setUp() {
+		service = new OrderEventStreamService(null, null, mock(OrderSummaryService.class), 60_000, 2, 2,
+			new WorkerThreads(new StandardEnvironment()));
+	}
+
+	@AfterEach
+	void tearDown() {
+		service.shutdown();
+	}
+
+	@Test
+	void everySubscriberReceivesEachChange() throws Exception {
+		RecordingEmitter first = new RecordingEmitter();
+		RecordingEmitter second = new RecordingEmitter();
+		service.subscribe(first);
+		service.subscribe(second);
+
+		for (long paymentId = 1; paymentId <= 3; paymentId++) {
+			service.onOrderChanged(new OrderChangedEvent(OrderChangedEvent.Type.DELETED, paymentId));
+		}
+
+		await(() -> first.sent.size() == 3 && second.sent.size() == 3);
+		assertEquals(2, service.getSubscriberCount());
+	}
+
+	@Test
+	void disconnectedDashboardsArePruned() throws Exception {
+		RecordingEmitter live = new RecordingEmitter();
+		RecordingEmitter gone = new RecordingEmitter();
+		gone.failure = new IOException("Broken pipe");
+		service.subscribe(live);
+		service.subscribe(gone);
+
+		service.onOrderChanged(new OrderChangedEvent(OrderChangedEvent.Type.DELETED, 1L));
+
+		await(() -> gone.completedWithError);
+		await(() -> service.getSubscriberCount() == 1);
+		await(() -> live.sent.size() == 1);
+	}
+
+	@Test
+	void aStalledDashboardDoesNotHoldUpTheOthers() throws Exception {
+		RecordingEmitter live = new RecordingEmitter();
+		RecordingEmitter stalled = new RecordingEmitter();
+		stalled.stall = new CountDownLatch(1);
+		service.subscribe(stalled);
+		service.subscribe(live);
+
+		// One event blocks in send, two fill the queue, the fourth finds it full
+		for (long paymentId = 1; paymentId <= 4; paymentId++) {
+			service.onOrderChanged(new OrderChangedEvent(OrderChangedEvent.Type.DELETED, paymentId));
+		}
+
+		await(() -> live.sent.size() == 4);
+		await(() -> service.getSubscriberCount() == 1);
+
+		stalled.stall.countDown();
+		await(() -> stalled.completed);
+		assertTrue(stalled.sent.size() <= 1);
+	}
+
+	@Test
+	void moreDashboardsThanSendersAllReceiveEachChange() throws Exception {
+		List<RecordingEmitter> dashboards = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			RecordingEmitter dashboard = new RecordingEmitter();
+			service.subscribe(dashboard);
+			dashboards.add(dashboard);
+		}
+
+		// Two senders take the six queues in turns; the queue of two is never overrun in between
+		for (long paymentId = 1; paymentId <= 2; paymentId++) {
+			service.onOrderChanged(new OrderChangedEvent(OrderChangedEvent.Type.DELETED, paymentId));
+		}
+
+		await(() -> dashboards.stream().allMatch(dashboard -> dashboard.sent.size() == 2));
+		assertEquals(6, service.getSubscriberCount());
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.nanoTime() < deadline, "condition not met within 5 seconds");
+			Thread.sleep(10);
+		}
+	}
+
+	// Records what would be written to the dashboard instead of writing to a response
+	private static class RecordingEmitter extends SseEmitter {
+
+		private final List<Set<DataWithMediaType>> sent = new CopyOnWriteArrayList<>();
+		private volatile IOException failure;
+		private volatile CountDownLatch stall;
+		private volatile boolean completed;
+		private volatile boolean completedWithError;
+
+		@Override
+		public void send(Set<DataWithMediaType> items) throws IOException {
+			if (failure != null) {
+				throw failure;
+			}
+			if (stall != null) {
+				try {
+					stall.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			sent.add(items);
+		}
+
+		@Override
+		public void complete() {
+			completed = true;
+		}
+
+		@Override
+		public void completeWithError(Throwable ex) {
+			completedWithError = true;
+		}
+	}
+}
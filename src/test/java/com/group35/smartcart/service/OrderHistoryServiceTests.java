@@ -0,0 +1,124 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.config.WorkerThreads;
+import com.group35.smartcart.entity.Order;
+import com.group35.smartcart.entity.OrderItem;
+import com.group35.smartcart.entity.Product;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Import({OrderHistoryService.class, ProductCatalogService.class, WorkerThreads.class})
+class OrderHistoryServiceTests {
+
+	@Autowired
+	private OrderHistoryService orderHistoryService;
+
+	@Autowired
+	private ProductCatalogService productCatalogService;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Test
+	void pagesNewestFirstWithProductSummaries() {
+		Product milk = persistProduct("Fresh Milk", 4);
+		Product bread = persistProduct("Bread", null);
+		LocalDateTime base = LocalDateTime.of(2025, 1, 1, 9, 0);
+		for (int i = 0; i < 5; i++) {
+			persistOrder("alice", base.plusDays(i), milk, bread);
+		}
+		persistOrder("bob", base.plusDays(10), milk, bread);
+		entityManager.flush();
+		entityManager.clear();
+
+		OrderHistoryService.HistoryPage first = orderHistoryService.getPage("alice", 0, 2);
+		OrderHistoryService.HistoryPage last = orderHistoryService.getPage("alice", 2, 2);
+
+		assertEquals(2, first.getOrders().size());
+		assertEquals(base.plusDays(4), first.getOrders().get(0).getCreatedAt());
+		assertTrue(first.hasNext());
+		assertFalse(first.hasPrevious());
+
+		assertEquals(1, last.getOrders().size());
+		assertEquals(base, last.getOrders().get(0).getCreatedAt());
+		assertFalse(last.hasNext());
+
+		OrderHistoryService.Entry entry = last.getOrders().get(0);
+		assertEquals("Fresh Milk (Stock: 4), Bread (Stock: 0)", entry.getProductSummary());
+		assertEquals("2,1", entry.getProductQuantities());
+	}
+
+	@Test
+	// Builds the catalog snapshot from this test's rolled-back products, which later tests must not see
+	@DirtiesContext
+	void aPageIsOneStatementWithItsLinesJoinedIn() {
+		Product milk = persistProduct("Fresh Milk", 4);
+		Product bread = persistProduct("Bread", 7);
+		LocalDateTime base = LocalDateTime.of(2025, 1, 1, 9, 0);
+		for (int i = 0; i < 12; i++) {
+			persistOrder("alice", base.plusDays(i), milk, bread);
+		}
+		// The newest order has no lines
+		Order empty = new Order("alice", String.valueOf(milk.getId()), "1", BigDecimal.ZERO, null);
+		empty.setCreatedAt(base.plusDays(20));
+		entityManager.persist(empty);
+		entityManager.flush();
+		entityManager.clear();
+		// Product names come from the catalog snapshot, built outside the counted statements
+		productCatalogService.getSnapshot();
+		Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+			.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		OrderHistoryService.HistoryPage page = orderHistoryService.getPage("alice", 0, 10);
+
+		assertEquals(1, statistics.getPrepareStatementCount());
+		assertEquals(10, page.getOrders().size());
+		assertTrue(page.hasNext());
+		assertEquals("No products", page.getOrders().get(0).getProductSummary());
+		assertEquals("", page.getOrders().get(0).getProductQuantities());
+		for (OrderHistoryService.Entry entry : page.getOrders().subList(1, 10)) {
+			assertEquals("2,1", entry.getProductQuantities());
+		}
+		assertEquals(base.plusDays(3), page.getOrders().get(9).getCreatedAt());
+	}
+
+	@Test
+	void emptyHistory() {
+		OrderHistoryService.HistoryPage page = orderHistoryService.getPage("nobody", 0, 10);
+
+		assertEquals(List.of(), page.getOrders());
+		assertFalse(page.hasNext());
+	}
+
+	private Product persistProduct(String name, Integer stock) {
+		Product product = new Product(name, name, new BigDecimal("2.00"), null, "Test");
+		product.setStockQuantity(stock);
+		return entityManager.persist(product);
+	}
+
+	private void persistOrder(String username, LocalDateTime createdAt, Product first, Product second) {
+		Order order = new Order(username, first.getId() + "," + second.getId(), "2,1", new BigDecimal("6.00"), null);
+		order.setCreatedAt(createdAt);
+		order.addItem(new OrderItem(order, first, 2, first.getPrice()));
+		order.addItem(new OrderItem(order, second, 1, second.getPrice()));
+		entityManager.persist(order);
+	}
+}
@@ -0,0 +1,89 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.entity.CustomerPayment;
+import com.group35.smartcart.entity.Order;
+import com.group35.smartcart.entity.Product;
+import com.group35.smartcart.repository.CustomerPaymentRepository;
+import com.group35.smartcart.repository.OrderRepository;
+import com.group35.smartcart.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({OrderPlacementService.class, OrderService.class})
+class OrderPlacementServiceTests {
+
+	@Autowired
+	private OrderPlacementService orderPlacementService;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private CustomerPaymentRepository customerPaymentRepository;
+
+	private Product product;
+
+	@BeforeEach
+	void setUp() {
+		product = new Product("Fresh Milk", "Whole milk", new BigDecimal("3.49"), null, "Dairy");
+		product.setStockQuantity(10);
+		product = productRepository.save(product);
+	}
+
+	@Test
+	void replayedKeyReturnsTheOriginalOrderWithoutWriting() {
+		OrderPlacementService.Placement first = orderPlacementService.placeOrder(order(), paymentDetails("Test Bank"), "key-1");
+		OrderPlacementService.Placement replay = orderPlacementService.placeOrder(order(), paymentDetails("Other Bank"), "key-1");
+
+		assertFalse(first.replayed());
+		assertTrue(replay.replayed());
+		assertEquals(first.order().getPaymentId(), replay.order().getPaymentId());
+		assertEquals(1, orderRepository.count());
+		assertEquals(1, customerPaymentRepository.count());
+		assertEquals("Test Bank", customerPaymentRepository.findAll().get(0).getBankName());
+	}
+
+	@Test
+	void ordersWithDifferentKeysReuseThePaymentDetails() {
+		orderPlacementService.placeOrder(order(), paymentDetails("Test Bank"), "key-1");
+		orderPlacementService.placeOrder(order(), paymentDetails("Test Bank"), "key-2");
+		orderPlacementService.placeOrder(order(), paymentDetails("Test Bank"), null);
+
+		assertEquals(3, orderRepository.count());
+		assertEquals(1, customerPaymentRepository.count());
+	}
+
+	@Test
+	void switchingBackToEarlierDetailsMakesThemTheLatest() {
+		orderPlacementService.placeOrder(order(), paymentDetails("Test Bank"), "key-1");
+		orderPlacementService.placeOrder(order(), paymentDetails("Other Bank"), "key-2");
+		orderPlacementService.placeOrder(order(), paymentDetails("Test Bank"), "key-3");
+
+		assertEquals(2, customerPaymentRepository.count());
+		assertEquals("Test Bank", customerPaymentRepository
+			.findFirstByUsernameAndIsActiveTrueOrderByUpdatedAtDescIdDesc("buyer").orElseThrow().getBankName());
+	}
+
+	private Order order() {
+		return new Order("buyer", String.valueOf(product.getId()), "2", BigDecimal.ZERO, null);
+	}
+
+	private static CustomerPayment paymentDetails(String bankName) {
+		return new CustomerPayment("buyer", bankName, "Buyer", "1234567890");
+	}
+}
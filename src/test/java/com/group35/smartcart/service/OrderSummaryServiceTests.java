@@ -0,0 +1,119 @@
+package com.group35.smartcart.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderSummaryServiceTests {
+
+	private OrderService orderService;
+
+	private ExecutorService executor;
+
+	// Counted down when a load starts; the load then waits for release
+	private final CountDownLatch loading = new CountDownLatch(1);
+
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	@BeforeEach
+	void setUp() {
+		orderService = mock(OrderService.class);
+		executor = Executors.newCachedThreadPool();
+	}
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		executor.shutdownNow();
+	}
+
+	@Test
+	void concurrentPollsOfAnExpiredSummaryShareOneLoad() throws Exception {
+		// A TTL of 0 leaves every summary expired, so only the load in flight is shared
+		OrderSummaryService summaries = new OrderSummaryService(orderService, 0);
+		Map<String, Object> loaded = Map.of("totalOrders", 3L);
+		when(orderService.getOrderSummary()).thenAnswer(invocation -> {
+			loading.countDown();
+			release.await();
+			return loaded;
+		});
+
+		List<Future<Map<String, Object>>> polls = new ArrayList<>();
+		polls.add(executor.submit(summaries::getSummary));
+		assertTrue(loading.await(5, TimeUnit.SECONDS));
+		List<Thread> waiting = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			CountDownLatch started = new CountDownLatch(1);
+			Thread[] thread = new Thread[1];
+			polls.add(executor.submit(() -> {
+				thread[0] = Thread.currentThread();
+				started.countDown();
+				return summaries.getSummary();
+			}));
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			waiting.add(thread[0]);
+		}
+		awaitParked(waiting);
+		release.countDown();
+
+		for (Future<Map<String, Object>> poll : polls) {
+			assertEquals(loaded, poll.get(5, TimeUnit.SECONDS));
+		}
+		verify(orderService, times(1)).getOrderSummary();
+	}
+
+	@Test
+	void summaryLoadedBeforeAnInvalidationIsNotCached() throws Exception {
+		OrderSummaryService summaries = new OrderSummaryService(orderService, 60_000);
+		Map<String, Object> stale = Map.of("totalOrders", 3L);
+		Map<String, Object> fresh = Map.of("totalOrders", 4L);
+		when(orderService.getOrderSummary())
+			.thenAnswer(invocation -> {
+				loading.countDown();
+				release.await();
+				return stale;
+			})
+			.thenReturn(fresh);
+
+		Future<Map<String, Object>> slowPoll = executor.submit(summaries::getSummary);
+		assertTrue(loading.await(5, TimeUnit.SECONDS));
+		summaries.invalidate();
+
+		// A poll after the invalidation loads anew instead of joining the stale load
+		assertEquals(fresh, summaries.getSummary());
+		release.countDown();
+		assertEquals(stale, slowPoll.get(5, TimeUnit.SECONDS));
+
+		// The stale load finished last but did not replace the cached fresh summary
+		assertSame(fresh, summaries.getSummary());
+		verify(orderService, times(2)).getOrderSummary();
+	}
+
+	// Waits until every thread is parked joining the load in flight
+	private static void awaitParked(List<Thread> threads) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		for (Thread thread : threads) {
+			while (thread.getState() != Thread.State.WAITING) {
+				assertTrue(System.nanoTime() < deadline, thread.getName() + " is " + thread.getState());
+				Thread.sleep(1);
+			}
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.entity.Bill;
+import com.group35.smartcart.entity.CustomerPayment;
+import com.group35.smartcart.entity.Order;
+import com.group35.smartcart.entity.OrderItem;
+import com.group35.smartcart.entity.Product;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Import(PaymentFeedService.class)
+class PaymentFeedServiceTests {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private PaymentFeedService paymentFeedService;
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void buildsFeedWithConstantQueryCount() {
+		Product bread = persistProduct("Artisan Bread", "3.99");
+		Product milk = persistProduct("Fresh Milk", "3.49");
+		Product eggs = persistProduct("Free Range Eggs", "3.99");
+
+		LocalDateTime base = LocalDateTime.now().minusDays(1);
+		for (int user = 0; user < 5; user++) {
+			persistPaymentDetails("user" + user, "Old Bank", base.minusHours(1));
+			persistPaymentDetails("user" + user, "Current Bank", base);
+		}
+
+		int orderCount = 60;
+		for (int i = 0; i < orderCount; i++) {
+			String productIds = bread.getId() + "," + milk.getId() + "," + eggs.getId();
+			Order order = new Order("user" + (i % 5), productIds, "1,2,3", new BigDecimal("22.94"), "slip" + i + ".png");
+			order.addItem(new OrderItem(order, bread, 1, bread.getPrice()));
+			order.addItem(new OrderItem(order, milk, 2, milk.getPrice()));
+			order.addItem(new OrderItem(order, eggs, 3, eggs.getPrice()));
+			order.setCreatedAt(base.plusMinutes(i));
+			order.setOrderStatus(i % 3 == 0 ? "APPROVED" : "PENDING");
+			entityManager.persist(order);
+			if ("APPROVED".equals(order.getOrderStatus())) {
+				entityManager.persist(new Bill(order.getPaymentId(), order.getPaymentId(), order.getUsername(),
+					"Artisan Bread, Fresh Milk, Free Range Eggs", "1,2,3", order.getSubtotal(), order.getSubtotal(),
+					"Current Bank", "1234567890"));
+			}
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		List<Map<String, Object>> cards = paymentFeedService.getAllPaymentCards();
+
+		// orders, items joined with products, latest payment details and bills: one statement each
+		assertEquals(4, statistics.getPrepareStatementCount());
+		assertEquals(orderCount, cards.size());
+
+		Map<String, Object> newest = cards.get(0);
+		assertEquals("slip" + (orderCount - 1) + ".png", newest.get("payslipLocationPath"));
+		assertEquals(3, ((List<Map<String, Object>>) newest.get("items")).size());
+		Map<String, Object> paymentDetails = (Map<String, Object>) newest.get("customerPaymentDetails");
+		assertEquals("Current Bank", paymentDetails.get("bankName"));
+
+		for (Map<String, Object> card : cards) {
+			if ("APPROVED".equals(card.get("orderStatus"))) {
+				assertNotNull(card.get("bill"));
+			} else {
+				assertNull(card.get("bill"));
+			}
+		}
+	}
+
+	private Product persistProduct(String name, String price) {
+		Product product = new Product(name, name, new BigDecimal(price), null, "Test");
+		product.setStockQuantity(50);
+		return entityManager.persist(product);
+	}
+
+	private void persistPaymentDetails(String username, String bankName, LocalDateTime usedAt) {
+		CustomerPayment paymentDetails = new CustomerPayment(username, bankName, username, "1234567890");
+		paymentDetails.setCreatedAt(usedAt);
+		paymentDetails.setUpdatedAt(usedAt);
+		entityManager.persist(paymentDetails);
+	}
+
+}
@@ -0,0 +1,126 @@
+package com.group35.smartcart.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PayslipStorageServiceTests {
+
+	private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 1, 2, 3, 4};
+
+	@TempDir
+	Path storageRoot;
+
+	private PayslipStorageService storage;
+
+	@BeforeEach
+	void setUp() {
+		storage = new PayslipStorageService(storageRoot.toString());
+	}
+
+	@Test
+	void fileTypeIsTakenFromTheContentNotTheName() throws Exception {
+		MockMultipartFile disguised = new MockMultipartFile("file", "slip.png", "image/png",
+			"<html>not a picture</html>".getBytes(StandardCharsets.UTF_8));
+
+		assertThrows(IllegalArgumentException.class, () -> storage.store(disguised));
+		assertEquals(List.of(), storedFiles());
+
+		// A PNG uploaded as a PDF is stored as the PNG it is
+		String stored = storage.store(new MockMultipartFile("file", "slip.pdf", "application/pdf", PNG));
+		assertEquals(sha256(PNG) + ".png", stored);
+	}
+
+	@Test
+	void identicalContentIsStoredOnce() throws Exception {
+		String first = storage.store(new MockMultipartFile("file", "first.png", "image/png", PNG));
+		String second = storage.store(new MockMultipartFile("file", "second.png", "image/png", PNG));
+
+		assertEquals(first, second);
+		assertEquals(List.of(storageRoot.resolve(first)), storedFiles());
+		assertEquals(List.of(), uploads());
+	}
+
+	@Test
+	void slipsOverTheSizeLimitAreRejected() throws Exception {
+		byte[] tooLarge = Arrays.copyOf(PNG, (int) PayslipStorageService.MAX_FILE_SIZE + 1);
+		assertThrows(IllegalArgumentException.class,
+			() -> storage.store(new MockMultipartFile("file", "large.png", "image/png", tooLarge)));
+
+		// The declared size is only a first check; the streamed bytes are counted too
+		MockMultipartFile understated = new MockMultipartFile("file", "large.png", "image/png", tooLarge) {
+			@Override
+			public long getSize() {
+				return PNG.length;
+			}
+		};
+		assertThrows(IllegalArgumentException.class, () -> storage.store(understated));
+		assertEquals(List.of(), storedFiles());
+		assertEquals(List.of(), uploads());
+	}
+
+	@Test
+	void onlyStoredNamesResolve() throws Exception {
+		String stored = storage.store(new MockMultipartFile("file", "slip.png", "image/png", PNG));
+		Files.writeString(storageRoot.resolve("notes.txt"), "not a slip");
+		Files.createDirectories(storageRoot.resolve("uploads"));
+		Files.write(storageRoot.resolve("uploads").resolve("upload-1.tmp"), PNG);
+
+		assertEquals(storageRoot.resolve(stored), storage.resolve(stored).orElseThrow());
+		assertTrue(storage.resolve("../" + stored).isEmpty());
+		assertTrue(storage.resolve("uploads/../" + stored).isEmpty());
+		assertTrue(storage.resolve("notes.txt").isEmpty());
+		assertTrue(storage.resolve("uploads/upload-1.tmp").isEmpty());
+		assertTrue(storage.resolve(stored.toUpperCase()).isEmpty());
+		assertTrue(storage.resolve(stored.replace(".png", ".gif")).isEmpty());
+		// Well-formed but never stored
+		assertTrue(storage.resolve(sha256(new byte[0]) + ".png").isEmpty());
+	}
+
+	@Test
+	void legacySlipsAreCopiedToTheirContentHashName() throws Exception {
+		Path legacy = storageRoot.resolve("0362e9b6-963f-44bb-8824-f6574e6ed7d8_alice.png");
+		Files.write(legacy, PNG);
+		String stored = storage.store(new MockMultipartFile("file", "slip.png", "image/png", PNG));
+
+		assertEquals(List.of(legacy), storage.findLegacySlips());
+		assertEquals(stored, storage.storeLegacy(legacy));
+		assertTrue(storage.resolve(legacy.getFileName().toString()).isEmpty());
+	}
+
+	// Files directly in the storage root, not counting the uploads directory
+	private List<Path> storedFiles() throws IOException {
+		try (Stream<Path> files = Files.list(storageRoot)) {
+			return files.filter(Files::isRegularFile).toList();
+		}
+	}
+
+	private List<Path> uploads() throws IOException {
+		Path uploads = storageRoot.resolve("uploads");
+		if (!Files.isDirectory(uploads)) {
+			return List.of();
+		}
+		try (Stream<Path> files = Files.list(uploads)) {
+			return files.toList();
+		}
+	}
+
+	private static String sha256(byte[] content) throws Exception {
+		return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+	}
+}
@@ -0,0 +1,43 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.config.WorkerThreads;
+import com.group35.smartcart.entity.Bill;
+import com.group35.smartcart.entity.Order;
+import com.group35.smartcart.entity.OrderItem;
+import com.group35.smartcart.entity.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PdfServiceTests {
+
+	@Test
+	void billKeepsTheProductNameItWasOrderedUnder() {
+		PdfService pdfService = new PdfService(1, 1, new WorkerThreads(new StandardEnvironment()));
+		Product product = new Product("Fresh Milk", "Whole milk", new BigDecimal("3.49"), null, "Dairy");
+		Order order = new Order("alice", "1", "2", new BigDecimal("6.98"), null);
+		OrderItem item = new OrderItem(order, product, 2, product.getPrice());
+		Bill bill = new Bill(7L, 7L, "alice", "Fresh Milk", "2",
+			new BigDecimal("6.98"), new BigDecimal("6.98"), "Bank", "1234567890");
+		bill.setId(42L);
+		bill.setCreatedAt(LocalDateTime.of(2025, 3, 5, 14, 7));
+
+		byte[] issued = pdfService.generateBillHtml(bill, List.of(item));
+		product.setName("Organic Milk");
+		byte[] afterRename = pdfService.generateBillHtml(bill, List.of(item));
+
+		String html = new String(afterRename, StandardCharsets.UTF_8);
+		assertTrue(html.contains("<td>Fresh Milk</td>"));
+		assertFalse(html.contains("Organic Milk"));
+		assertArrayEquals(issued, afterRename);
+		pdfService.shutdown();
+	}
+}
@@ -0,0 +1,68 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductSearchIndexTests {
+
+	private ProductSearchIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new ProductSearchIndex();
+		index.rebuild(List.of(
+			product(1L, "Fresh Milk", "Whole milk from local farms", "Dairy"),
+			product(2L, "Chocolate Cookies", "Crunchy cookies with milk chocolate chips", "Bakery"),
+			product(3L, "Red Apples", "Sweet and crisp apples", "Fruits"),
+			product(4L, "Artisan Bread", "Freshly baked sourdough", "Bakery")
+		));
+	}
+
+	@Test
+	void ranksNameMatchesAboveDescriptionMatches() {
+		assertEquals(List.of(1L, 2L), ids(index.search("milk")));
+	}
+
+	@Test
+	void matchesStemsPrefixesAndTypos() {
+		assertEquals(List.of(3L), ids(index.search("apple")));
+		assertEquals(List.of(2L), ids(index.search("choco")));
+		assertEquals(List.of(4L), ids(index.search("sourdogh")));
+		assertEquals(List.of(2L, 4L), ids(index.search("bakery")).stream().sorted().toList());
+	}
+
+	@Test
+	void requiresEveryQueryTerm() {
+		assertEquals(List.of(2L), ids(index.search("milk cookies")));
+		assertTrue(index.search("milk bread").isEmpty());
+	}
+
+	@Test
+	void reindexesAndRemovesSingleProducts() {
+		index.index(product(3L, "Green Pears", "Juicy pears", "Fruits"));
+		assertTrue(index.search("apples").isEmpty());
+		assertEquals(List.of(3L), ids(index.search("pear")));
+
+		index.remove(3L);
+		assertTrue(index.search("pear").isEmpty());
+		assertEquals(3, index.size());
+	}
+
+	private static Product product(Long id, String name, String description, String category) {
+		Product product = new Product(name, description, new BigDecimal("1.00"), null, category);
+		product.setId(id);
+		return product;
+	}
+
+	private static List<Long> ids(List<Product> products) {
+		return products.stream().map(Product::getId).toList();
+	}
+
+}
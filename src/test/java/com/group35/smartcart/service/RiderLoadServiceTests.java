@@ -0,0 +1,225 @@
+package com.group35.smartcart.service;
+
+import com.group35.smartcart.entity.AssignmentStatus;
+import com.group35.smartcart.entity.DeliveryAssignment;
+import com.group35.smartcart.entity.DeliveryPerson;
+import com.group35.smartcart.event.DeliveryAssignmentChangedEvent;
+import com.group35.smartcart.event.DeliveryAssignmentChangedEvent.Transition;
+import com.group35.smartcart.repository.DeliverPersonRepository;
+import com.group35.smartcart.repository.OrderRepository;
+import com.group35.smartcart.service.RiderLoadService.RiderLoad;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({RiderLoadService.class, DeliveryAssignmentService.class, DeliveryMetricsService.class, OrderService.class})
+class RiderLoadServiceTests {
+
+	@Autowired
+	private RiderLoadService riderLoadService;
+
+	@Autowired
+	private DeliveryAssignmentService deliveryAssignmentService;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private DeliverPersonRepository deliverPersonRepository;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	private DeliveryFixtures fixtures;
+
+	@BeforeEach
+	void setUp() {
+		fixtures = new DeliveryFixtures(entityManager);
+	}
+
+	@Test
+	void countsAreBuiltFromTheDatabase() {
+		DeliveryPerson rider = fixtures.persistRider();
+		DeliveryPerson otherRider = fixtures.persistRider();
+		persistAssignment(rider, AssignmentStatus.ASSIGNED, null);
+		persistAssignment(rider, AssignmentStatus.ASSIGNED, null);
+		persistAssignment(rider, AssignmentStatus.PICKED_UP, null);
+		persistAssignment(rider, AssignmentStatus.DELIVERED, LocalDateTime.now());
+		persistAssignment(rider, AssignmentStatus.DELIVERED, LocalDateTime.now().minusDays(2));
+		persistAssignment(otherRider, AssignmentStatus.CANCELLED, null);
+		entityManager.flush();
+
+		riderLoadService.rebuild();
+
+		assertEquals(new RiderLoad(rider.getId(), 2, 1, 3, 1), riderLoadService.getLoad(rider.getId()));
+		assertEquals(new RiderLoad(otherRider.getId(), 0, 0, 0, 0), riderLoadService.getLoad(otherRider.getId()));
+		assertEquals(List.of(new RiderLoad(rider.getId(), 2, 1, 3, 1)), riderLoadService.getLoads());
+		assertEquals(5, riderLoadService.getAssignmentCount(rider.getId()));
+		assertEquals(1, riderLoadService.getAssignmentCount(otherRider.getId()));
+		assertEquals(statusCounts(2, 1, 2, 1), riderLoadService.getStatusCounts());
+	}
+
+	@Test
+	void transitionsMoveTheCounters() {
+		riderLoadService.rebuild();
+		LocalDateTime now = LocalDateTime.now();
+
+		riderLoadService.onAssignmentChanged(new DeliveryAssignmentChangedEvent(List.of(
+			Transition.created(1L, now), Transition.created(1L, now), Transition.created(2L, now))));
+		assertEquals(new RiderLoad(1L, 2, 0, 2, 0), riderLoadService.getLoad(1L));
+
+		apply(1L, AssignmentStatus.ASSIGNED, 1L, AssignmentStatus.PICKED_UP, now);
+		apply(1L, AssignmentStatus.PICKED_UP, 1L, AssignmentStatus.DELIVERED, now);
+		assertEquals(new RiderLoad(1L, 1, 0, 1, 1), riderLoadService.getLoad(1L));
+
+		// Reassigning moves the assignment to the new rider; cancelling only releases it
+		apply(1L, AssignmentStatus.ASSIGNED, 2L, AssignmentStatus.ASSIGNED, now);
+		apply(2L, AssignmentStatus.ASSIGNED, 2L, AssignmentStatus.CANCELLED, now);
+		assertEquals(new RiderLoad(1L, 0, 0, 0, 1), riderLoadService.getLoad(1L));
+		assertEquals(new RiderLoad(2L, 1, 0, 1, 0), riderLoadService.getLoad(2L));
+		assertEquals(1, riderLoadService.getAssignmentCount(1L));
+		assertEquals(2, riderLoadService.getAssignmentCount(2L));
+		assertEquals(statusCounts(1, 0, 1, 1), riderLoadService.getStatusCounts());
+	}
+
+	@Test
+	// Each service call commits on its own, so the counters are updated by the published events
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	void serviceChangesReachTheCountersAfterCommit() {
+		riderLoadService.rebuild();
+		DeliveryPerson rider = deliverPersonRepository.save(fixtures.newRider(DeliveryPerson.VehicleType.BIKE));
+		Long waiting = saveOrder();
+		Long pickedUp = saveOrder();
+		Long delivered = saveOrder();
+
+		deliveryAssignmentService.createAssignment(waiting, rider.getId(), null);
+		Long pickedUpAssignment = deliveryAssignmentService.createAssignment(pickedUp, rider.getId(), null).getId();
+		Long deliveredAssignment = deliveryAssignmentService.createAssignment(delivered, rider.getId(), null).getId();
+		deliveryAssignmentService.markAsPickedUp(pickedUpAssignment, null);
+		deliveryAssignmentService.markAsPickedUp(deliveredAssignment, null);
+		deliveryAssignmentService.markAsDelivered(deliveredAssignment, null);
+		assertEquals(new RiderLoad(rider.getId(), 1, 1, 2, 1), riderLoadService.getLoad(rider.getId()));
+
+		// Deleting an order deletes its assignment, which leaves the rider's counts
+		orderService.deleteOrder(pickedUp);
+		orderService.deleteOrder(delivered);
+		assertEquals(new RiderLoad(rider.getId(), 1, 0, 1, 0), riderLoadService.getLoad(rider.getId()));
+
+		orderService.deleteOrder(waiting);
+		RiderLoad counted = riderLoadService.getLoad(rider.getId());
+		riderLoadService.rebuild();
+		assertEquals(new RiderLoad(rider.getId(), 0, 0, 0, 0), counted);
+		assertEquals(counted, riderLoadService.getLoad(rider.getId()));
+
+		deliverPersonRepository.deleteById(rider.getId());
+	}
+
+	@Test
+	// Two pickups of one assignment at once: the second waits for the first and finds it picked up
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	void concurrentPickupsOfOneAssignmentMoveTheCountersOnce() throws Exception {
+		riderLoadService.rebuild();
+		DeliveryPerson rider = deliverPersonRepository.save(fixtures.newRider(DeliveryPerson.VehicleType.BIKE));
+		Long order = saveOrder();
+		Long assignment = deliveryAssignmentService.createAssignment(order, rider.getId(), null).getId();
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		int pickedUp = 0;
+		int refused = 0;
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<?>> pickups = new ArrayList<>();
+			for (int i = 0; i < 2; i++) {
+				pickups.add(executor.submit(() -> {
+					start.await();
+					return deliveryAssignmentService.markAsPickedUp(assignment, null);
+				}));
+			}
+			start.countDown();
+			for (Future<?> pickup : pickups) {
+				try {
+					pickup.get(30, TimeUnit.SECONDS);
+					pickedUp++;
+				} catch (ExecutionException e) {
+					assertInstanceOf(IllegalStateException.class, e.getCause());
+					refused++;
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(1, pickedUp);
+		assertEquals(1, refused);
+		assertEquals(new RiderLoad(rider.getId(), 0, 1, 1, 0), riderLoadService.getLoad(rider.getId()));
+
+		orderService.deleteOrder(order);
+		deliverPersonRepository.deleteById(rider.getId());
+	}
+
+	@Test
+	void negativeCountersAreRecountedFromTheDatabase() {
+		DeliveryPerson rider = fixtures.persistRider();
+		persistAssignment(rider, AssignmentStatus.ASSIGNED, null);
+		entityManager.flush();
+		riderLoadService.rebuild();
+
+		// A pickup whose assignment the counters never saw
+		apply(rider.getId(), AssignmentStatus.PICKED_UP, rider.getId(), AssignmentStatus.DELIVERED, LocalDateTime.now());
+
+		assertEquals(new RiderLoad(rider.getId(), 1, 0, 1, 0), riderLoadService.getLoad(rider.getId()));
+	}
+
+	private static Map<AssignmentStatus, Long> statusCounts(long assigned, long pickedUp, long delivered, long cancelled) {
+		Map<AssignmentStatus, Long> counts = new EnumMap<>(AssignmentStatus.class);
+		for (AssignmentStatus status : AssignmentStatus.values()) {
+			counts.put(status, 0L);
+		}
+		counts.put(AssignmentStatus.ASSIGNED, assigned);
+		counts.put(AssignmentStatus.PICKED_UP, pickedUp);
+		counts.put(AssignmentStatus.DELIVERED, delivered);
+		counts.put(AssignmentStatus.CANCELLED, cancelled);
+		return counts;
+	}
+
+	private Long saveOrder() {
+		return orderRepository.save(fixtures.newOrder()).getPaymentId();
+	}
+
+	private void apply(Long fromRider, AssignmentStatus fromStatus, Long toRider, AssignmentStatus toStatus, LocalDateTime at) {
+		riderLoadService.onAssignmentChanged(new DeliveryAssignmentChangedEvent(
+			new Transition(fromRider, fromStatus, toRider, toStatus, at)));
+	}
+
+	private void persistAssignment(DeliveryPerson rider, AssignmentStatus status, LocalDateTime deliveredAt) {
+		DeliveryAssignment assignment = fixtures.persistAssignment(rider);
+		assignment.setStatus(status);
+		assignment.setDeliveredAt(deliveredAt);
+	}
+}